@@ -0,0 +1,58 @@
+package com.slang.benchmarks;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.output.OutputSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs of representative programs, see {@link Programs#program(String, int)}, compiled once with the default
+ * optimizations. Optimized is compared with the plain tree walk by -p optimize=false.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    @Param({"recursion", "loops", "closures", "promotion"})
+    public String program;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"true"})
+    public boolean optimize;
+
+    private CompiledModule module;
+    private final OutputSink out = new NullSink();
+
+    @Setup
+    public void setUp() {
+        module = SlangEngine.builder()
+                .withInlining(optimize)
+                .withTailCalls(optimize)
+                .withOutput(out)
+                .build()
+                .compile(Programs.program(program, size));
+    }
+
+    @Benchmark
+    public void run() {
+        module.run(out);
+    }
+}
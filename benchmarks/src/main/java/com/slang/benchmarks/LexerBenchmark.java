@@ -0,0 +1,51 @@
+package com.slang.benchmarks;
+
+import com.slang.ast.Token;
+import com.slang.lexer.Lexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens of a generated module, see {@link Programs#module(int)}, per second of {@link Lexer#eat()}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = Programs.module(size);
+    }
+
+    @Benchmark
+    public int eat() {
+        Lexer lexer = new Lexer(source);
+        int tokens = 0;
+        lexer.eat();
+        while (Token.UNKNOWN != lexer.getCurrentToken()) {
+            tokens++;
+            lexer.eat();
+        }
+        return tokens;
+    }
+}
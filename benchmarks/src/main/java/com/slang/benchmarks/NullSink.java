@@ -0,0 +1,45 @@
+package com.slang.benchmarks;
+
+import com.slang.output.OutputSink;
+
+/**
+ * Discards the output, so the benchmarks measure the interpreter and not the terminal
+ */
+final class NullSink implements OutputSink {
+
+    @Override
+    public void print(String value) {
+    }
+
+    @Override
+    public void print(int value) {
+    }
+
+    @Override
+    public void print(long value) {
+    }
+
+    @Override
+    public void print(float value) {
+    }
+
+    @Override
+    public void print(double value) {
+    }
+
+    @Override
+    public void print(boolean value) {
+    }
+
+    @Override
+    public void newLine() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,45 @@
+package com.slang.benchmarks;
+
+import com.slang.ast.Module;
+import com.slang.lexer.Lexer;
+import com.slang.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Parser#parseModule()} of a generated module, lexing included as the parser pulls the tokens
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private String source;
+
+    @Setup
+    public void setUp() {
+        source = Programs.module(size);
+    }
+
+    @Benchmark
+    public Module parseModule() {
+        return new Parser(new Lexer(source)).parseModule();
+    }
+}
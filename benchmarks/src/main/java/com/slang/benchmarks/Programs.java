@@ -0,0 +1,68 @@
+package com.slang.benchmarks;
+
+/**
+ * Source of the benchmarked programs. The size is the amount of work: the number of generated functions for the
+ * front end, the number of loop iterations of the programs for the interpreter.
+ */
+final class Programs {
+
+    private Programs() {
+    }
+
+    /**
+     * A module of the given number of functions using every statement, for the lexer, parser and analyser
+     */
+    static String module(int functions) {
+        StringBuilder source = new StringBuilder("function void main() var total = 0;\n");
+        for (int i = 0; i < functions; i++) {
+            source.append("var r").append(i).append(" = f").append(i).append("(").append(i).append(", 2.5);\n")
+                    .append("total = total + r").append(i).append(";\n");
+        }
+        source.append("println total;\nend\n");
+        for (int i = 0; i < functions; i++) {
+            source.append("function int f").append(i).append("(int n, double d)\n")
+                    .append("    var k = n * 3;\n")
+                    .append("    var scale = lambda int (int x) return x * k; endlambda\n")
+                    .append("    var i = 0;\n")
+                    .append("    var s = \"function ").append(i).append("\";\n")
+                    .append("    while (i < 10)\n")
+                    .append("        i = i + 1;\n")
+                    .append("        if (i == 5 && !(n > 100) || false) then\n")
+                    .append("            d = d + 1.25;\n")
+                    .append("        else\n")
+                    .append("            d = d - 0.5;\n")
+                    .append("        endif\n")
+                    .append("    wend\n")
+                    .append("    var r = scale(i);\n")
+                    .append("    return r + n;\n")
+                    .append("end\n");
+        }
+        return source.toString();
+    }
+
+    static String program(String kind, int size) {
+        switch (kind) {
+            case "recursion":
+                //fib(10) is 177 calls
+                return "function void main() var r = 0; var j = 0; " +
+                        "while (j < " + Math.max(1, size / 100) + ") j = j + 1; r = fib(10); wend println r; end " +
+                        "function int fib(int n) if (n < 2) then return n; endif " +
+                        "var a = fib(n - 1); var b = fib(n - 2); return a + b; end";
+            case "loops":
+                return "function void main() var sum = 0l; var i = 0; " +
+                        "while (i < " + size + ") i = i + 1; if (i > 10) then sum = sum + i; endif wend " +
+                        "println sum; end";
+            case "closures":
+                return "function void main() var k = 3; var sum = 0; var i = 0; var s = 0; " +
+                        "var scale = lambda int (int x) return x * k; endlambda " +
+                        "while (i < " + size + ") i = i + 1; s = scale(i); sum = sum + s; wend " +
+                        "println sum; end";
+            case "promotion":
+                return "function void main() var d = 0.5; var f = 1.5f; var l = 2l; var i = 0; " +
+                        "while (i < " + size + ") i = i + 1; l = l + i; f = f + i; d = d + f; d = d + l; wend " +
+                        "println d; end";
+            default:
+                throw new RuntimeException("Unknown program " + kind);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.slang.benchmarks;
+
+import com.slang.ast.Module;
+import com.slang.lexer.Lexer;
+import com.slang.parser.Parser;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SemanticAnalyzer} over a generated module. The analyser annotates the AST, so every invocation gets a
+ * freshly parsed module, which is fine at the tens of microseconds an analysis takes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemanticAnalyzerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private String source;
+    private Module module;
+
+    @Setup
+    public void setUp() {
+        source = Programs.module(size);
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() {
+        module = new Parser(new Lexer(source)).parseModule();
+    }
+
+    @Benchmark
+    public Module analyse() {
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        return module;
+    }
+}
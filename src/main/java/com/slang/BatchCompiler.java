@@ -0,0 +1,247 @@
+package com.slang;
+
+import com.slang.ast.Module;
+import com.slang.lexer.Lexer;
+import com.slang.parser.Parser;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles, or with check only just parses and analyses, many files at once on a work stealing pool, for SlangC
+ * --batch. Files are given as files, directories, searched for .sl files, or glob patterns such as
+ * {@code scripts/**.sl}. Nothing is run. Types are interned in the shared {@link TypeTable}, so the files
+ * only add the function types nobody has used before.
+ */
+public class BatchCompiler {
+
+    private final SlangEngine engine;
+    private final boolean checkOnly;
+    private final int jobs;
+
+    public BatchCompiler(SlangEngine engine, boolean checkOnly, int jobs) {
+        this.engine = engine;
+        this.checkOnly = checkOnly;
+        this.jobs = jobs;
+    }
+
+    /**
+     * The .sl files named by the given files, directories and glob patterns, sorted and without duplicates
+     */
+    public static List<Path> expand(List<String> patterns) throws IOException {
+        TreeSet<Path> files = new TreeSet<>();
+        for (String pattern : patterns) {
+            Path path = Paths.get(pattern);
+            if (Files.isDirectory(path)) {
+                files.addAll(walk(path, FileSystems.getDefault().getPathMatcher("glob:**.sl")));
+            } else if (isGlob(pattern)) {
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+                files.addAll(walk(base(pattern), matcher));
+            } else if (Files.isRegularFile(path)) {
+                files.add(path);
+            } else {
+                throw new RuntimeException("No such file or directory : " + pattern);
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static boolean isGlob(String pattern) {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0 || pattern.indexOf('[') >= 0
+                || pattern.indexOf('{') >= 0;
+    }
+
+    //the directories of a pattern before its first wildcard
+    private static Path base(String pattern) {
+        String separator = FileSystems.getDefault().getSeparator();
+        String[] parts = pattern.split(java.util.regex.Pattern.quote(separator), -1);
+        StringBuilder base = new StringBuilder(pattern.startsWith(separator) ? separator : "");
+        for (int i = 0; i < parts.length - 1 && !isGlob(parts[i]); i++) {
+            if (!parts[i].isEmpty()) {
+                base.append(parts[i]).append(separator);
+            }
+        }
+        return Paths.get(0 == base.length() ? "." : base.toString());
+    }
+
+    private static List<Path> walk(Path directory, PathMatcher matcher) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        boolean relative = Paths.get(".").equals(directory);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.map(path -> relative ? directory.relativize(path) : path)
+                    .filter(path -> matcher.matches(path) && Files.isRegularFile(path))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public Report compile(List<Path> files) {
+        Result[] results = new Result[files.size()];
+        long begin = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(jobs);
+        try {
+            pool.invoke(new CompileTask(files, results, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        return new Report(Arrays.asList(results), System.nanoTime() - begin);
+    }
+
+    private Result compile(Path file) {
+        CompileStatistics statistics = new CompileStatistics();
+        long begin = System.nanoTime();
+        String error = null;
+        try {
+            String source = new String(Files.readAllBytes(file));
+            if (checkOnly) {
+                Module module = new Parser(new Lexer(source)).parseModule();
+                module.accept(new SemanticAnalyzer(), new LexicalContext());
+            } else {
+                engine.compile(source, statistics);
+            }
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            error = null == e.getMessage() ? e.getClass().getName() : e.getMessage();
+        }
+        return new Result(file, error, System.nanoTime() - begin, statistics);
+    }
+
+    private final class CompileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        private CompileTask(List<Path> files, Result[] results, int from, int to) {
+            this.files = files;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    results[from] = BatchCompiler.this.compile(files.get(from));
+                }
+                return;
+            }
+            //split down to single files, idle workers steal the other halves
+            int middle = (from + to) >>> 1;
+            invokeAll(new CompileTask(files, results, from, middle), new CompileTask(files, results, middle, to));
+        }
+    }
+
+    public static final class Result {
+        private final Path file;
+        private final String error;
+        private final long nanos;
+        private final CompileStatistics statistics;
+
+        private Result(Path file, String error, long nanos, CompileStatistics statistics) {
+            this.file = file;
+            this.error = error;
+            this.nanos = nanos;
+            this.statistics = statistics;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * The reason the file doesn't compile, null when it does
+         */
+        public String getError() {
+            return error;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public CompileStatistics getStatistics() {
+            return statistics;
+        }
+    }
+
+    public static final class Report {
+        private final List<Result> results;
+        private final long wallNanos;
+
+        private Report(List<Result> results, long wallNanos) {
+            this.results = results;
+            this.wallNanos = wallNanos;
+        }
+
+        public List<Result> getResults() {
+            return results;
+        }
+
+        public List<Result> getFailures() {
+            return results.stream().filter(result -> null != result.error).collect(Collectors.toList());
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * The counters of all the files added up
+         */
+        public CompileStatistics getStatistics() {
+            CompileStatistics statistics = new CompileStatistics();
+            for (Result result : results) {
+                result.statistics.getCounters().forEach(statistics::add);
+            }
+            return statistics;
+        }
+
+        public void printDiagnostics(PrintStream out) {
+            for (Result result : getFailures()) {
+                out.println(result.file + ": error: " + result.error);
+            }
+        }
+
+        /**
+         * The files, slowest first, and the totals
+         */
+        public void printTimings(PrintStream out, int limit) {
+            List<Result> slowest = new ArrayList<>(results);
+            slowest.sort(Comparator.comparingLong((Result result) -> result.nanos).reversed());
+            out.println("      ms  file");
+            for (Result result : slowest.subList(0, Math.min(limit, slowest.size()))) {
+                out.println(String.format("%8.2f  %s%s", result.nanos / 1e6, result.file,
+                        null == result.error ? "" : " (failed)"));
+            }
+            if (slowest.size() > limit) {
+                out.println("     ...  " + (slowest.size() - limit) + " more");
+            }
+
+            long total = results.stream().mapToLong(result -> result.nanos).sum();
+            out.println(String.format("%d files, %d failed, %.1f ms wall, %.1f ms compiling, %.2fx parallel",
+                    results.size(), getFailures().size(), wallNanos / 1e6, total / 1e6,
+                    0 == wallNanos ? 0.0 : (double) total / wallNanos));
+        }
+    }
+}
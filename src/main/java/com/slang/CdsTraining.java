@@ -0,0 +1,71 @@
+package com.slang;
+
+import com.slang.output.ChannelSink;
+import com.slang.output.OutputSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Training workload for the class data sharing archive of SlangC (bin/slangc-cds-archive), compiles and runs
+ * every .sl file of a directory the way SlangC does, so the archive holds the classes a real run loads. The
+ * output is discarded and programs which fail are skipped.
+ *
+ * Usage: CdsTraining dir
+ */
+public class CdsTraining {
+
+    private static final String[][] OPTION_SETS = {
+            {},
+            {"--no-inline", "--no-tail-calls", "--paranoid", "--print-module"}
+    };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("directory required");
+            System.exit(0);
+        }
+
+        int trained = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(args[0]), "*.sl")) {
+            for (Path file : files) {
+                String source = new String(Files.readAllBytes(file));
+                for (String[] optionSet : OPTION_SETS) {
+                    String[] commandLine = new String[optionSet.length + 1];
+                    System.arraycopy(optionSet, 0, commandLine, 0, optionSet.length);
+                    commandLine[optionSet.length] = file.toString();
+                    if (train(SlangC.Options.parse(commandLine), source)) {
+                        trained++;
+                    }
+                }
+            }
+        }
+        System.out.println("trained " + trained + " runs");
+    }
+
+    private static boolean train(SlangC.Options options, String source) {
+        OutputSink out = new ChannelSink(Channels.newChannel(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+            }
+        }));
+        try {
+            SlangC.run(options.engine().build().compile(source, new CompileStatistics()), options.printModule, out,
+                    null, null);
+            return true;
+        } catch (RuntimeException | StackOverflowError e) {
+            return false;
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.slang;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Named counters collected by the compiler passes, dumped by SlangC on request.
+ */
+public class CompileStatistics {
+
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    public void increment(String counterName) {
+        add(counterName, 1);
+    }
+
+    public void add(String counterName, long delta) {
+        counters.merge(counterName, delta, Long::sum);
+    }
+
+    public long get(String counterName) {
+        return counters.getOrDefault(counterName, 0L);
+    }
+
+    public Map<String, Long> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    public void dump(PrintStream out) {
+        int width = 0;
+        for (String counterName : counters.keySet()) {
+            width = Math.max(width, counterName.length());
+        }
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            out.println(String.format("%-" + width + "s : %d", counter.getKey(), counter.getValue()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompileStatistics{" +
+                "counters=" + counters +
+                '}';
+    }
+}
@@ -0,0 +1,190 @@
+package com.slang;
+
+import com.slang.ast.Function;
+import com.slang.ast.Module;
+import com.slang.metrics.SlangMetrics;
+import com.slang.output.OutputSink;
+import com.slang.profiler.AllocationProfile;
+import com.slang.profiler.ExecutionCounts;
+import com.slang.snapshot.SnapshotReader;
+import com.slang.snapshot.SnapshotWriter;
+import com.slang.visitor.AllocationInterpreter;
+import com.slang.visitor.AllocationTracker;
+import com.slang.visitor.CountingInterpreter;
+import com.slang.visitor.Interpreter;
+import com.slang.visitor.InvocationListener;
+import com.slang.visitor.LexicalContext;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A module compiled by {@link SlangEngine}. The program is never changed after compilation and every run or
+ * invocation gets its own frames, so a compiled module can be shared and used from several threads. Output
+ * goes to the engine's sink unless one is given to {@link #run(OutputSink)}.
+ *
+ * A module restored from a {@link #snapshot(OutputSink)} by {@link SlangEngine#restore(ByteBuffer)} skips the
+ * setup of main, its leading variable declarations, on every run and continues with the variables of the snapshot.
+ */
+public final class CompiledModule {
+
+    private final Module module;
+    private final Interpreter interpreter;
+    private final boolean paranoid;
+    private final OutputSink out;
+    //null when the engine doesn't count
+    private final SlangMetrics metrics;
+    private final Map<String, FunctionHandle> functions;
+    //main's frame after the setup, null when main runs from the start
+    private final ByteBuffer frame;
+
+    CompiledModule(Module module, boolean paranoid, OutputSink out, SlangMetrics metrics) {
+        this(module, paranoid, out, metrics, null);
+    }
+
+    CompiledModule(Module module, boolean paranoid, OutputSink out, SlangMetrics metrics, ByteBuffer frame) {
+        this.module = module;
+        this.frame = frame;
+        this.paranoid = paranoid;
+        this.out = out;
+        this.metrics = metrics;
+        this.interpreter = new Interpreter(paranoid, out);
+
+        Map<String, FunctionHandle> functions = new LinkedHashMap<>();
+        for (Function function : module.getFunctionsMap().values()) {
+            functions.put(function.getName(), new FunctionHandle(this, function));
+        }
+        this.functions = Collections.unmodifiableMap(functions);
+    }
+
+    /**
+     * Runs the main function
+     */
+    public void run() {
+        if (null == metrics) {
+            run(interpreter);
+        } else {
+            run(out, InvocationListener.NONE);
+        }
+    }
+
+    public void run(OutputSink out) {
+        run(out, InvocationListener.NONE);
+    }
+
+    /**
+     * Runs main with a listener of every function invocation, e.g. a {@link com.slang.profiler.FunctionProfiler}
+     */
+    public void run(OutputSink out, InvocationListener listener) {
+        if (null == metrics) {
+            run(new Interpreter(paranoid, out, listener));
+        } else {
+            metrics.execute(() -> run(new Interpreter(paranoid, metrics.meter(out), metrics.listener(listener))));
+        }
+    }
+
+    /**
+     * Counts of the executions of every statement and expression of the module, for
+     * {@link #run(OutputSink, ExecutionCounts)}
+     */
+    public ExecutionCounts newExecutionCounts() {
+        return new ExecutionCounts(module);
+    }
+
+    /**
+     * Runs main counting every statement run and expression evaluated into counts
+     */
+    public void run(OutputSink out, ExecutionCounts counts) {
+        if (module != counts.getModule()) {
+            throw new RuntimeException("Execution counts of another module");
+        }
+        if (null == metrics) {
+            run(new CountingInterpreter(paranoid, out, counts.getCounters()));
+        } else {
+            metrics.execute(() -> run(new CountingInterpreter(paranoid, metrics.meter(out),
+                    metrics.listener(InvocationListener.NONE), counts.getCounters())));
+        }
+    }
+
+    /**
+     * Counts of the SymbolInfos and frames every statement and expression of the module creates, for
+     * {@link #run(OutputSink, AllocationProfile)}
+     */
+    public AllocationProfile newAllocationProfile() {
+        return new AllocationProfile(module);
+    }
+
+    /**
+     * Runs main counting the SymbolInfos and frames created into profile
+     */
+    public void run(OutputSink out, AllocationProfile profile) {
+        if (module != profile.getModule()) {
+            throw new RuntimeException("Allocation profile of another module");
+        }
+        AllocationTracker tracker = profile.newTracker();
+        if (null == metrics) {
+            tracker.track(() -> run(new AllocationInterpreter(paranoid, out, tracker)));
+        } else {
+            metrics.execute(() -> tracker.track(() -> run(new AllocationInterpreter(paranoid, metrics.meter(out),
+                    metrics.listener(InvocationListener.NONE), tracker))));
+        }
+    }
+
+    private void run(Interpreter interpreter) {
+        if (null == frame) {
+            module.accept(interpreter, new LexicalContext());
+        } else {
+            interpreter.resume(module, SnapshotReader.readFrame(module, frame.duplicate()));
+        }
+    }
+
+    /**
+     * Runs the setup of main and returns the module and its state after the setup, see
+     * {@link SlangEngine#restore(ByteBuffer)}
+     */
+    public byte[] snapshot(OutputSink out) {
+        if (null != frame) {
+            throw new RuntimeException("Module is already restored from a snapshot");
+        }
+        return SnapshotWriter.write(module, new Interpreter(paranoid, out).setUp(module));
+    }
+
+    public Set<String> getFunctionNames() {
+        return functions.keySet();
+    }
+
+    public FunctionHandle getFunction(String functionName) {
+        FunctionHandle function = functions.get(functionName);
+        if (null == function) {
+            throw new RuntimeException("Undefined function : " + functionName);
+        }
+        return function;
+    }
+
+    /**
+     * Invokes a function with boxed arguments and returns its boxed result, see {@link FunctionHandle} for
+     * the primitive variants
+     */
+    public Object invoke(String functionName, Object... args) {
+        return getFunction(functionName).invoke(args);
+    }
+
+    Module getModule() {
+        return module;
+    }
+
+    /**
+     * Calls function for a {@link FunctionHandle}, with the engine's sink
+     */
+    SymbolInfo call(Function function, List<SymbolInfo> actualParams) {
+        if (null == metrics) {
+            return interpreter.invoke(module, function, actualParams);
+        }
+        return metrics.execute(() -> new Interpreter(paranoid, metrics.meter(out),
+                metrics.listener(InvocationListener.NONE)).invoke(module, function, actualParams));
+    }
+}
@@ -0,0 +1,118 @@
+package com.slang;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+
+/**
+ * Wire format between {@link SlangDClient} and {@link SlangD}, all numbers big endian.
+ *
+ * request  : MAGIC, token (UTF), working directory (UTF), argument count, arguments (UTF), stdin length or -1,
+ *            stdin bytes
+ * response : frames of type, length, bytes, where STDOUT and STDERR carry output and EXIT carries the
+ *            exit code as a 4 byte int and ends the response
+ *
+ * The token is a random secret the daemon writes to a file only its user can read, see {@link #tokenFile(int)}, so
+ * only the processes of that user can make the daemon run anything.
+ */
+final class DaemonProtocol {
+
+    static final int MAGIC = 0x534c4e44;
+    static final int DEFAULT_PORT = 7557;
+
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * The token file of the daemon on port, ~/.slangd/port.token
+     */
+    static Path tokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".slangd", port + ".token");
+    }
+
+    /**
+     * Writes a new random token to file, which only the user can read and write
+     */
+    static String createToken(Path file) throws IOException {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder token = new StringBuilder();
+        for (byte b : random) {
+            token.append(String.format("%02x", b));
+        }
+
+        boolean posix = file.getFileSystem().supportedFileAttributeViews().contains("posix");
+        Path directory = file.toAbsolutePath().getParent();
+        if (posix) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+        //a new file, so it can't be a link somewhere else or keep the permissions of an old one
+        Files.deleteIfExists(file);
+        if (posix) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+            File created = file.toFile();
+            created.setReadable(false, false);
+            created.setReadable(true, true);
+            created.setWritable(false, false);
+            created.setWritable(true, true);
+        }
+        Files.write(file, token.toString().getBytes(StandardCharsets.UTF_8));
+        return token.toString();
+    }
+
+    static String readToken(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Sends everything written to it as frames of one type
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (0 == length) {
+                return;
+            }
+            //stdout and stderr frames share the stream
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(length);
+                out.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.slang;
+
+import com.slang.ast.Function;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A top level function of a {@link CompiledModule}, resolved once and invoked any number of times. The
+ * primitive variants take and return Java primitives, so callers need no argument array and no type dispatch on the
+ * result. On each call they compare the declared return type of the function with theirs, a reference comparison,
+ * and fail before running it when the two differ. They don't avoid boxing: a {@link SymbolInfo} keeps its value as an
+ * Integer, Long or Double, so every argument and the result are still boxed inside the interpreter.
+ */
+public final class FunctionHandle {
+
+    private final CompiledModule module;
+    private final Function function;
+
+    FunctionHandle(CompiledModule module, Function function) {
+        this.module = module;
+        this.function = function;
+    }
+
+    public String getName() {
+        return function.getName();
+    }
+
+    public Type getType() {
+        return function.getType();
+    }
+
+    public Object invoke(Object... args) {
+        List<SymbolInfo> actualParams = new ArrayList<>(args.length);
+        for (Object arg : args) {
+            actualParams.add(toSymbolInfo(arg));
+        }
+        return toValue(call(actualParams));
+    }
+
+    public int invokeInt() {
+        return call(Type.INTEGER, Collections.emptyList()).getIntegerValue();
+    }
+
+    public int invokeInt(int arg) {
+        return call(Type.INTEGER, Collections.singletonList(new SymbolInfo(arg))).getIntegerValue();
+    }
+
+    public int invokeInt(int arg1, int arg2) {
+        return call(Type.INTEGER, Arrays.asList(new SymbolInfo(arg1), new SymbolInfo(arg2))).getIntegerValue();
+    }
+
+    public long invokeLong() {
+        return call(Type.LONG, Collections.emptyList()).getLongValue();
+    }
+
+    public long invokeLong(long arg) {
+        return call(Type.LONG, Collections.singletonList(new SymbolInfo(arg))).getLongValue();
+    }
+
+    public long invokeLong(long arg1, long arg2) {
+        return call(Type.LONG, Arrays.asList(new SymbolInfo(arg1), new SymbolInfo(arg2))).getLongValue();
+    }
+
+    public double invokeDouble() {
+        return call(Type.DOUBLE, Collections.emptyList()).getDoubleValue();
+    }
+
+    public double invokeDouble(double arg) {
+        return call(Type.DOUBLE, Collections.singletonList(new SymbolInfo(arg))).getDoubleValue();
+    }
+
+    public double invokeDouble(double arg1, double arg2) {
+        return call(Type.DOUBLE, Arrays.asList(new SymbolInfo(arg1), new SymbolInfo(arg2))).getDoubleValue();
+    }
+
+    private SymbolInfo call(Type returnType, List<SymbolInfo> actualParams) {
+        if (returnType != function.getReturnType()) {
+            throw new RuntimeException(function.getName() + " returns " + function.getReturnType().getTypeName()
+                    + ", not " + returnType.getTypeName());
+        }
+        return call(actualParams);
+    }
+
+    private SymbolInfo call(List<SymbolInfo> actualParams) {
+        return module.call(function, actualParams);
+    }
+
+    private static SymbolInfo toSymbolInfo(Object arg) {
+        if (arg instanceof Integer) {
+            return new SymbolInfo((Integer) arg);
+        } else if (arg instanceof Long) {
+            return new SymbolInfo((Long) arg);
+        } else if (arg instanceof Double) {
+            return new SymbolInfo((Double) arg);
+        } else if (arg instanceof Float) {
+            return new SymbolInfo((Float) arg);
+        } else if (arg instanceof Boolean) {
+            return new SymbolInfo((Boolean) arg);
+        } else if (arg instanceof String) {
+            return new SymbolInfo((String) arg);
+        }
+        throw new RuntimeException("Unsupported argument : " + arg);
+    }
+
+    private static Object toValue(SymbolInfo symbolInfo) {
+        Type type = symbolInfo.getDataType();
+        if (Type.INTEGER == type) {
+            return symbolInfo.getIntegerValue();
+        } else if (Type.LONG == type) {
+            return symbolInfo.getLongValue();
+        } else if (Type.DOUBLE == type) {
+            return symbolInfo.getDoubleValue();
+        } else if (Type.FLOAT == type) {
+            return symbolInfo.getFloatValue();
+        } else if (Type.BOOL == type) {
+            return symbolInfo.getBoolValue();
+        } else if (Type.STRING == type) {
+            return symbolInfo.getStringValue();
+        } else if (Type.VOID == type) {
+            return null;
+        }
+        return symbolInfo.getFunctionValue();
+    }
+}
@@ -0,0 +1,217 @@
+package com.slang;
+
+import com.slang.ast.Module;
+import com.slang.visitor.AllocationTracker;
+import com.slang.visitor.Context;
+import com.slang.visitor.IVisitable;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.TreeWalker;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Wall time, CPU time, allocated bytes and {@link LexicalContext} frames of each compiler phase and of the
+ * interpretation, measured on the thread running the phase, plus counts such as tokens and AST nodes. Printed by
+ * SlangC --stats as a table or as JSON.
+ *
+ * CPU time and allocation come from the ThreadMXBean and are -1 when the JVM doesn't support them. Frames are
+ * counted by an {@link AllocationTracker} of the thread, so runs on other threads aren't included, and only for the
+ * phases measured with {@link #measureFrames}, the frames of the others are -1.
+ */
+public class PhaseStatistics {
+
+    public static final class Phase {
+        private final String name;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+        private final long frames;
+
+        private Phase(String name, long wallNanos, long cpuNanos, long allocatedBytes, long frames) {
+            this.name = name;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.frames = frames;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getFrames() {
+            return frames;
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final List<Phase> phases = new ArrayList<>();
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    public void measure(String name, Runnable phase) {
+        measure(name, () -> {
+            phase.run();
+            return null;
+        });
+    }
+
+    public <T> T measure(String name, Supplier<T> phase) {
+        return measure(name, phase, false);
+    }
+
+    /**
+     * Measures a phase and counts its frames. The tracker costs a ThreadLocal lookup per frame, which is part of the
+     * times of the phase, so this is meant for the interpretation only
+     */
+    public void measureFrames(String name, Runnable phase) {
+        measure(name, () -> {
+            phase.run();
+            return null;
+        }, true);
+    }
+
+    private <T> T measure(String name, Supplier<T> phase, boolean countFrames) {
+        long cpu = cpuTime();
+        long allocated = allocatedBytes();
+        long[] frames = {countFrames ? 0 : -1};
+        long wall = System.nanoTime();
+        try {
+            return countFrames ? new AllocationTracker(new long[1], frames).track(phase) : phase.get();
+        } finally {
+            wall = System.nanoTime() - wall;
+            allocated = allocated < 0 ? -1 : allocatedBytes() - allocated;
+            cpu = cpu < 0 ? -1 : cpuTime() - cpu;
+            phases.add(new Phase(name, wall, cpu, allocated, frames[0]));
+        }
+    }
+
+    public void count(String name, long value) {
+        counts.merge(name, value, Long::sum);
+    }
+
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    public Map<String, Long> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Nodes of the module's AST, lambda bodies included
+     */
+    public static long countNodes(Module module) {
+        long[] nodes = {0};
+        module.accept(new TreeWalker() {
+            @Override
+            protected void visitNode(IVisitable node, Context context) {
+                nodes[0]++;
+            }
+        }, null);
+        return nodes[0];
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    public void print(PrintStream out) {
+        int width = "total".length();
+        for (Phase phase : phases) {
+            width = Math.max(width, phase.name.length());
+        }
+        String format = "%-" + width + "s %12s %12s %15s %10s%n";
+        out.printf(format, "phase", "wall ms", "cpu ms", "allocated KB", "frames");
+        long wall = 0, cpu = 0, allocated = 0, frames = -1;
+        List<String> framePhases = new ArrayList<>();
+        for (Phase phase : phases) {
+            out.printf(format, phase.name, millis(phase.wallNanos), millis(phase.cpuNanos),
+                    kilobytes(phase.allocatedBytes), frames(phase.frames));
+            wall += phase.wallNanos;
+            cpu = cpu < 0 || phase.cpuNanos < 0 ? -1 : cpu + phase.cpuNanos;
+            allocated = allocated < 0 || phase.allocatedBytes < 0 ? -1 : allocated + phase.allocatedBytes;
+            if (phase.frames >= 0) {
+                frames = Math.max(frames, 0) + phase.frames;
+                framePhases.add(phase.name);
+            }
+        }
+        out.printf(format, "total", millis(wall), millis(cpu), kilobytes(allocated), frames(frames));
+        if (!framePhases.isEmpty()) {
+            out.println("frames are counted in " + String.join(", ", framePhases)
+                    + " only, its times include a ThreadLocal lookup per frame for the counting");
+        }
+
+        width = 0;
+        for (String name : counts.keySet()) {
+            width = Math.max(width, name.length());
+        }
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            out.println(String.format("%-" + width + "s : %d", count.getKey(), count.getValue()));
+        }
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "n/a" : String.format("%.3f", nanos / 1e6);
+    }
+
+    private static String frames(long frames) {
+        return frames < 0 ? "n/a" : String.valueOf(frames);
+    }
+
+    private static String kilobytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.format("%.1f", bytes / 1024.0);
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"phases\":[");
+        String separator = "";
+        for (Phase phase : phases) {
+            json.append(separator)
+                    .append("{\"name\":\"").append(phase.name)
+                    .append("\",\"wallNanos\":").append(phase.wallNanos)
+                    .append(",\"cpuNanos\":").append(phase.cpuNanos)
+                    .append(",\"allocatedBytes\":").append(phase.allocatedBytes)
+                    .append(",\"frames\":").append(phase.frames)
+                    .append('}');
+            separator = ",";
+        }
+        json.append("],\"counts\":{");
+        separator = "";
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            json.append(separator).append('"').append(count.getKey()).append("\":").append(count.getValue());
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+}
@@ -1,36 +1,328 @@
 package com.slang;
 
 
-import com.slang.ast.Module;
-import com.slang.lexer.Lexer;
-import com.slang.parser.Parser;
-import com.slang.visitor.Interpreter;
-import com.slang.visitor.LexicalContext;
-import com.slang.visitor.SemanticAnalyzer;
+import com.slang.optimizer.Inliner;
+import com.slang.profiler.AllocationProfile;
+import com.slang.profiler.ExecutionCounts;
+import com.slang.profiler.FunctionProfiler;
+import com.slang.profiler.SamplingProfiler;
+import com.slang.output.AsyncChannelSink;
+import com.slang.output.ChannelSink;
+import com.slang.output.OutputSink;
+import com.slang.visitor.InvocationListener;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by sarath on 16/3/17.
+ *
+ * Usage: SlangC [--no-inline] [--inline-budget=n] [--no-tail-calls] [--paranoid] [--async-output] [--cache-dir=dir]
+ *               [--dump-stats] [--stats[=json]] [--print-module]
+ *               [--profile=file | --sample[=micros] | --line-counts=file | --allocations[=n]] [--snapshot=file] file
+ *        SlangC [--paranoid] [--async-output] [--stats[=json]] [--print-module]
+ *               [--profile=file | --sample[=micros] | --line-counts=file | --allocations[=n]] --restore=file
+ *        SlangC --batch [--check] [--jobs=n] [--no-inline] [--inline-budget=n] [--no-tail-calls] [--cache-dir=dir]
+ *               [--dump-stats] file|dir|glob ...
+ *
+ * --paranoid keeps every runtime getType check, even the ones proved by the SemanticAnalyzer
+ * --async-output writes the program output from a separate thread
+ * --cache-dir keeps the compiled modules in dir and reuses them while the source is unchanged
+ * --snapshot runs only the setup of main, its leading variable declarations, and saves the module and its state
+ * --restore runs the rest of main from a saved snapshot
+ * --stats prints the time, CPU time and allocation of every phase, the frames of the interpretation and the token
+ *         and node counts to stderr, as a table or as a single line of JSON
+ * --print-module prints the compiled module before running it
+ * --profile times every function and lambda, prints the hottest to stderr and writes the collapsed stacks of the
+ *           run, the input of flame graph tools, to file
+ * --sample samples the running function and line every micros, 1000 by default, and prints the hottest to stderr
+ * --line-counts writes the source with the execution count of every line, a coverage report, to file
+ * --allocations counts the SymbolInfos and frames the interpreter creates per line and prints the n lines which
+ *               created the most, 20 by default, to stderr
+ * --batch compiles every file without running them, reports the errors and the time per file and exits with 1
+ *         when a file doesn't compile, --check only parses and analyses, --jobs is the number of threads
+ *
+ * A file name of - reads the program from stdin.
  */
 public class SlangC {
 
     public static void main(String[] args) throws IOException {
-        if (args.length < 1) {
-            System.out.println("file name required");
+        Options options = Options.parse(args);
+        if (null != options.error) {
+            System.out.println(options.error);
             System.exit(0);
         }
 
-        String moduleString = new String(Files.readAllBytes(new File(args[0]).toPath()));
+        if (options.batch) {
+            System.exit(batch(options));
+        }
+
+        CompileStatistics statistics = new CompileStatistics();
+        PhaseStatistics phases = null == options.stats ? null : new PhaseStatistics();
 
+        CompiledModule compiledModule;
+        String source = null;
+        if (null != options.restore) {
+            ByteBuffer snapshot = map(Paths.get(options.restore));
+            compiledModule = null == phases
+                    ? options.engine().build().restore(snapshot)
+                    : phases.measure("restore", () -> options.engine().build().restore(snapshot));
+        } else {
+            source = "-".equals(options.fileName)
+                    ? new String(readFully(System.in))
+                    : new String(Files.readAllBytes(new File(options.fileName).toPath()));
+            compiledModule = options.engine().build().compile(source, statistics, phases);
+        }
 
-        Lexer lexer = new Lexer(moduleString);
-        Parser parser = new Parser(lexer);
-        Module module = parser.parseModule();
-        System.out.println(module);
-        module.accept(new SemanticAnalyzer(), new LexicalContext());
-        module.accept(new Interpreter(), new LexicalContext());
+        FunctionProfiler profiler = null == options.profile ? null : new FunctionProfiler();
+        SamplingProfiler sampler = 0 == options.sample ? null : new SamplingProfiler(options.sample);
+        ExecutionCounts counts = null == options.lineCounts ? null : compiledModule.newExecutionCounts();
+        AllocationProfile allocations = 0 == options.allocations ? null : compiledModule.newAllocationProfile();
+        OutputSink out = options.asyncOutput
+                ? AsyncChannelSink.stdout()
+                : ChannelSink.stdout();
+        try {
+            if (null != options.snapshot) {
+                snapshot(compiledModule, Paths.get(options.snapshot), options.printModule, out, phases);
+            } else {
+                run(compiledModule, options.printModule, out, phases, null != profiler ? profiler : sampler, counts,
+                        allocations);
+            }
+        } finally {
+            out.close();
+        }
+
+        if (null != profiler) {
+            writeProfile(profiler, Paths.get(options.profile), System.err);
+        }
+        if (null != sampler) {
+            sampler.close();
+            sampler.report().print(System.err, 20);
+        }
+        if (null != counts) {
+            writeLineCounts(counts, source, Paths.get(options.lineCounts));
+        }
+        if (null != allocations) {
+            allocations.print(System.err, source, options.allocations);
+        }
+
+        if (options.dumpStats) {
+            statistics.dump(System.err);
+        }
+        if (null != phases) {
+            printStatistics(phases, options.stats, System.err);
+        }
+    }
+
+    static void run(CompiledModule compiledModule, boolean printModule, OutputSink out, PhaseStatistics phases,
+                    InvocationListener listener) {
+        run(compiledModule, printModule, out, phases, listener, null, null);
+    }
+
+    static void run(CompiledModule compiledModule, boolean printModule, OutputSink out, PhaseStatistics phases,
+                    InvocationListener listener, ExecutionCounts counts, AllocationProfile allocations) {
+        if (printModule) {
+            out.print(compiledModule.getModule().toString());
+            out.newLine();
+        }
+        InvocationListener invocationListener = null == listener ? InvocationListener.NONE : listener;
+        Runnable run;
+        if (null != counts) {
+            run = () -> compiledModule.run(out, counts);
+        } else if (null != allocations) {
+            run = () -> compiledModule.run(out, allocations);
+        } else {
+            run = () -> compiledModule.run(out, invocationListener);
+        }
+        if (null == phases) {
+            run.run();
+        } else {
+            phases.measureFrames("interpret", run);
+        }
+    }
+
+    static void writeLineCounts(ExecutionCounts counts, String source, Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            counts.print(out, source);
+        }
+    }
+
+    static void writeProfile(FunctionProfiler profiler, Path file, PrintStream out) throws IOException {
+        profiler.printReport(out, 20);
+        try (PrintStream collapsed = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            profiler.writeCollapsed(collapsed);
+        }
+    }
+
+    static void printStatistics(PhaseStatistics phases, String format, PrintStream out) {
+        if ("json".equals(format)) {
+            out.println(phases.toJson());
+        } else {
+            phases.print(out);
+        }
+    }
+
+    private static int batch(Options options) throws IOException {
+        BatchCompiler.Report report = new BatchCompiler(options.engine().build(), options.check, options.jobs)
+                .compile(BatchCompiler.expand(options.files));
+        report.printDiagnostics(System.out);
+        report.printTimings(System.out, 20);
+        if (options.dumpStats) {
+            report.getStatistics().dump(System.err);
+        }
+        return report.getFailures().isEmpty() ? 0 : 1;
+    }
+
+    static void snapshot(CompiledModule compiledModule, Path file, boolean printModule, OutputSink out,
+                         PhaseStatistics phases) throws IOException {
+        if (printModule) {
+            out.print(compiledModule.getModule().toString());
+            out.newLine();
+        }
+        Files.write(file, null == phases
+                ? compiledModule.snapshot(out)
+                : phases.measure("setup", () -> compiledModule.snapshot(out)));
+    }
+
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The command line, shared with {@link SlangD} which runs the same options in a resident JVM
+     */
+    static final class Options {
+        String fileName;
+        List<String> files = new ArrayList<>();
+        boolean inline = true;
+        int inlineBudget = Inliner.DEFAULT_SIZE_BUDGET;
+        boolean tailCalls = true;
+        boolean paranoid = false;
+        boolean asyncOutput = false;
+        String cacheDir = null;
+        boolean dumpStats = false;
+        String stats;
+        boolean printModule;
+        String profile;
+        long sample;
+        String lineCounts;
+        int allocations;
+        String snapshot;
+        String restore;
+        boolean batch;
+        boolean check;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        String error;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if ("--no-inline".equals(arg)) {
+                    options.inline = false;
+                } else if (arg.startsWith("--inline-budget=")) {
+                    options.inlineBudget = Integer.parseInt(arg.substring("--inline-budget=".length()));
+                } else if ("--no-tail-calls".equals(arg)) {
+                    options.tailCalls = false;
+                } else if ("--paranoid".equals(arg)) {
+                    options.paranoid = true;
+                } else if ("--async-output".equals(arg)) {
+                    options.asyncOutput = true;
+                } else if (arg.startsWith("--cache-dir=")) {
+                    options.cacheDir = arg.substring("--cache-dir=".length());
+                } else if ("--dump-stats".equals(arg)) {
+                    options.dumpStats = true;
+                } else if ("--stats".equals(arg) || "--stats=text".equals(arg)) {
+                    options.stats = "text";
+                } else if ("--stats=json".equals(arg)) {
+                    options.stats = "json";
+                } else if ("--print-module".equals(arg)) {
+                    options.printModule = true;
+                } else if (arg.startsWith("--profile=")) {
+                    options.profile = arg.substring("--profile=".length());
+                } else if ("--sample".equals(arg)) {
+                    options.sample = 1000;
+                } else if (arg.startsWith("--sample=")) {
+                    options.sample = Long.parseLong(arg.substring("--sample=".length()));
+                } else if (arg.startsWith("--line-counts=")) {
+                    options.lineCounts = arg.substring("--line-counts=".length());
+                } else if ("--allocations".equals(arg)) {
+                    options.allocations = 20;
+                } else if (arg.startsWith("--allocations=")) {
+                    options.allocations = Integer.parseInt(arg.substring("--allocations=".length()));
+                } else if (arg.startsWith("--snapshot=")) {
+                    options.snapshot = arg.substring("--snapshot=".length());
+                } else if (arg.startsWith("--restore=")) {
+                    options.restore = arg.substring("--restore=".length());
+                } else if ("--batch".equals(arg)) {
+                    options.batch = true;
+                } else if ("--check".equals(arg)) {
+                    options.check = true;
+                } else if (arg.startsWith("--jobs=")) {
+                    options.jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+                } else if (arg.startsWith("--")) {
+                    options.error = "unknown option " + arg;
+                    return options;
+                } else {
+                    options.fileName = arg;
+                    options.files.add(arg);
+                }
+            }
+
+            if (null != options.snapshot && null != options.restore) {
+                options.error = "--snapshot and --restore can't be combined";
+            } else if ((null != options.profile || 0 != options.sample || null != options.lineCounts
+                    || 0 != options.allocations) && (null != options.snapshot || options.batch)) {
+                options.error = "--profile, --sample, --line-counts and --allocations can't be combined with "
+                        + "--snapshot or --batch, they profile a run";
+            } else if ((null != options.profile ? 1 : 0) + (0 != options.sample ? 1 : 0)
+                    + (null != options.lineCounts ? 1 : 0) + (0 != options.allocations ? 1 : 0) > 1) {
+                options.error = "--profile, --sample, --line-counts and --allocations can't be combined";
+            } else if (null != options.stats && options.batch) {
+                options.error = "--stats can't be combined with --batch, it prints the time per file";
+            } else if (null == options.fileName && null == options.restore) {
+                options.error = "file name required";
+            }
+            return options;
+        }
+
+        SlangEngine.Builder engine() {
+            return SlangEngine.builder()
+                    .withInlining(inline)
+                    .withInlineBudget(inlineBudget)
+                    .withTailCalls(tailCalls)
+                    .withParanoid(paranoid)
+                    .withCacheDirectory(null == cacheDir ? null : Paths.get(cacheDir));
+        }
+
+        /**
+         * The options which change the compiled module or how it runs
+         */
+        String engineKey() {
+            return "inline=" + inline + " inlineBudget=" + inlineBudget + " tailCalls=" + tailCalls
+                    + " paranoid=" + paranoid + " cacheDir=" + cacheDir;
+        }
     }
 }
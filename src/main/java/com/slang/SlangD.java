@@ -0,0 +1,291 @@
+package com.slang;
+
+import com.slang.metrics.MetricsEndpoint;
+import com.slang.metrics.SlangMetrics;
+import com.slang.output.ChannelSink;
+import com.slang.output.OutputSink;
+import com.slang.profiler.AllocationProfile;
+import com.slang.profiler.ExecutionCounts;
+import com.slang.profiler.FunctionProfiler;
+import com.slang.profiler.SamplingProfiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compile server, keeps a warmed up JVM with its compiled modules resident so {@link SlangDClient} runs skip the
+ * JVM startup, class loading and, for unchanged source, the compilation. Every request is a SlangC command line
+ * run with the client's working directory, stdin and stdout.
+ *
+ * Usage: SlangD [--port=n] [--threads=n] [--max-modules=n] [--metrics-port=n] [--token-file=path]
+ *
+ * The runs of all clients count into one {@link SlangMetrics}, registered over JMX as com.slang:type=Metrics,
+ * name=slangd and with --metrics-port also served for Prometheus at http://localhost:n/metrics.
+ *
+ * The daemon only listens on the loopback interface. A request reads and writes files as the daemon's user: the
+ * source, and --profile, --snapshot, --line-counts and --cache-dir, all relative to a working directory the client
+ * sends. So a request is only run when it carries the token the daemon writes at start to a file only its user can
+ * read, by default ~/.slangd/port.token, which keeps the other users of the machine out.
+ */
+public class SlangD implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_MODULES = 256;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers;
+    private final Map<String, SlangEngine> engines = new ConcurrentHashMap<>();
+    private final Map<String, CompiledModule> modules;
+    private final SlangMetrics metrics = new SlangMetrics();
+    private final Path tokenFile;
+    private final byte[] token;
+
+    public SlangD(int port, int threads, int maxModules) throws IOException {
+        this(port, threads, maxModules, null);
+    }
+
+    /**
+     * With tokenFile null the token is written to the default file for the port
+     */
+    public SlangD(int port, int threads, int maxModules, Path tokenFile) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.tokenFile = null == tokenFile ? DaemonProtocol.tokenFile(getPort()) : tokenFile;
+        token = DaemonProtocol.createToken(this.tokenFile).getBytes(StandardCharsets.UTF_8);
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "slangd-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        modules = Collections.synchronizedMap(new LinkedHashMap<String, CompiledModule>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledModule> eldest) {
+                return size() > maxModules;
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DaemonProtocol.DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxModules = DEFAULT_MAX_MODULES;
+        int metricsPort = -1;
+        Path tokenFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--max-modules=")) {
+                maxModules = Integer.parseInt(arg.substring("--max-modules=".length()));
+            } else if (arg.startsWith("--metrics-port=")) {
+                metricsPort = Integer.parseInt(arg.substring("--metrics-port=".length()));
+            } else if (arg.startsWith("--token-file=")) {
+                tokenFile = Paths.get(arg.substring("--token-file=".length()));
+            } else {
+                System.out.println("unknown option " + arg);
+                System.exit(0);
+            }
+        }
+
+        SlangD daemon = new SlangD(port, threads, maxModules, tokenFile);
+        daemon.getMetrics().registerMBean("slangd");
+        if (metricsPort >= 0) {
+            MetricsEndpoint endpoint = new MetricsEndpoint(daemon.getMetrics(), metricsPort);
+            System.err.println("slangd metrics on http://localhost:" + endpoint.getPort() + "/metrics");
+        }
+        System.err.println("slangd listening on " + daemon.getPort());
+        daemon.serve();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public SlangMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Path getTokenFile() {
+        return tokenFile;
+    }
+
+    /**
+     * Accepts clients until the daemon is closed
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw new RuntimeException("Unable to accept client", e);
+            }
+            workers.execute(() -> handle(socket));
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket client = socket) {
+            client.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()));
+            if (in.readInt() != DaemonProtocol.MAGIC) {
+                return;
+            }
+            if (!MessageDigest.isEqual(token, in.readUTF().getBytes(StandardCharsets.UTF_8))) {
+                new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDERR), true)
+                        .println("slangd: wrong token, see " + tokenFile);
+                synchronized (out) {
+                    out.writeByte(DaemonProtocol.EXIT);
+                    out.writeInt(4);
+                    out.writeInt(2);
+                    out.flush();
+                }
+                return;
+            }
+            String workingDirectory = in.readUTF();
+            String[] args = new String[in.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readUTF();
+            }
+            byte[] stdin = null;
+            int stdinLength = in.readInt();
+            if (stdinLength >= 0) {
+                stdin = new byte[stdinLength];
+                in.readFully(stdin);
+            }
+
+            OutputSink stdout = new ChannelSink(Channels.newChannel(
+                    new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDOUT)));
+            PrintStream stderr = new PrintStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDERR));
+            int exitCode;
+            try {
+                exitCode = execute(Paths.get(workingDirectory), args, stdin, stdout, stderr);
+            } catch (IOException | RuntimeException | StackOverflowError e) {
+                //what the JVM would report for an uncaught exception in SlangC
+                stderr.print("Exception in thread \"main\" ");
+                e.printStackTrace(stderr);
+                exitCode = 1;
+            }
+            stdout.flush();
+            stderr.flush();
+            synchronized (out) {
+                out.writeByte(DaemonProtocol.EXIT);
+                out.writeInt(4);
+                out.writeInt(exitCode);
+                out.flush();
+            }
+        } catch (IOException e) {
+            //the client went away, nothing to report to
+        }
+    }
+
+    int execute(Path workingDirectory, String[] args, byte[] stdin, OutputSink stdout, PrintStream stderr)
+            throws IOException {
+        SlangC.Options options = SlangC.Options.parse(args);
+        if (null != options.error) {
+            stdout.print(options.error);
+            stdout.newLine();
+            return 0;
+        }
+        if (options.batch) {
+            //the paths of a batch are relative to this JVM, run it with SlangC
+            stderr.println("--batch isn't supported by slangd");
+            return 2;
+        }
+        if (null != options.cacheDir) {
+            options.cacheDir = workingDirectory.resolve(options.cacheDir).toString();
+        }
+
+        CompileStatistics statistics = new CompileStatistics();
+        PhaseStatistics phases = null == options.stats ? null : new PhaseStatistics();
+        CompiledModule compiledModule;
+        String source = null;
+        if (null != options.restore) {
+            compiledModule = options.engine().withMetrics(metrics).build().restore(SlangC.map(workingDirectory.resolve(options.restore)));
+        } else {
+            source = "-".equals(options.fileName)
+                    ? new String(null == stdin ? new byte[0] : stdin)
+                    : new String(Files.readAllBytes(workingDirectory.resolve(options.fileName)));
+            compiledModule = compile(options, source, statistics, phases);
+        }
+
+        if (null != options.snapshot) {
+            SlangC.snapshot(compiledModule, workingDirectory.resolve(options.snapshot), options.printModule, stdout,
+                    phases);
+        } else {
+            FunctionProfiler profiler = null == options.profile ? null : new FunctionProfiler();
+            SamplingProfiler sampler = 0 == options.sample ? null : new SamplingProfiler(options.sample);
+            ExecutionCounts counts = null == options.lineCounts ? null : compiledModule.newExecutionCounts();
+            AllocationProfile allocations = 0 == options.allocations ? null : compiledModule.newAllocationProfile();
+            SlangC.run(compiledModule, options.printModule, stdout, phases, null != profiler ? profiler : sampler,
+                    counts, allocations);
+            if (null != profiler) {
+                SlangC.writeProfile(profiler, workingDirectory.resolve(options.profile), stderr);
+            }
+            if (null != sampler) {
+                sampler.close();
+                sampler.report().print(stderr, 20);
+            }
+            if (null != counts) {
+                SlangC.writeLineCounts(counts, source, workingDirectory.resolve(options.lineCounts));
+            }
+            if (null != allocations) {
+                allocations.print(stderr, source, options.allocations);
+            }
+        }
+
+        if (options.dumpStats) {
+            statistics.dump(stderr);
+        }
+        if (null != phases) {
+            SlangC.printStatistics(phases, options.stats, stderr);
+        }
+        return 0;
+    }
+
+    private CompiledModule compile(SlangC.Options options, String source, CompileStatistics statistics,
+                                   PhaseStatistics phases) {
+        String engineKey = options.engineKey();
+        String moduleKey = SourceHash.sha256(engineKey + "\n" + source);
+        CompiledModule compiledModule = modules.get(moduleKey);
+        if (null != compiledModule) {
+            statistics.increment("daemon.hits");
+            return compiledModule;
+        }
+        statistics.increment("daemon.misses");
+        compiledModule = engines.computeIfAbsent(engineKey, key -> options.engine().withMetrics(metrics).build()).compile(source, statistics, phases);
+        modules.put(moduleKey, compiledModule);
+        return compiledModule;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        workers.shutdown();
+        Files.deleteIfExists(tokenFile);
+    }
+}
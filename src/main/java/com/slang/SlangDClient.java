@@ -0,0 +1,102 @@
+package com.slang;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Thin client of {@link SlangD}, takes the same arguments as {@link SlangC} and forwards them together with the
+ * working directory and, for a file name of -, stdin. The daemon's output is copied to stdout and stderr and its
+ * exit code becomes ours. When no daemon is running the program is compiled and run in this JVM instead.
+ *
+ * The port is taken from the slangd.port system property and the daemon's token from the file in the slangd.token
+ * property, by default ~/.slangd/port.token.
+ */
+public class SlangDClient {
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.getInteger("slangd.port", DaemonProtocol.DEFAULT_PORT);
+        Path tokenFile = Paths.get(System.getProperty("slangd.token", DaemonProtocol.tokenFile(port).toString()));
+        if (!Files.isReadable(tokenFile)) {
+            //no daemon of ours
+            SlangC.main(args);
+            return;
+        }
+        String token = DaemonProtocol.readToken(tokenFile);
+        Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        } catch (ConnectException e) {
+            SlangC.main(args);
+            return;
+        }
+
+        int exitCode;
+        try (Socket daemon = socket) {
+            daemon.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(daemon.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(daemon.getInputStream()));
+            sendRequest(out, token, System.getProperty("user.dir"), args, System.in);
+            exitCode = copyResponse(in, System.out, System.err);
+        }
+        System.exit(exitCode);
+    }
+
+    static void sendRequest(DataOutputStream out, String token, String workingDirectory, String[] args,
+                            InputStream stdin) throws IOException {
+        out.writeInt(DaemonProtocol.MAGIC);
+        out.writeUTF(token);
+        out.writeUTF(workingDirectory);
+        out.writeInt(args.length);
+        for (String arg : args) {
+            out.writeUTF(arg);
+        }
+        if ("-".equals(SlangC.Options.parse(args).fileName)) {
+            byte[] bytes = SlangC.readFully(stdin);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            out.writeInt(-1);
+        }
+        out.flush();
+    }
+
+    static int copyResponse(DataInputStream in, OutputStream stdout, OutputStream stderr) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (true) {
+            byte type = in.readByte();
+            int length = in.readInt();
+            if (DaemonProtocol.EXIT == type) {
+                stdout.flush();
+                stderr.flush();
+                return in.readInt();
+            }
+            OutputStream target = DaemonProtocol.STDERR == type ? stderr : stdout;
+            copy(in, target, length, buffer);
+            if (DaemonProtocol.STDERR == type) {
+                target.flush();
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out, int length, byte[] buffer) throws IOException {
+        while (length > 0) {
+            int read = in.read(buffer, 0, Math.min(length, buffer.length));
+            if (read < 0) {
+                throw new IOException("slangd closed the connection");
+            }
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.slang;
+
+import com.slang.ast.Module;
+import com.slang.ast.Token;
+import com.slang.cache.ModuleCache;
+import com.slang.events.SlangEvents;
+import com.slang.lexer.Lexer;
+import com.slang.metrics.SlangMetrics;
+import com.slang.optimizer.Inliner;
+import com.slang.optimizer.TailCallOptimizer;
+import com.slang.output.OutputSink;
+import com.slang.output.SystemOutSink;
+import com.slang.parser.Parser;
+import com.slang.profiler.NodeNumbering;
+import com.slang.snapshot.SnapshotReader;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Entry point for applications embedding Slang. Source is compiled once, parsed, analysed and optimized, into a
+ * {@link CompiledModule} which can then be run or have its functions invoked any number of times.
+ *
+ * An engine only holds its configuration, so one engine can compile from several threads. With a cache directory
+ * compiled modules are also kept on disk, keyed by the source, the compiler version and the options, so
+ * unchanged source skips the front end entirely.
+ */
+public class SlangEngine {
+
+    public static final String VERSION = "0.1";
+
+    private final boolean inline;
+    private final int inlineBudget;
+    private final boolean tailCalls;
+    private final boolean paranoid;
+    private final OutputSink out;
+    private final ModuleCache cache;
+    private final SlangMetrics metrics;
+
+    private SlangEngine(Builder builder) {
+        inline = builder.inline;
+        inlineBudget = builder.inlineBudget;
+        tailCalls = builder.tailCalls;
+        paranoid = builder.paranoid;
+        out = builder.out;
+        cache = null == builder.cacheDirectory ? null : new ModuleCache(builder.cacheDirectory);
+        metrics = builder.metrics;
+    }
+
+    public CompiledModule compile(String source) {
+        return compile(source, new CompileStatistics());
+    }
+
+    public CompiledModule compile(String source, CompileStatistics statistics) {
+        return compile(source, statistics, null);
+    }
+
+    /**
+     * Also measures every phase into phases, when not null. The source is then lexed once more on its own to time
+     * the lexer and count the tokens, the parse phase includes the lexing done by the parser.
+     */
+    public CompiledModule compile(String source, CompileStatistics statistics, PhaseStatistics phases) {
+        String cacheKey = null == cache ? null : cacheKey(source);
+        if (null != cache) {
+            Module module = null == phases ? cache.load(cacheKey) : phases.measure("cache", () -> cache.load(cacheKey));
+            if (null != module) {
+                statistics.increment("cache.hits");
+                NodeNumbering.number(module);
+                return new CompiledModule(module, paranoid, out, metrics);
+            }
+            statistics.increment("cache.misses");
+        }
+
+        Module module;
+        if (null == phases) {
+            //the parser lexes as it goes, the lexing event needs a pass on its own
+            Object lexing = SlangEvents.INSTANCE.beginLexing();
+            if (null != lexing) {
+                SlangEvents.INSTANCE.endLexing(lexing, countTokens(source));
+            }
+            module = parse(source);
+            analyse(module);
+            optimize(module, statistics);
+        } else {
+            phases.count("tokens", phases.measure("lex", () -> lex(source)));
+            module = phases.measure("parse", () -> parse(source));
+            phases.count("nodes", PhaseStatistics.countNodes(module));
+            phases.measure("analyse", () -> analyse(module));
+            phases.measure("optimize", () -> optimize(module, statistics));
+        }
+        if (null != cache) {
+            try {
+                cache.store(cacheKey, module);
+            } catch (RuntimeException e) {
+                //The cache only saves work, the module compiled anyway
+                statistics.increment("cache.store-failures");
+            }
+        }
+        NodeNumbering.number(module);
+        return new CompiledModule(module, paranoid, out, metrics);
+    }
+
+    private void optimize(Module module, CompileStatistics statistics) {
+        if (inline) {
+            new Inliner(inlineBudget, statistics).inline(module);
+        }
+        if (tailCalls) {
+            new TailCallOptimizer(statistics).optimize(module);
+        }
+    }
+
+    private static long lex(String source) {
+        Object event = SlangEvents.INSTANCE.beginLexing();
+        long tokens = countTokens(source);
+        SlangEvents.INSTANCE.endLexing(event, tokens);
+        return tokens;
+    }
+
+    private static Module parse(String source) {
+        Object event = SlangEvents.INSTANCE.beginParsing();
+        Module module = new Parser(new Lexer(source)).parseModule();
+        SlangEvents.INSTANCE.endParsing(event, module.getFunctionsMap().size());
+        return module;
+    }
+
+    private static void analyse(Module module) {
+        Object event = SlangEvents.INSTANCE.beginAnalysis();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        SlangEvents.INSTANCE.endAnalysis(event, module.getFunctionsMap().size());
+    }
+
+    private static long countTokens(String source) {
+        Lexer lexer = new Lexer(source);
+        long tokens = 0;
+        lexer.eat();
+        while (Token.UNKNOWN != lexer.getCurrentToken()) {
+            tokens++;
+            lexer.eat();
+        }
+        return tokens;
+    }
+
+    /**
+     * A module from {@link CompiledModule#snapshot(OutputSink)}, which runs on from the state after its setup
+     */
+    public CompiledModule restore(ByteBuffer snapshot) {
+        Module module = SnapshotReader.readModule(snapshot);
+        NodeNumbering.number(module);
+        return new CompiledModule(module, paranoid, out, metrics, snapshot.slice());
+    }
+
+    private String cacheKey(String source) {
+        //everything which changes the compiled module
+        return SourceHash.sha256("slang " + VERSION + " inline=" + inline + " inlineBudget=" + inlineBudget
+                + " tailCalls=" + tailCalls + "\n" + source);
+    }
+
+    public static SlangEngine create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private boolean inline = true;
+        private int inlineBudget = Inliner.DEFAULT_SIZE_BUDGET;
+        private boolean tailCalls = true;
+        private boolean paranoid;
+        private OutputSink out = new SystemOutSink();
+        private Path cacheDirectory;
+        private SlangMetrics metrics;
+
+        private Builder() {
+        }
+
+        public Builder withInlining(boolean inline) {
+            this.inline = inline;
+            return this;
+        }
+
+        public Builder withInlineBudget(int inlineBudget) {
+            this.inlineBudget = inlineBudget;
+            return this;
+        }
+
+        public Builder withTailCalls(boolean tailCalls) {
+            this.tailCalls = tailCalls;
+            return this;
+        }
+
+        public Builder withParanoid(boolean paranoid) {
+            this.paranoid = paranoid;
+            return this;
+        }
+
+        /**
+         * Default sink of the compiled modules, shared by every invocation, so it has to be thread safe when a
+         * module is used from several threads. The default prints to System.out.
+         */
+        public Builder withOutput(OutputSink out) {
+            this.out = out;
+            return this;
+        }
+
+        /**
+         * Keeps the compiled modules in the given directory, off by default
+         */
+        public Builder withCacheDirectory(Path cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        /**
+         * Counts the executions of the compiled modules into metrics, off by default
+         */
+        public Builder withMetrics(SlangMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public SlangEngine build() {
+            return new SlangEngine(this);
+        }
+    }
+}
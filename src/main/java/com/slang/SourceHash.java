@@ -0,0 +1,33 @@
+package com.slang;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 of source text, used to key caches of compiled modules
+ */
+public final class SourceHash {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private SourceHash() {
+    }
+
+    public static String sha256(String source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //every JVM has SHA-256
+            throw new RuntimeException(e);
+        }
+        byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
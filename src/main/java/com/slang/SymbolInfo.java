@@ -2,6 +2,7 @@ package com.slang;
 
 import com.slang.ast.Function;
 import com.slang.ast.SObject;
+import com.slang.visitor.AllocationTracker;
 
 /**
  * Created by sarath on 19/3/17.
@@ -20,6 +21,10 @@ public class SymbolInfo {
 
     private Type dataType;
 
+    {
+        AllocationTracker.symbolInfoCreated();
+    }
+
     public SymbolInfo(String stringValue) {
         this.stringValue = stringValue;
         dataType = Type.STRING;
@@ -164,7 +169,7 @@ public class SymbolInfo {
     }
 
     public void setFunctionValue(Function functionValue) {
-        if (null == dataType || functionValue.getType().getTypeName().equals(dataType.getTypeName())) {
+        if (null == dataType || functionValue.getType() == dataType) {
             this.functionValue = functionValue;
             dataType = functionValue.getType();
         } else {
@@ -173,7 +178,7 @@ public class SymbolInfo {
     }
 
     public void setSObjectValue(SObject sObjectValue) {
-        if (null == dataType || sObjectValue.getType().getTypeName().equals(dataType.getTypeName())) {
+        if (null == dataType || sObjectValue.getType() == dataType) {
             this.sObjectValue = sObjectValue;
             dataType = sObjectValue.getType();
         } else {
@@ -1,40 +1,44 @@
 package com.slang;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 
 /**
  * Created by sarath on 19/3/17.
+ *
+ * Types are canonical, there is exactly one instance per distinct type (see TypeTable), so they are compared
+ * by reference. Each type also carries a small id, dense from 0, usable as an index into dispatch tables.
  */
 public class Type{
 
-    public static final Type STRING = new Type("STRING", TypeCategory.PRIMITIVE);
-    public static final Type FLOAT = new Type("FLOAT", TypeCategory.PRIMITIVE);
-    public static final Type INTEGER = new Type("INTEGER", TypeCategory.PRIMITIVE);
-    public static final Type DOUBLE = new Type("DOUBLE", TypeCategory.PRIMITIVE);
-    public static final Type BOOL = new Type("BOOL", TypeCategory.PRIMITIVE);
-    public static final Type LONG = new Type("LONG", TypeCategory.PRIMITIVE);
-    public static final Type VOID = new Type("VOID", TypeCategory.PRIMITIVE);
+    public static final Type STRING = new Type(0, "STRING", TypeCategory.PRIMITIVE, null, null);
+    public static final Type FLOAT = new Type(1, "FLOAT", TypeCategory.PRIMITIVE, null, null);
+    public static final Type INTEGER = new Type(2, "INTEGER", TypeCategory.PRIMITIVE, null, null);
+    public static final Type DOUBLE = new Type(3, "DOUBLE", TypeCategory.PRIMITIVE, null, null);
+    public static final Type BOOL = new Type(4, "BOOL", TypeCategory.PRIMITIVE, null, null);
+    public static final Type LONG = new Type(5, "LONG", TypeCategory.PRIMITIVE, null, null);
+    public static final Type VOID = new Type(6, "VOID", TypeCategory.PRIMITIVE, null, null);
 
+    private final int id;
     private final String typeName;
     private final TypeCategory typeCategory;
 
     //function type - formal params and return type
-    private List<Type> fnFormalParamTypes;
-    private Type fnReturnType;
+    private final List<Type> fnFormalParamTypes;
+    private final Type fnReturnType;
 
-    public Type(String typeName, TypeCategory typeCategory) {
-        this.typeName = typeName;
-        this.typeCategory = typeCategory;
-    }
-
-    public Type(String typeName, TypeCategory typeCategory, List<Type> fnFormalParamTypes, Type fnReturnType) {
+    //Only TypeTable creates types other than the primitives
+    Type(int id, String typeName, TypeCategory typeCategory, List<Type> fnFormalParamTypes, Type fnReturnType) {
+        this.id = id;
         this.typeName = typeName;
         this.typeCategory = typeCategory;
         this.fnFormalParamTypes = fnFormalParamTypes;
         this.fnReturnType = fnReturnType;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public String getTypeName() {
         return typeName;
     }
@@ -54,28 +58,16 @@ public class Type{
     @Override
     public String toString() {
         return "Type{" +
-                "typeName='" + typeName + '\'' +
+                "id=" + id +
+                ", typeName='" + typeName + '\'' +
                 ", typeCategory=" + typeCategory +
                 ", fnFormalParamTypes=" + fnFormalParamTypes +
                 ", fnReturnType=" + fnReturnType +
                 '}';
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-
-        Type type = (Type) o;
-
-        if (typeName != null ? !typeName.equals(type.typeName) : type.typeName != null) return false;
-        return typeCategory == type.typeCategory;
-    }
-
     @Override
     public int hashCode() {
-        int result = typeName != null ? typeName.hashCode() : 0;
-        result = 31 * result + (typeCategory != null ? typeCategory.hashCode() : 0);
-        return result;
+        return id;
     }
 }
@@ -0,0 +1,80 @@
+package com.slang;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Interns types so that structurally identical types are the same instance, e.g. every
+ * (INTEGER,INTEGER)->INTEGER in every module compiled by this JVM. Lookups are lock free, new types are
+ * registered under a lock and get the next id.
+ */
+public final class TypeTable {
+
+    private static final List<Type> typesById = new CopyOnWriteArrayList<>();
+    private static final Map<String, Type> typesByName = new ConcurrentHashMap<>();
+
+    static {
+        for (Type primitive : new Type[]{Type.STRING, Type.FLOAT, Type.INTEGER, Type.DOUBLE, Type.BOOL, Type.LONG, Type.VOID}) {
+            typesById.add(primitive);
+            typesByName.put(primitive.getTypeName(), primitive);
+        }
+    }
+
+    private TypeTable() {
+    }
+
+    /**
+     * The canonical function type for the given formal param types and return type.
+     */
+    public static Type functionType(List<Type> fnFormalParamTypes, Type fnReturnType) {
+        String typeName = functionTypeName(fnFormalParamTypes, fnReturnType);
+        Type type = typesByName.get(typeName);
+        if (null != type) {
+            return type;
+        }
+
+        synchronized (TypeTable.class) {
+            type = typesByName.get(typeName);
+            if (null == type) {
+                type = new Type(typesById.size(), typeName, TypeCategory.FUNCTION,
+                        Collections.unmodifiableList(new ArrayList<>(fnFormalParamTypes)), fnReturnType);
+                typesById.add(type);
+                typesByName.put(typeName, type);
+            }
+            return type;
+        }
+    }
+
+    public static Type getType(int id) {
+        return typesById.get(id);
+    }
+
+    /**
+     * Looks up a type by its name, e.g. INTEGER or (INTEGER,INTEGER)->INTEGER, null when not interned yet
+     */
+    public static Type getType(String typeName) {
+        return typesByName.get(typeName);
+    }
+
+    public static int size() {
+        return typesById.size();
+    }
+
+    private static String functionTypeName(List<Type> fnFormalParamTypes, Type fnReturnType) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("(");
+        for (int i = 0; i < fnFormalParamTypes.size(); i++) {
+            if (i != 0) {
+                sb.append(",");
+            }
+            sb.append(fnFormalParamTypes.get(i).getTypeName());
+        }
+        sb.append(")->");
+        sb.append(fnReturnType.getTypeName());
+        return sb.toString();
+    }
+}
@@ -1,5 +1,6 @@
 package com.slang.ast;
 
+import com.slang.Type;
 import com.slang.visitor.IVisitable;
 import com.slang.visitor.IVisitor;
 
@@ -8,4 +9,24 @@ import com.slang.visitor.IVisitor;
  */
 public abstract class Expression implements IVisitable{
 
+    //Type proved by the SemanticAnalyzer, null when the expression hasn't been analysed
+    private Type staticType;
+    //Index of the expression's counter in ExecutionCounts, 0 when not numbered
+    private int id;
+
+    public Type getStaticType() {
+        return staticType;
+    }
+
+    public void setStaticType(Type staticType) {
+        this.staticType = staticType;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
 }
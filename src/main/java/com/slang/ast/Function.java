@@ -6,37 +6,52 @@ import com.slang.visitor.Context;
 import com.slang.visitor.IVisitable;
 import com.slang.visitor.IVisitor;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Created by Sarath on 01/04/2017.
+ *
+ * A function is never changed while a program runs, so one program can be run from several threads. A closure
+ * is a copy of its lambda's function holding the captured variables of one evaluation, see
+ * {@link #withCapturedVariables(Map)}.
  */
-public class Function implements IVisitable, Cloneable {
+public class Function implements IVisitable {
 
-    private String name;
-    private Type returnType;
-    private LinkedHashMap<String, Type> formalArguments;
-    private LinkedHashMap<String, SymbolInfo> capturedVariables;
-    private List<Statement> body;
-    private Type type;
+    private final String name;
+    private final Type returnType;
+    private final Map<String, Type> formalArguments;
+    private final Map<String, SymbolInfo> capturedVariables;
+    private final List<Statement> body;
+    private final Type type;
+    //Set by the SemanticAnalyzer before the program runs
+    private boolean typeChecked;
 
     public Function(String name, Type returnType, LinkedHashMap<String, Type> formalArguments, List<Statement> body) {
-        this.name = name;
-        this.returnType = returnType;
-        this.formalArguments = formalArguments;
-        this.body = body;
+        this(name, returnType, formalArguments, body, null);
     }
 
     public Function(String name, Type returnType, LinkedHashMap<String, Type> formalArguments, List<Statement> body, Type type) {
         this.name = name;
         this.returnType = returnType;
-        this.formalArguments = formalArguments;
+        this.formalArguments = Collections.unmodifiableMap(formalArguments);
+        this.capturedVariables = null;
         this.body = body;
         this.type = type;
     }
 
+    private Function(Function function, Map<String, SymbolInfo> capturedVariables) {
+        this.name = function.name;
+        this.returnType = function.returnType;
+        this.formalArguments = function.formalArguments;
+        this.capturedVariables = capturedVariables;
+        this.body = function.body;
+        this.type = function.type;
+        this.typeChecked = function.typeChecked;
+    }
+
     public String getName() {
         return name;
     }
@@ -53,18 +68,29 @@ public class Function implements IVisitable, Cloneable {
         return body;
     }
 
-    public LinkedHashMap<String, SymbolInfo> getCapturedVariables() {
+    public Map<String, SymbolInfo> getCapturedVariables() {
         return capturedVariables;
     }
 
-    public void setCapturedVariables(LinkedHashMap<String, SymbolInfo> capturedVariables) {
-        this.capturedVariables = capturedVariables;
+    /**
+     * A closure of this function over a copy of the given variables, sharing everything else with this function
+     */
+    public Function withCapturedVariables(Map<String, SymbolInfo> capturedVariables) {
+        return new Function(this, Collections.unmodifiableMap(new LinkedHashMap<>(capturedVariables)));
     }
 
     public Type getType() {
         return type;
     }
 
+    public boolean isTypeChecked() {
+        return typeChecked;
+    }
+
+    public void setTypeChecked(boolean typeChecked) {
+        this.typeChecked = typeChecked;
+    }
+
     @Override
     public SymbolInfo accept(IVisitor visitor, Context context) {
         return visitor.visit(this, context);
@@ -81,13 +107,4 @@ public class Function implements IVisitable, Cloneable {
                 ", getType=" + type +
                 '}';
     }
-
-    public Function clone() {
-        try {
-            return (Function) super.clone();
-        } catch (CloneNotSupportedException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
 }
@@ -14,6 +14,12 @@ public class FunctionInvokeExpression extends Expression {
     private String functionName;
     private List<Expression> actualFunctionArguments;
 
+    //Top level function the call is bound to by the SemanticAnalyzer, null for calls through lambda variables
+    private Function target;
+    //Scopes between a call through a lambda variable and the scope of the variable, found by the SemanticAnalyzer,
+    //-1 when not known
+    private int lambdaDepth = -1;
+
     public FunctionInvokeExpression(String functionName, List<Expression> actualFunctionArguments) {
         this.functionName = functionName;
         this.actualFunctionArguments = actualFunctionArguments;
@@ -27,6 +33,22 @@ public class FunctionInvokeExpression extends Expression {
         return actualFunctionArguments;
     }
 
+    public Function getTarget() {
+        return target;
+    }
+
+    public void setTarget(Function target) {
+        this.target = target;
+    }
+
+    public int getLambdaDepth() {
+        return lambdaDepth;
+    }
+
+    public void setLambdaDepth(int lambdaDepth) {
+        this.lambdaDepth = lambdaDepth;
+    }
+
     @Override
     public SymbolInfo accept(IVisitor visitor, Context context) {
         return visitor.visit(this, context);
@@ -0,0 +1,44 @@
+package com.slang.ast;
+
+import com.slang.SymbolInfo;
+import com.slang.visitor.Context;
+import com.slang.visitor.IVisitor;
+
+import java.util.List;
+
+/**
+ * A call site whose target has been resolved at compile time and whose body has been substituted in place
+ * of the call. The actual arguments are bound to the formal parameters of the inlined function in a scope
+ * nested inside the caller, so no function lookup or parameter checks are needed when it is evaluated.
+ */
+public class InlinedFunctionInvokeExpression extends FunctionInvokeExpression {
+
+    private final Function function;
+
+    public InlinedFunctionInvokeExpression(FunctionInvokeExpression functionInvokeExpression, Function function) {
+        super(functionInvokeExpression.getFunctionName(), functionInvokeExpression.getActualFunctionArguments());
+        setStaticType(functionInvokeExpression.getStaticType());
+        this.function = function;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public List<Statement> getBody() {
+        return function.getBody();
+    }
+
+    @Override
+    public SymbolInfo accept(IVisitor visitor, Context context) {
+        return visitor.visit(this, context);
+    }
+
+    @Override
+    public String toString() {
+        return "InlinedFunctionInvokeExpression{" +
+                "functionName='" + getFunctionName() + '\'' +
+                ", actualFunctionArguments=" + getActualFunctionArguments() +
+                '}';
+    }
+}
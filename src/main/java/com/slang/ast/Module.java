@@ -5,6 +5,7 @@ import com.slang.visitor.Context;
 import com.slang.visitor.IVisitable;
 import com.slang.visitor.IVisitor;
 
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -12,10 +13,10 @@ import java.util.Map;
  */
 public class Module implements IVisitable {
 
-    private Map<String, Function> functionsMap;
+    private final Map<String, Function> functionsMap;
 
     public Module(Map<String, Function> functionsMap) {
-        this.functionsMap = functionsMap;
+        this.functionsMap = Collections.unmodifiableMap(functionsMap);
     }
 
     @Override
@@ -6,4 +6,25 @@ import com.slang.visitor.IVisitable;
  * Created by sarath on 18/3/17.
  */
 public abstract class Statement implements IVisitable {
+
+    //Source line of the statement's first token, 0 when unknown
+    private int line;
+    //Index of the statement's counter in ExecutionCounts, 0 when not numbered
+    private int id;
+
+    public int getLine() {
+        return line;
+    }
+
+    public void setLine(int line) {
+        this.line = line;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
 }
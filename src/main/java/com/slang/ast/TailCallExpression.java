@@ -0,0 +1,31 @@
+package com.slang.ast;
+
+import com.slang.SymbolInfo;
+import com.slang.visitor.Context;
+import com.slang.visitor.IVisitor;
+
+/**
+ * A call of a function to itself in tail position, i.e. the expression of a return statement. The interpreter
+ * evaluates only the arguments and lets the running invocation rebind them and restart its body, so the
+ * recursion runs in constant stack and reuses the same frame.
+ */
+public class TailCallExpression extends FunctionInvokeExpression {
+
+    public TailCallExpression(FunctionInvokeExpression functionInvokeExpression) {
+        super(functionInvokeExpression.getFunctionName(), functionInvokeExpression.getActualFunctionArguments());
+        setStaticType(functionInvokeExpression.getStaticType());
+    }
+
+    @Override
+    public SymbolInfo accept(IVisitor visitor, Context context) {
+        return visitor.visit(this, context);
+    }
+
+    @Override
+    public String toString() {
+        return "TailCallExpression{" +
+                "functionName='" + getFunctionName() + '\'' +
+                ", actualFunctionArguments=" + getActualFunctionArguments() +
+                '}';
+    }
+}
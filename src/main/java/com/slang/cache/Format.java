@@ -0,0 +1,59 @@
+package com.slang.cache;
+
+/**
+ * Layout of a serialized module, all numbers big endian:
+ *
+ * <pre>
+ * int magic, int version
+ * int type count, types     (primitive: byte 0, string name; function: byte 1, int param count, type refs, return type ref)
+ * int function count, function headers, then the body of every function in the same order
+ * </pre>
+ *
+ * A function header is its name, return type ref, formal argument names and type refs, type ref and whether it
+ * has been type checked. Statements and expressions are a tag byte followed by their fields, expressions also
+ * carry the ref of their static type, calls end with the name of their target and their int lambda depth, and
+ * every statement of a body is preceded by its int source line. Refs
+ * index the type table, -1 is null. Lists are a count, -1 for null, and strings a UTF-8 byte count and the bytes.
+ */
+final class Format {
+
+    static final int MAGIC = 0x534c4e47;
+    //bump on any change to the layout or to the AST
+    static final int VERSION = 3;
+
+    static final byte PRIMITIVE_TYPE = 0;
+    static final byte FUNCTION_TYPE = 1;
+
+    //expressions
+    static final byte NUMERIC = 1;
+    static final byte UNARY = 2;
+    static final byte ARITHMETIC = 3;
+    static final byte STRING_LITERAL = 4;
+    static final byte BOOLEAN = 5;
+    static final byte VARIABLE = 6;
+    static final byte RELATIONAL = 7;
+    static final byte LOGICAL = 8;
+    static final byte NOT = 9;
+    static final byte LAMBDA = 10;
+    static final byte FUNCTION_INVOKE = 11;
+    static final byte INLINED_FUNCTION_INVOKE = 12;
+    static final byte TAIL_CALL = 13;
+    static final byte VOID = 14;
+
+    //statements
+    static final byte PRINT = 32;
+    static final byte PRINTLN = 33;
+    static final byte VARIABLE_DECLARATION = 34;
+    static final byte VARIABLE_ASSIGNMENT = 35;
+    static final byte VARIABLE_DECL_AND_ASSIGN = 36;
+    static final byte IF = 37;
+    static final byte WHILE = 38;
+    static final byte BREAK = 39;
+    static final byte RETURN = 40;
+    static final byte FUNCTION_INVOKE_STATEMENT = 41;
+
+    static final int NULL = -1;
+
+    private Format() {
+    }
+}
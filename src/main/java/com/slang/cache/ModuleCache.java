@@ -0,0 +1,68 @@
+package com.slang.cache;
+
+import com.slang.ast.Module;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Directory of serialized modules, one file per key. Files are memory mapped for reading and replaced
+ * atomically when written, so several processes can share a cache directory. A file which can't be read, e.g.
+ * written by another format version, is a miss and gets overwritten.
+ */
+public class ModuleCache {
+
+    private static final String EXTENSION = ".slc";
+
+    private final Path directory;
+
+    public ModuleCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * The cached module for the key, null when there is none
+     */
+    public Module load(String key) {
+        Path file = directory.resolve(key + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return ModuleReader.read(buffer);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public void store(String key, Module module) {
+        byte[] bytes = ModuleWriter.write(module);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temp, bytes);
+                try {
+                    Files.move(temp, directory.resolve(key + EXTENSION), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, directory.resolve(key + EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write to the module cache " + directory, e);
+        }
+    }
+}
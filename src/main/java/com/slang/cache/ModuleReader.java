@@ -0,0 +1,298 @@
+package com.slang.cache;
+
+import com.slang.Type;
+import com.slang.TypeTable;
+import com.slang.ast.*;
+import com.slang.ast.Module;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a module written by {@link ModuleWriter} back into the same analysed and optimized AST. The types are
+ * interned again through the {@link TypeTable}, so they are identical to the ones of a fresh compilation.
+ */
+public class ModuleReader {
+
+    private final ByteBuffer buffer;
+    private Type[] types;
+    private final Map<String, Function> functions = new LinkedHashMap<>();
+
+    private ModuleReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static Module read(ByteBuffer buffer) {
+        return new ModuleReader(buffer).readModule();
+    }
+
+    private Module readModule() {
+        if (Format.MAGIC != buffer.getInt()) {
+            throw new RuntimeException("Not a serialized Slang module");
+        }
+        int version = buffer.getInt();
+        if (Format.VERSION != version) {
+            throw new RuntimeException("Unsupported module format version : " + version);
+        }
+        readTypes();
+
+        int functionCount = readCount();
+        List<Function> headers = new ArrayList<>(functionCount);
+        for (int i = 0; i < functionCount; i++) {
+            Function function = readHeader();
+            functions.put(function.getName(), function);
+            headers.add(function);
+        }
+        for (Function function : headers) {
+            readStatements(function.getBody());
+        }
+        return new Module(functions);
+    }
+
+    private void readTypes() {
+        types = new Type[readCount()];
+        for (int i = 0; i < types.length; i++) {
+            byte category = buffer.get();
+            if (Format.PRIMITIVE_TYPE == category) {
+                String typeName = readString();
+                types[i] = TypeTable.getType(typeName);
+                if (null == types[i]) {
+                    throw new RuntimeException("Unknown type " + typeName);
+                }
+            } else {
+                int paramCount = readCount();
+                List<Type> paramTypes = new ArrayList<>(paramCount);
+                for (int j = 0; j < paramCount; j++) {
+                    paramTypes.add(readType());
+                }
+                types[i] = TypeTable.functionType(paramTypes, readType());
+            }
+        }
+    }
+
+    private Type readType() {
+        int ref = buffer.getInt();
+        return Format.NULL == ref ? null : types[ref];
+    }
+
+    //The body is left empty for the caller to fill
+    private Function readHeader() {
+        String name = readString();
+        Type returnType = readType();
+        int formalArgumentCount = readCount();
+        LinkedHashMap<String, Type> formalArguments = new LinkedHashMap<>();
+        for (int i = 0; i < formalArgumentCount; i++) {
+            String formalArgument = readString();
+            formalArguments.put(formalArgument, readType());
+        }
+        Function function = new Function(name, returnType, formalArguments, new ArrayList<>(), readType());
+        function.setTypeChecked(buffer.get() != 0);
+        return function;
+    }
+
+    private List<Statement> readStatements(List<Statement> statements) {
+        int count = buffer.getInt();
+        if (Format.NULL == count) {
+            return null;
+        }
+        checkCount(count);
+        for (int i = 0; i < count; i++) {
+            int line = buffer.getInt();
+            Statement statement = readStatement();
+            statement.setLine(line);
+            statements.add(statement);
+        }
+        return statements;
+    }
+
+    private List<Expression> readExpressions() {
+        int count = readCount();
+        List<Expression> expressions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            expressions.add(readExpression());
+        }
+        return expressions;
+    }
+
+    private Statement readStatement() {
+        byte tag = buffer.get();
+        switch (tag) {
+            case Format.PRINT:
+                return new PrintStatement(readExpression());
+            case Format.PRINTLN:
+                return new PrintlnStatement(readExpression());
+            case Format.VARIABLE_DECLARATION:
+                return new VariableDeclarationStatement((VariableExpression) readExpression());
+            case Format.VARIABLE_ASSIGNMENT:
+                return readAssignment();
+            case Format.VARIABLE_DECL_AND_ASSIGN:
+                return new VariableDeclAndAssignStatement((VariableDeclarationStatement) readStatement(),
+                        (VariableAssignmentStatement) readStatement());
+            case Format.IF:
+                Expression booleanExpression = readExpression();
+                List<Statement> trueBody = readStatements(new ArrayList<>());
+                return new IfStatement(booleanExpression, trueBody, readStatements(new ArrayList<>()));
+            case Format.WHILE:
+                Expression expression = readExpression();
+                return new WhileStatement(expression, readStatements(new ArrayList<>()));
+            case Format.BREAK:
+                return new BreakStatement();
+            case Format.RETURN:
+                return new ReturnStatement(readExpression());
+            case Format.FUNCTION_INVOKE_STATEMENT:
+                return new FunctionInvokeStatement((FunctionInvokeExpression) readExpression());
+            default:
+                throw new RuntimeException("Unknown statement tag " + tag);
+        }
+    }
+
+    private VariableAssignmentStatement readAssignment() {
+        String variableName = readString();
+        return new VariableAssignmentStatement(variableName, readExpression());
+    }
+
+    private Expression readExpression() {
+        byte tag = buffer.get();
+        Type staticType = readType();
+        Expression expression;
+        switch (tag) {
+            case Format.NUMERIC:
+                expression = readNumeric();
+                break;
+            case Format.UNARY:
+                Expression operand = readExpression();
+                expression = new UnaryExpression(operand, readToken());
+                break;
+            case Format.ARITHMETIC: {
+                Expression left = readExpression();
+                Expression right = readExpression();
+                expression = new ArithmeticExpressionExpression(left, right, readToken());
+                break;
+            }
+            case Format.STRING_LITERAL:
+                expression = new StringLiteral(readString());
+                break;
+            case Format.BOOLEAN:
+                expression = new BooleanExpression(buffer.get() != 0);
+                break;
+            case Format.VARIABLE:
+                expression = new VariableExpression(readString());
+                break;
+            case Format.RELATIONAL: {
+                Expression left = readExpression();
+                Expression right = readExpression();
+                expression = new RelationalExpression(left, right, readToken());
+                break;
+            }
+            case Format.LOGICAL: {
+                Expression left = readExpression();
+                Expression right = readExpression();
+                expression = new LogicalExpression(left, right, readToken());
+                break;
+            }
+            case Format.NOT:
+                expression = new NotExpression(readExpression());
+                break;
+            case Format.LAMBDA:
+                expression = readLambda();
+                break;
+            case Format.FUNCTION_INVOKE:
+                expression = readCall();
+                break;
+            case Format.INLINED_FUNCTION_INVOKE: {
+                FunctionInvokeExpression call = readCall();
+                call.setStaticType(staticType);
+                expression = new InlinedFunctionInvokeExpression(call, function(readString()));
+                break;
+            }
+            case Format.TAIL_CALL: {
+                FunctionInvokeExpression call = readCall();
+                call.setStaticType(staticType);
+                expression = new TailCallExpression(call);
+                break;
+            }
+            case Format.VOID:
+                expression = new VoidExpression();
+                break;
+            default:
+                throw new RuntimeException("Unknown expression tag " + tag);
+        }
+        expression.setStaticType(staticType);
+        return expression;
+    }
+
+    private NumericExpression readNumeric() {
+        Type dataType = readType();
+        if (Type.INTEGER == dataType) {
+            return new NumericExpression(buffer.getInt());
+        } else if (Type.LONG == dataType) {
+            return new NumericExpression(buffer.getLong());
+        } else if (Type.FLOAT == dataType) {
+            return new NumericExpression(Float.intBitsToFloat(buffer.getInt()));
+        }
+        return new NumericExpression(Double.longBitsToDouble(buffer.getLong()));
+    }
+
+    private LambdaExpression readLambda() {
+        int capturedCount = buffer.getInt();
+        List<String> capturedVariables = null;
+        if (Format.NULL != capturedCount) {
+            capturedVariables = new ArrayList<>(checkCount(capturedCount));
+            for (int i = 0; i < capturedCount; i++) {
+                capturedVariables.add(readString());
+            }
+        }
+        Function function = readHeader();
+        readStatements(function.getBody());
+        return null == capturedVariables ? new LambdaExpression(function) : new LambdaExpression(capturedVariables, function);
+    }
+
+    private FunctionInvokeExpression readCall() {
+        String functionName = readString();
+        FunctionInvokeExpression call = new FunctionInvokeExpression(functionName, readExpressions());
+        String target = readString();
+        if (null != target) {
+            call.setTarget(function(target));
+        }
+        call.setLambdaDepth(buffer.getInt());
+        return call;
+    }
+
+    private Function function(String name) {
+        Function function = functions.get(name);
+        if (null == function) {
+            throw new RuntimeException("Undefined function : " + name);
+        }
+        return function;
+    }
+
+    private Token readToken() {
+        return Token.valueOf(readString());
+    }
+
+    private String readString() {
+        int length = buffer.getInt();
+        if (Format.NULL == length) {
+            return null;
+        }
+        byte[] bytes = new byte[checkCount(length)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readCount() {
+        return checkCount(buffer.getInt());
+    }
+
+    //Every element takes a byte at least, a count over the bytes left is a corrupt file and mustn't be allocated
+    private int checkCount(int count) {
+        if (count < 0 || count > buffer.remaining()) {
+            throw new RuntimeException("Corrupt module, count " + count + " with " + buffer.remaining() + " bytes left");
+        }
+        return count;
+    }
+}
@@ -0,0 +1,381 @@
+package com.slang.cache;
+
+import com.slang.SymbolInfo;
+import com.slang.Type;
+import com.slang.TypeCategory;
+import com.slang.ast.*;
+import com.slang.ast.Module;
+import com.slang.visitor.Context;
+import com.slang.visitor.IVisitable;
+import com.slang.visitor.IVisitor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes an analysed module, including the static types, call targets and the rewrites of the optimizers,
+ * in the layout described by {@link Format}. Types are written once to a table and referenced by index.
+ */
+public class ModuleWriter implements IVisitor {
+
+    private final Bytes body = new Bytes();
+    private final Map<Type, Integer> typeRefs = new IdentityHashMap<>();
+    private final List<Type> types = new ArrayList<>();
+
+    public static byte[] write(Module module) {
+        return new ModuleWriter().serialize(module);
+    }
+
+    private byte[] serialize(Module module) {
+        module.accept(this, null);
+
+        Bytes out = new Bytes();
+        out.writeInt(Format.MAGIC);
+        out.writeInt(Format.VERSION);
+        out.writeInt(types.size());
+        for (Type type : types) {
+            if (TypeCategory.FUNCTION == type.getTypeCategory()) {
+                out.writeByte(Format.FUNCTION_TYPE);
+                out.writeInt(type.getFnFormalParamTypes().size());
+                for (Type paramType : type.getFnFormalParamTypes()) {
+                    out.writeInt(typeRefs.get(paramType));
+                }
+                out.writeInt(typeRefs.get(type.getFnReturnType()));
+            } else {
+                out.writeByte(Format.PRIMITIVE_TYPE);
+                out.writeString(type.getTypeName());
+            }
+        }
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private int typeRef(Type type) {
+        if (null == type) {
+            return Format.NULL;
+        }
+        Integer ref = typeRefs.get(type);
+        if (null == ref) {
+            if (TypeCategory.FUNCTION == type.getTypeCategory()) {
+                //the types of a function type come first in the table
+                for (Type paramType : type.getFnFormalParamTypes()) {
+                    typeRef(paramType);
+                }
+                typeRef(type.getFnReturnType());
+            } else if (TypeCategory.PRIMITIVE != type.getTypeCategory()) {
+                throw new RuntimeException("Unable to serialize type " + type.getTypeName());
+            }
+            ref = types.size();
+            types.add(type);
+            typeRefs.put(type, ref);
+        }
+        return ref;
+    }
+
+    private void writeHeader(Function function) {
+        body.writeString(function.getName());
+        body.writeInt(typeRef(function.getReturnType()));
+        body.writeInt(function.getFormalArguments().size());
+        for (Map.Entry<String, Type> formalArgument : function.getFormalArguments().entrySet()) {
+            body.writeString(formalArgument.getKey());
+            body.writeInt(typeRef(formalArgument.getValue()));
+        }
+        body.writeInt(typeRef(function.getType()));
+        body.writeBoolean(function.isTypeChecked());
+    }
+
+    private void writeList(List<? extends IVisitable> nodes) {
+        if (null == nodes) {
+            body.writeInt(Format.NULL);
+            return;
+        }
+        body.writeInt(nodes.size());
+        for (IVisitable node : nodes) {
+            node.accept(this, null);
+        }
+    }
+
+    private void writeStatements(List<Statement> statements) {
+        if (null == statements) {
+            body.writeInt(Format.NULL);
+            return;
+        }
+        body.writeInt(statements.size());
+        for (Statement statement : statements) {
+            body.writeInt(statement.getLine());
+            statement.accept(this, null);
+        }
+    }
+
+    private void writeExpression(byte tag, Expression expression) {
+        body.writeByte(tag);
+        body.writeInt(typeRef(expression.getStaticType()));
+    }
+
+    private void writeCall(byte tag, FunctionInvokeExpression functionInvokeExpression) {
+        writeExpression(tag, functionInvokeExpression);
+        body.writeString(functionInvokeExpression.getFunctionName());
+        writeList(functionInvokeExpression.getActualFunctionArguments());
+        Function target = functionInvokeExpression.getTarget();
+        body.writeString(null == target ? null : target.getName());
+        body.writeInt(functionInvokeExpression.getLambdaDepth());
+    }
+
+    @Override
+    public SymbolInfo visit(NumericExpression expression, Context context) {
+        writeExpression(Format.NUMERIC, expression);
+        body.writeInt(typeRef(expression.getDataType()));
+        if (Type.INTEGER == expression.getDataType()) {
+            body.writeInt(expression.getIntegerValue());
+        } else if (Type.LONG == expression.getDataType()) {
+            body.writeLong(expression.getLongValue());
+        } else if (Type.FLOAT == expression.getDataType()) {
+            body.writeInt(Float.floatToRawIntBits(expression.getFloatValue()));
+        } else {
+            body.writeLong(Double.doubleToRawLongBits(expression.getDoubleValue()));
+        }
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(UnaryExpression expression, Context context) {
+        writeExpression(Format.UNARY, expression);
+        expression.getLeftExpression().accept(this, context);
+        body.writeString(expression.getOperator().name());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(ArithmeticExpressionExpression expression, Context context) {
+        writeExpression(Format.ARITHMETIC, expression);
+        expression.getLeftExpression().accept(this, context);
+        expression.getRightExpression().accept(this, context);
+        body.writeString(expression.getOperator().name());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(StringLiteral stringLiteral, Context context) {
+        writeExpression(Format.STRING_LITERAL, stringLiteral);
+        body.writeString(stringLiteral.getStringLiteral());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(BooleanExpression booleanExpression, Context context) {
+        writeExpression(Format.BOOLEAN, booleanExpression);
+        body.writeBoolean(booleanExpression.getValue());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableExpression variableExpression, Context context) {
+        writeExpression(Format.VARIABLE, variableExpression);
+        body.writeString(variableExpression.getVariableName());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(RelationalExpression relationalExpression, Context context) {
+        writeExpression(Format.RELATIONAL, relationalExpression);
+        relationalExpression.getLeftExpression().accept(this, context);
+        relationalExpression.getRightExpression().accept(this, context);
+        body.writeString(relationalExpression.getOperator().name());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(LogicalExpression logicalExpression, Context context) {
+        writeExpression(Format.LOGICAL, logicalExpression);
+        logicalExpression.getLeftExpression().accept(this, context);
+        logicalExpression.getRightExpression().accept(this, context);
+        body.writeString(logicalExpression.getOperator().name());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(NotExpression notExpression, Context context) {
+        writeExpression(Format.NOT, notExpression);
+        notExpression.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
+        writeExpression(Format.LAMBDA, lambdaExpression);
+        List<String> capturedVariables = lambdaExpression.getCapturedVariables();
+        body.writeInt(null == capturedVariables ? Format.NULL : capturedVariables.size());
+        if (null != capturedVariables) {
+            for (String capturedVariable : capturedVariables) {
+                body.writeString(capturedVariable);
+            }
+        }
+        writeHeader(lambdaExpression.getFunction());
+        writeStatements(lambdaExpression.getFunction().getBody());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(PrintStatement printStatement, Context context) {
+        body.writeByte(Format.PRINT);
+        printStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(PrintlnStatement printlnStatement, Context context) {
+        body.writeByte(Format.PRINTLN);
+        printlnStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclarationStatement variableDeclarationStatement, Context context) {
+        body.writeByte(Format.VARIABLE_DECLARATION);
+        variableDeclarationStatement.getVariableExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableAssignmentStatement variableAssignmentStatement, Context context) {
+        body.writeByte(Format.VARIABLE_ASSIGNMENT);
+        body.writeString(variableAssignmentStatement.getVariableName());
+        variableAssignmentStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclAndAssignStatement variableDeclAndAssignStatement, Context context) {
+        body.writeByte(Format.VARIABLE_DECL_AND_ASSIGN);
+        variableDeclAndAssignStatement.getVariableDeclarationStatement().accept(this, context);
+        variableDeclAndAssignStatement.getVariableAssignmentStatement().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(IfStatement ifStatement, Context context) {
+        body.writeByte(Format.IF);
+        ifStatement.getBooleanExpression().accept(this, context);
+        writeStatements(ifStatement.getTrueBody());
+        writeStatements(ifStatement.getFalseBody());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(WhileStatement whileStatement, Context context) {
+        body.writeByte(Format.WHILE);
+        whileStatement.getExpression().accept(this, context);
+        writeStatements(whileStatement.getBody());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(BreakStatement breakStatement, Context context) {
+        body.writeByte(Format.BREAK);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(Function function, Context context) {
+        writeStatements(function.getBody());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(ReturnStatement returnStatement, Context context) {
+        body.writeByte(Format.RETURN);
+        returnStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context) {
+        writeCall(Format.FUNCTION_INVOKE, functionInvokeExpression);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context) {
+        writeCall(Format.INLINED_FUNCTION_INVOKE, inlinedFunctionInvokeExpression);
+        //only top level functions are inlined
+        body.writeString(inlinedFunctionInvokeExpression.getFunction().getName());
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(TailCallExpression tailCallExpression, Context context) {
+        writeCall(Format.TAIL_CALL, tailCallExpression);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeStatement functionInvokeStatement, Context context) {
+        body.writeByte(Format.FUNCTION_INVOKE_STATEMENT);
+        functionInvokeStatement.getFunctionInvokeExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VoidExpression voidExpression, Context context) {
+        writeExpression(Format.VOID, voidExpression);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(Module module, Context context) {
+        //headers first, so the bodies can refer to any function
+        body.writeInt(module.getFunctionsMap().size());
+        for (Function function : module.getFunctionsMap().values()) {
+            writeHeader(function);
+        }
+        for (Function function : module.getFunctionsMap().values()) {
+            function.accept(this, context);
+        }
+        return null;
+    }
+
+    private static final class Bytes extends ByteArrayOutputStream {
+
+        Bytes() {
+            super(4096);
+        }
+
+        void writeByte(int value) {
+            write(value);
+        }
+
+        void writeBoolean(boolean value) {
+            write(value ? 1 : 0);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString(String value) {
+            if (null == value) {
+                writeInt(Format.NULL);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeTo(Bytes out) {
+            out.write(buf, 0, count);
+        }
+    }
+}
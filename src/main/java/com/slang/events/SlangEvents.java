@@ -0,0 +1,100 @@
+package com.slang.events;
+
+import com.slang.ast.Function;
+
+/**
+ * Events of the compiler and the interpreter for a recorder in the JVM. A build with the jfr profile, on JDK 11 or
+ * later, adds com.slang.events.jfr.JfrEvents which records them as Java Flight Recorder events, without it or on an
+ * older JVM they are {@link #NONE}.
+ *
+ * A begin returns null when its event isn't recorded and the end then does nothing, so an event costs a check of
+ * its recorder while no recording is running.
+ */
+public interface SlangEvents {
+
+    SlangEvents NONE = new SlangEvents() {
+        @Override
+        public Object beginLexing() {
+            return null;
+        }
+
+        @Override
+        public void endLexing(Object event, long tokens) {
+        }
+
+        @Override
+        public Object beginParsing() {
+            return null;
+        }
+
+        @Override
+        public void endParsing(Object event, int functions) {
+        }
+
+        @Override
+        public Object beginAnalysis() {
+            return null;
+        }
+
+        @Override
+        public void endAnalysis(Object event, int functions) {
+        }
+
+        @Override
+        public boolean isInvocationRecorded() {
+            return false;
+        }
+
+        @Override
+        public Object beginInvocation(Function function) {
+            return null;
+        }
+
+        @Override
+        public void endInvocation(Object event, Function function, int arguments) {
+        }
+
+        @Override
+        public void closureCreated(Function closure) {
+        }
+    };
+
+    SlangEvents INSTANCE = load();
+
+    Object beginLexing();
+
+    void endLexing(Object event, long tokens);
+
+    Object beginParsing();
+
+    void endParsing(Object event, int functions);
+
+    Object beginAnalysis();
+
+    void endAnalysis(Object event, int functions);
+
+    /**
+     * Whether invocations are recorded now, the interpreter only calls begin and end of an invocation when they are
+     */
+    boolean isInvocationRecorded();
+
+    /**
+     * Only the calls of top level functions are recorded, closures only when they are created
+     */
+    Object beginInvocation(Function function);
+
+    void endInvocation(Object event, Function function, int arguments);
+
+    void closureCreated(Function closure);
+
+    /**
+     * The Flight Recorder events when they were built and the JVM has Flight Recorder, otherwise NONE
+     */
+    static SlangEvents load() {
+        try {
+            return (SlangEvents) Class.forName("com.slang.events.jfr.JfrEvents").getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return NONE;
+        }
+    }
+}
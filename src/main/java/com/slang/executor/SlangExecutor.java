@@ -0,0 +1,214 @@
+package com.slang.executor;
+
+import com.slang.CompiledModule;
+import com.slang.FunctionHandle;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs invocations of compiled modules with bounded concurrency. There are at most concurrency + queue capacity
+ * invocations accepted and not completed; past that {@link #submit} blocks the caller and {@link #trySubmit}
+ * refuses, so a burst of requests slows the producers down instead of piling up in memory.
+ *
+ * Invocations run on a pool of platform threads, or with {@link Builder#withVirtualThreads(boolean)} on a virtual
+ * thread each, which needs JDK 21 or later at runtime. The virtual threads of the accepted invocations all start,
+ * but only concurrency of them run an invocation at a time. Latencies, from submit to completion, are recorded per
+ * function.
+ */
+public class SlangExecutor implements AutoCloseable {
+
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    //Invocations running on virtual threads, null for the pool which is limited by its size
+    private final Semaphore running;
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private SlangExecutor(Builder builder) {
+        permits = new Semaphore(builder.concurrency + builder.queueCapacity);
+        if (builder.virtualThreads) {
+            executorService = newVirtualThreadPerTaskExecutor();
+            running = new Semaphore(builder.concurrency);
+        } else {
+            running = null;
+            //A worker may still be finishing a task whose permit is already released, so the queue has room for
+            //every permit and nothing is ever rejected
+            executorService = new ThreadPoolExecutor(builder.concurrency, builder.concurrency, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(builder.concurrency + builder.queueCapacity), new WorkerThreadFactory());
+        }
+    }
+
+    /**
+     * Submits an invocation, waiting while the executor is at its limit
+     */
+    public CompletableFuture<Object> submit(FunctionHandle function, Object... args) throws InterruptedException {
+        permits.acquire();
+        return execute(function, args);
+    }
+
+    public CompletableFuture<Object> submit(CompiledModule module, String functionName, Object... args)
+            throws InterruptedException {
+        return submit(module.getFunction(functionName), args);
+    }
+
+    /**
+     * Submits an invocation unless the executor is at its limit, in which case null is returned
+     */
+    public CompletableFuture<Object> trySubmit(FunctionHandle function, Object... args) {
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        return execute(function, args);
+    }
+
+    public LatencyHistogram getLatencies(String functionName) {
+        return latencies.get(functionName);
+    }
+
+    public Map<String, LatencyHistogram> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executorService.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Shuts down and waits for the submitted invocations, an interrupt stops the waiting and is kept for the caller
+     */
+    @Override
+    public void close() {
+        shutdown();
+        try {
+            awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Object> execute(FunctionHandle function, Object[] args) {
+        long submitted = System.nanoTime();
+        LatencyHistogram histogram = latencies.computeIfAbsent(function.getName(), name -> new LatencyHistogram());
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        try {
+            executorService.execute(() -> {
+                Object value = null;
+                Throwable failure = null;
+                if (null != running) {
+                    running.acquireUninterruptibly();
+                }
+                try {
+                    value = function.invoke(args);
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    if (null != running) {
+                        running.release();
+                    }
+                }
+                //Recorded and released first, so whoever waits on the result sees both
+                histogram.record(System.nanoTime() - submitted);
+                permits.release();
+                if (null == failure) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            });
+        } catch (RuntimeException e) {
+            //shut down
+            permits.release();
+            throw e;
+        }
+        return result;
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    //Looked up reflectively so the executor still compiles for Java 8
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Virtual threads need JDK 21 or later, running on " + System.getProperty("java.version"));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to create the virtual thread executor", e);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "slang-executor-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static final class Builder {
+        private int concurrency = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 1024;
+        private boolean virtualThreads;
+
+        private Builder() {
+        }
+
+        /**
+         * Number of invocations running at once, the pool size for platform threads
+         */
+        public Builder withConcurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new RuntimeException("Concurrency must be at least 1 : " + concurrency);
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Number of invocations waiting to run before submitting blocks
+         */
+        public Builder withQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 0) {
+                throw new RuntimeException("Queue capacity can't be negative : " + queueCapacity);
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder withVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public SlangExecutor build() {
+            return new SlangExecutor(this);
+        }
+    }
+}
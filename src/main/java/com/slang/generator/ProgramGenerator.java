@@ -0,0 +1,547 @@
+package com.slang.generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates large valid Slang modules for scalability tests. The same configuration, seed included, always
+ * generates the same source.
+ *
+ * The first half of the functions are callers, called once from main, the second half are leaves which call
+ * nothing, and every few functions there is a recursive helper, so the work of a run grows linearly with the
+ * number of functions. Functions use every statement and expression the parser accepts, locals of all the
+ * primitive types, loops of a fixed count with breaks, lambdas capturing the function's params and calls through
+ * function typed params.
+ *
+ * Usage: ProgramGenerator [--seed=n] [--functions=n] [--depth=n] [--lambda-density=d] [--loop-count=n]
+ *                         [--expression-depth=n] [--statements=n] [file]
+ */
+public class ProgramGenerator {
+
+    private enum ValueType {
+        INT("int"), LONG("long"), DOUBLE("double"), BOOL("boolean"), STRING("string");
+
+        private final String keyword;
+
+        ValueType(String keyword) {
+            this.keyword = keyword;
+        }
+    }
+
+    private static final ValueType[] NUMERIC = {ValueType.INT, ValueType.LONG, ValueType.DOUBLE};
+
+    private final long seed;
+    private final int functions;
+    private final int depth;
+    private final double lambdaDensity;
+    private final int loopCount;
+    private final int expressionDepth;
+    private final int statements;
+
+    private Random random;
+    private StringBuilder out;
+    private List<Signature> signatures;
+
+    private ProgramGenerator(Builder builder) {
+        seed = builder.seed;
+        functions = builder.functions;
+        depth = builder.depth;
+        lambdaDensity = builder.lambdaDensity;
+        loopCount = builder.loopCount;
+        expressionDepth = builder.expressionDepth;
+        statements = builder.statements;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Builder builder = builder();
+        String fileName = null;
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) {
+                builder.withSeed(Long.parseLong(arg.substring("--seed=".length())));
+            } else if (arg.startsWith("--functions=")) {
+                builder.withFunctions(Integer.parseInt(arg.substring("--functions=".length())));
+            } else if (arg.startsWith("--depth=")) {
+                builder.withDepth(Integer.parseInt(arg.substring("--depth=".length())));
+            } else if (arg.startsWith("--lambda-density=")) {
+                builder.withLambdaDensity(Double.parseDouble(arg.substring("--lambda-density=".length())));
+            } else if (arg.startsWith("--loop-count=")) {
+                builder.withLoopCount(Integer.parseInt(arg.substring("--loop-count=".length())));
+            } else if (arg.startsWith("--expression-depth=")) {
+                builder.withExpressionDepth(Integer.parseInt(arg.substring("--expression-depth=".length())));
+            } else if (arg.startsWith("--statements=")) {
+                builder.withStatements(Integer.parseInt(arg.substring("--statements=".length())));
+            } else if (arg.startsWith("--")) {
+                System.out.println("unknown option " + arg);
+                System.exit(0);
+            } else {
+                fileName = arg;
+            }
+        }
+
+        String module = builder.build().generate();
+        if (null == fileName) {
+            System.out.print(module);
+        } else {
+            Files.write(Paths.get(fileName), module.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public String generate() {
+        random = new Random(seed);
+        out = new StringBuilder(functions * 600);
+        signatures = new ArrayList<>(functions);
+        for (int i = 0; i < functions; i++) {
+            signatures.add(signature(i));
+        }
+
+        generateMain();
+        for (Signature signature : signatures) {
+            if (signature.recursive) {
+                generateRecursive(signature);
+            } else if (signature.higherOrder) {
+                generateHigherOrder(signature);
+            } else {
+                generateFunction(signature);
+            }
+        }
+        return out.toString();
+    }
+
+    private Signature signature(int index) {
+        Signature signature = new Signature("f" + index, NUMERIC[random.nextInt(NUMERIC.length)]);
+        signature.leaf = index >= functions / 2;
+        if (signature.leaf && 0 == index % 7) {
+            signature.recursive = true;
+            signature.returnType = ValueType.INT;
+            signature.params.add(new Variable("n", ValueType.INT));
+            signature.params.add(new Variable("acc", ValueType.INT));
+            return signature;
+        }
+        if (signature.leaf && 3 == index % 7) {
+            signature.higherOrder = true;
+            signature.returnType = ValueType.INT;
+            signature.params.add(new Variable("fn", null));
+            signature.params.add(new Variable("x", ValueType.INT));
+            return signature;
+        }
+        int params = 1 + random.nextInt(3);
+        for (int i = 0; i < params; i++) {
+            signature.params.add(new Variable("p" + i, NUMERIC[random.nextInt(NUMERIC.length)]));
+        }
+        return signature;
+    }
+
+    private void generateMain() {
+        out.append("function void main()\n");
+        int callers = 0;
+        for (Signature signature : signatures) {
+            if (signature.leaf) {
+                continue;
+            }
+            out.append("    var r").append(callers).append(" = ").append(signature.name).append('(');
+            appendLiteralArguments(signature);
+            out.append(");\n    println r").append(callers).append(";\n");
+            callers++;
+        }
+        out.append("    println \"done\";\nend\n\n");
+    }
+
+    private void appendLiteralArguments(Signature signature) {
+        for (int i = 0; i < signature.params.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(literal(signature.params.get(i).type));
+        }
+    }
+
+    private void generateRecursive(Signature signature) {
+        //a self tail call and a plain recursive call
+        out.append("function int ").append(signature.name).append("(int n, int acc)\n")
+                .append("    var half = 0;\n")
+                .append("    if (n < 1) then\n        return acc;\n    endif\n")
+                .append("    if (n > ").append(loopCount).append(") then\n")
+                .append("        half = ").append(signature.name).append("(n - 1, acc);\n")
+                .append("        return half + 1;\n    endif\n")
+                .append("    return ").append(signature.name).append("(n - 1, acc + n);\nend\n\n");
+    }
+
+    private void generateHigherOrder(Signature signature) {
+        out.append("function int ").append(signature.name).append("((int)->int fn, int x)\n")
+                .append("    var r = fn(x);\n    var s = fn(r);\n    return r + s;\nend\n\n");
+    }
+
+    private void generateFunction(Signature signature) {
+        Body body = new Body(signature);
+        //locals of every type, so expressions of any type can use a variable
+        for (ValueType type : ValueType.values()) {
+            body.declare(type);
+        }
+        if (random.nextDouble() < lambdaDensity) {
+            body.lambdas.add("lam0");
+        }
+        if (random.nextDouble() < lambdaDensity / 2) {
+            body.lambdas.add("lam1");
+        }
+
+        StringBuilder statementsOut = new StringBuilder();
+        block(body, statementsOut, 1);
+        statementsOut.append("    return ").append(expression(body, signature.returnType, expressionDepth))
+                .append(";\n");
+
+        out.append("function ").append(signature.returnType.keyword).append(' ').append(signature.name).append('(');
+        for (int i = 0; i < signature.params.size(); i++) {
+            Variable param = signature.params.get(i);
+            out.append(i > 0 ? ", " : "").append(param.type.keyword).append(' ').append(param.name);
+        }
+        out.append(")\n");
+        //declarations first, nested blocks only assign
+        for (Variable local : body.locals) {
+            out.append("    var ").append(local.name).append(" = ").append(literal(local.type)).append(";\n");
+        }
+        for (String lambda : body.lambdas) {
+            out.append("    var ").append(lambda).append(" = lambda int (int x) return x * ")
+                    .append(intParamOrLiteral(signature)).append(" + ").append(random.nextInt(10))
+                    .append("; endlambda\n");
+        }
+        out.append(statementsOut).append("end\n\n");
+    }
+
+    private String intParamOrLiteral(Signature signature) {
+        for (Variable param : signature.params) {
+            if (ValueType.INT == param.type) {
+                return param.name;
+            }
+        }
+        return String.valueOf(1 + random.nextInt(5));
+    }
+
+    private void block(Body body, StringBuilder block, int level) {
+        int count = 1 + random.nextInt(statements);
+        for (int i = 0; i < count; i++) {
+            statement(body, block, level);
+        }
+    }
+
+    private void statement(Body body, StringBuilder block, int level) {
+        String indent = indent(level);
+        int choice = random.nextInt(level < depth ? 9 : 6);
+        switch (choice) {
+            case 0:
+            case 1: {
+                Variable variable = body.any();
+                block.append(indent).append(variable.name).append(" = ")
+                        .append(expression(body, variable.type, expressionDepth)).append(";\n");
+                break;
+            }
+            case 2:
+                block.append(indent).append(random.nextBoolean() ? "println " : "print ")
+                        .append(expression(body, ValueType.values()[random.nextInt(ValueType.values().length)],
+                                expressionDepth)).append(";\n");
+                break;
+            case 3:
+            case 4:
+                call(body, block, indent);
+                break;
+            case 5:
+                if (body.signature.leaf || body.lambdas.isEmpty()) {
+                    block.append(indent).append("println \"").append(body.signature.name).append(" at ")
+                            .append(level).append("\";\n");
+                } else {
+                    Variable variable = body.local(ValueType.INT);
+                    block.append(indent).append(variable.name).append(" = ")
+                            .append(body.lambdas.get(random.nextInt(body.lambdas.size()))).append('(')
+                            .append(expression(body, ValueType.INT, Math.min(1, expressionDepth))).append(");\n");
+                }
+                break;
+            case 6:
+            case 7: {
+                block.append(indent).append("if (").append(expression(body, ValueType.BOOL, expressionDepth))
+                        .append(") then\n");
+                block(body, block, level + 1);
+                if (1 == level && random.nextInt(8) == 0) {
+                    block.append(indent).append("    return ")
+                            .append(expression(body, body.signature.returnType, expressionDepth)).append(";\n");
+                }
+                if (random.nextBoolean()) {
+                    block.append(indent).append("else\n");
+                    block(body, block, level + 1);
+                }
+                block.append(indent).append("endif\n");
+                break;
+            }
+            default: {
+                String counter = body.counter();
+                block.append(indent).append(counter).append(" = 0;\n")
+                        .append(indent).append("while (").append(counter).append(" < ").append(loopCount)
+                        .append(")\n")
+                        .append(indent).append("    ").append(counter).append(" = ").append(counter)
+                        .append(" + 1;\n");
+                block(body, block, level + 1);
+                if (random.nextInt(4) == 0) {
+                    block.append(indent).append("    if (").append(counter).append(" == ")
+                            .append(1 + random.nextInt(loopCount)).append(") then\n")
+                            .append(indent).append("        break;\n")
+                            .append(indent).append("    endif\n");
+                }
+                block.append(indent).append("wend\n");
+                break;
+            }
+        }
+    }
+
+    private void call(Body body, StringBuilder block, String indent) {
+        //leaves don't call, so every call graph is shallow
+        if (body.signature.leaf) {
+            Variable variable = body.local(ValueType.STRING);
+            block.append(indent).append(variable.name).append(" = ").append(variable.name).append(" + \"!\";\n");
+            return;
+        }
+        Signature callee = signatures.get(functions / 2 + random.nextInt(functions - functions / 2));
+        if (callee.higherOrder && body.lambdas.isEmpty()) {
+            block.append(indent).append("println \"no lambda for ").append(callee.name).append("\";\n");
+            return;
+        }
+        Variable result = body.local(callee.returnType);
+        block.append(indent).append(result.name).append(" = ").append(callee.name).append('(');
+        if (callee.recursive) {
+            block.append(random.nextInt(2 * loopCount)).append(", 0");
+        } else if (callee.higherOrder) {
+            block.append(body.lambdas.get(0)).append(", ").append(expression(body, ValueType.INT, Math.min(1, expressionDepth)));
+        } else {
+            for (int i = 0; i < callee.params.size(); i++) {
+                block.append(i > 0 ? ", " : "").append(expression(body, callee.params.get(i).type, Math.min(1, expressionDepth)));
+            }
+        }
+        block.append(");\n");
+    }
+
+    private String expression(Body body, ValueType type, int depth) {
+        if (depth <= 0 || random.nextInt(3) == 0) {
+            if (random.nextBoolean()) {
+                return literal(type);
+            }
+            Variable variable = body.variable(type);
+            return null == variable ? literal(type) : variable.name;
+        }
+
+        switch (type) {
+            case INT: {
+                String[] operators = {"+", "-", "*"};
+                if (random.nextInt(6) == 0) {
+                    return "-" + body.local(ValueType.INT).name;
+                }
+                return "(" + expression(body, ValueType.INT, depth - 1) + " " + operators[random.nextInt(3)] + " "
+                        + expression(body, ValueType.INT, depth - 1) + ")";
+            }
+            case LONG:
+                //long * long isn't a long in Slang
+                return "(" + expression(body, ValueType.LONG, depth - 1) + (random.nextBoolean() ? " + " : " - ")
+                        + expression(body, random.nextBoolean() ? ValueType.LONG : ValueType.INT, depth - 1) + ")";
+            case DOUBLE: {
+                String[] operators = {"+", "-", "*", "/"};
+                ValueType right = NUMERIC[random.nextInt(NUMERIC.length)];
+                return "(" + expression(body, ValueType.DOUBLE, depth - 1) + " " + operators[random.nextInt(4)]
+                        + " " + expression(body, right, depth - 1) + ")";
+            }
+            case BOOL: {
+                int choice = random.nextInt(4);
+                if (0 == choice) {
+                    return "!(" + expression(body, ValueType.BOOL, depth - 1) + ")";
+                } else if (1 == choice) {
+                    return "(" + expression(body, ValueType.BOOL, depth - 1)
+                            + (random.nextBoolean() ? " && " : " || ")
+                            + expression(body, ValueType.BOOL, depth - 1) + ")";
+                }
+                String[] operators = {"==", "<", "<=", ">", ">="};
+                return "(" + expression(body, NUMERIC[random.nextInt(NUMERIC.length)], depth - 1) + " "
+                        + operators[random.nextInt(5)] + " "
+                        + expression(body, NUMERIC[random.nextInt(NUMERIC.length)], depth - 1) + ")";
+            }
+            default:
+                //a single variable per concatenation, strings grow linearly in loops
+                return "(" + literal(ValueType.STRING) + " + " + expression(body, ValueType.STRING, depth - 1) + ")";
+        }
+    }
+
+    private String literal(ValueType type) {
+        switch (type) {
+            case INT:
+                return String.valueOf(random.nextInt(100));
+            case LONG:
+                return random.nextInt(100000) + "l";
+            case DOUBLE:
+                return random.nextInt(1000) + "." + (1 + random.nextInt(99));
+            case BOOL:
+                return random.nextBoolean() ? "true" : "false";
+            default:
+                return "\"s" + random.nextInt(100) + "\"";
+        }
+    }
+
+    private static String indent(int level) {
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < level; i++) {
+            indent.append("    ");
+        }
+        return indent.toString();
+    }
+
+    private static final class Variable {
+        private final String name;
+        private final ValueType type;
+
+        private Variable(String name, ValueType type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static final class Signature {
+        private final String name;
+        private ValueType returnType;
+        private final List<Variable> params = new ArrayList<>();
+        private boolean leaf;
+        private boolean recursive;
+        private boolean higherOrder;
+
+        private Signature(String name, ValueType returnType) {
+            this.name = name;
+            this.returnType = returnType;
+        }
+    }
+
+    private final class Body {
+        private final Signature signature;
+        private final List<Variable> locals = new ArrayList<>();
+        private final List<String> lambdas = new ArrayList<>();
+        private int counters;
+
+        private Body(Signature signature) {
+            this.signature = signature;
+        }
+
+        private Variable declare(ValueType type) {
+            Variable variable = new Variable("v" + locals.size(), type);
+            locals.add(variable);
+            return variable;
+        }
+
+        //loop counters are only assigned by their loop
+        private String counter() {
+            Variable counter = new Variable("c" + counters++, ValueType.INT);
+            locals.add(counter);
+            return counter.name;
+        }
+
+        private Variable local(ValueType type) {
+            List<Variable> candidates = new ArrayList<>();
+            for (Variable local : locals) {
+                if (type == local.type && local.name.startsWith("v")) {
+                    candidates.add(local);
+                }
+            }
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+
+        private Variable any() {
+            Variable variable = locals.get(random.nextInt(locals.size()));
+            return variable.name.startsWith("v") ? variable : local(variable.type);
+        }
+
+        //a local or a param
+        private Variable variable(ValueType type) {
+            List<Variable> candidates = new ArrayList<>();
+            for (Variable param : signature.params) {
+                if (type == param.type) {
+                    candidates.add(param);
+                }
+            }
+            for (Variable local : locals) {
+                if (type == local.type) {
+                    candidates.add(local);
+                }
+            }
+            return candidates.isEmpty() ? null : candidates.get(random.nextInt(candidates.size()));
+        }
+    }
+
+    public static final class Builder {
+        private long seed = 42;
+        private int functions = 100;
+        private int depth = 3;
+        private double lambdaDensity = 0.3;
+        private int loopCount = 5;
+        private int expressionDepth = 3;
+        private int statements = 4;
+
+        private Builder() {
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Number of functions besides main, at least 2
+         */
+        public Builder withFunctions(int functions) {
+            this.functions = Math.max(2, functions);
+            return this;
+        }
+
+        /**
+         * Deepest nesting of if and while blocks
+         */
+        public Builder withDepth(int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        /**
+         * Chance of a function declaring a lambda, between 0 and 1
+         */
+        public Builder withLambdaDensity(double lambdaDensity) {
+            this.lambdaDensity = lambdaDensity;
+            return this;
+        }
+
+        /**
+         * Iterations of every loop
+         */
+        public Builder withLoopCount(int loopCount) {
+            this.loopCount = Math.max(1, loopCount);
+            return this;
+        }
+
+        /**
+         * Deepest nesting of operators in an expression
+         */
+        public Builder withExpressionDepth(int expressionDepth) {
+            this.expressionDepth = expressionDepth;
+            return this;
+        }
+
+        /**
+         * Most statements of a block
+         */
+        public Builder withStatements(int statements) {
+            this.statements = Math.max(1, statements);
+            return this;
+        }
+
+        public ProgramGenerator build() {
+            return new ProgramGenerator(this);
+        }
+    }
+}
@@ -13,6 +13,8 @@ public class Lexer {
     private final String module;
     private final int moduleLen;
     private int index;
+    private int line = 1;
+    private int tokenLine = 1;
     private Double doubleNum;
     private Float floatNum;
     private Long longNum;
@@ -35,6 +37,7 @@ public class Lexer {
 
         moduleStream:
         while (isNotEndOfModule()) {
+            tokenLine = line;
             switch (module.charAt(index)) {
                 case '0':
                 case '1':
@@ -87,10 +90,12 @@ public class Lexer {
                     previousToken = currentToken;
                     currentToken = Token.NUM;
                     break moduleStream;
+                case '\n':
+                    line++;
+                    //fall through, a newline is skipped like the other white space
                 case ' ':
                 case '\r':
                 case '\t':
-                case '\n':
                     index ++;
                     if(isEndOfModule()) {
                         previousToken = currentToken;
@@ -247,6 +252,9 @@ public class Lexer {
                 break;
             }
 
+            if ('\n' == c) {
+                line++;
+            }
             keyWordBuilder.append(c);
             index++;
         }
@@ -349,6 +357,13 @@ public class Lexer {
         return currentToken;
     }
 
+    /**
+     * Line of the first character of the current token, from 1
+     */
+    public int getLine() {
+        return tokenLine;
+    }
+
     public String getModule() {
         return module;
     }
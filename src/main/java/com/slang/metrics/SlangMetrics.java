@@ -0,0 +1,358 @@
+package com.slang.metrics;
+
+import com.slang.ast.Function;
+import com.slang.ast.Statement;
+import com.slang.output.OutputSink;
+import com.slang.visitor.InvocationListener;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Live counters of the executions of compiled modules, for applications which keep modules running for a long time.
+ * An execution is a run of main or a call of a function from the application. Counted are the executions, those
+ * running now, the failed ones by the message of their exception, the calls per Slang function, the depth of the
+ * Slang call stack at every call, the bytes the executing thread allocated and the bytes of output.
+ *
+ * Every module compiled by an engine built {@link com.slang.SlangEngine.Builder#withMetrics(SlangMetrics) with}
+ * the metrics counts into them. The counters are LongAdders, the interpreter updates them through a listener per
+ * execution without taking locks. They are exported as the Prometheus text format, to a file or a local HTTP
+ * endpoint, see {@link MetricsEndpoint}, and as an MXBean.
+ */
+public final class SlangMetrics implements SlangMetricsMXBean {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int LINE_SEPARATOR_LENGTH = System.lineSeparator().length();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder activeExecutions = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> invocations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    //Sum of the call stack depths at every invocation, over the invocations it's the average depth
+    private final LongAdder depths = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder outputBytes = new LongAdder();
+
+    /**
+     * Counts the execution, on the calling thread, and its failure
+     */
+    public <T> T execute(Supplier<T> execution) {
+        executions.increment();
+        activeExecutions.increment();
+        long allocated = allocatedBytes();
+        try {
+            return execution.get();
+        } catch (RuntimeException e) {
+            counter(errors, String.valueOf(e.getMessage())).increment();
+            throw e;
+        } catch (Error e) {
+            //e.g. a StackOverflowError of a deep recursion
+            counter(errors, e.getClass().getName()).increment();
+            throw e;
+        } finally {
+            if (allocated >= 0) {
+                allocatedBytes.add(allocatedBytes() - allocated);
+            }
+            activeExecutions.decrement();
+        }
+    }
+
+    public void execute(Runnable execution) {
+        execute(() -> {
+            execution.run();
+            return null;
+        });
+    }
+
+    /**
+     * A listener for one execution which counts the invocations and passes them on to next
+     */
+    public InvocationListener listener(InvocationListener next) {
+        return new Listener(next);
+    }
+
+    /**
+     * A sink which counts the bytes printed to out, UTF-8 encoded
+     */
+    public OutputSink meter(OutputSink out) {
+        return new MeteredSink(out);
+    }
+
+    @Override
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    @Override
+    public long getActiveExecutions() {
+        return activeExecutions.sum();
+    }
+
+    @Override
+    public Map<String, Long> getInvocations() {
+        return sums(invocations);
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        return sums(errors);
+    }
+
+    @Override
+    public double getAverageFrameDepth() {
+        long calls = 0;
+        for (LongAdder function : invocations.values()) {
+            calls += function.sum();
+        }
+        return 0 == calls ? 0 : (double) depths.sum() / calls;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public long getOutputBytes() {
+        return outputBytes.sum();
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        metric(out, "slang_executions_total", "counter", "Runs of main and calls of functions by the application");
+        sample(out, "slang_executions_total", null, null, getExecutions());
+        metric(out, "slang_active_executions", "gauge", "Executions running now");
+        sample(out, "slang_active_executions", null, null, getActiveExecutions());
+        metric(out, "slang_errors_total", "counter", "Failed executions by the message of their exception");
+        for (Map.Entry<String, Long> error : getErrors().entrySet()) {
+            sample(out, "slang_errors_total", "message", error.getKey(), error.getValue());
+        }
+        metric(out, "slang_invocations_total", "counter", "Calls of Slang functions, lambdas and inlined calls included");
+        for (Map.Entry<String, Long> function : getInvocations().entrySet()) {
+            sample(out, "slang_invocations_total", "function", function.getKey(), function.getValue());
+        }
+        metric(out, "slang_frame_depth_average", "gauge", "Average depth of the Slang call stack at a call");
+        out.write("slang_frame_depth_average " + getAverageFrameDepth() + "\n");
+        metric(out, "slang_allocated_bytes_total", "counter", "Bytes allocated by the threads while executing");
+        sample(out, "slang_allocated_bytes_total", null, null, getAllocatedBytes());
+        metric(out, "slang_output_bytes_total", "counter", "Bytes printed by the executions");
+        sample(out, "slang_output_bytes_total", null, null, getOutputBytes());
+    }
+
+    public String toPrometheus() {
+        StringWriter out = new StringWriter();
+        try {
+            writePrometheus(out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Replaces file with the metrics in the Prometheus text format, e.g. for the textfile collector of the node
+     * exporter. The file is written next to it first and moved, so readers never see half of it.
+     */
+    public void writePrometheus(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.write(temporary, toPrometheus().getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as com.slang:type=Metrics,name=name
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.slang:type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new RuntimeException("Unable to register the metrics as " + name, e);
+        }
+    }
+
+    private static void metric(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(Writer out, String name, String label, String labelValue, long value)
+            throws IOException {
+        out.write(name);
+        if (null != label) {
+            out.write("{" + label + "=\"" + escape(labelValue) + "\"}");
+        }
+        out.write(" " + value + "\n");
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String key) {
+        //get first, computeIfAbsent locks the bin on Java 8 even when the key is there
+        LongAdder counter = counters.get(key);
+        return null != counter ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            sums.put(counter.getKey(), counter.getValue().sum());
+        }
+        return sums;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private final class Listener implements InvocationListener {
+        private final InvocationListener next;
+        private int depth;
+
+        private Listener(InvocationListener next) {
+            this.next = next;
+        }
+
+        @Override
+        public void enter(Function function) {
+            depth++;
+            counter(invocations, function.getName()).increment();
+            depths.add(depth);
+            next.enter(function);
+        }
+
+        @Override
+        public void exit(Function function) {
+            depth--;
+            next.exit(function);
+        }
+
+        @Override
+        public void statement(Statement statement) {
+            next.statement(statement);
+        }
+
+        @Override
+        public void aborted() {
+            depth = 0;
+            next.aborted();
+        }
+    }
+
+    private final class MeteredSink implements OutputSink {
+        private final OutputSink out;
+
+        private MeteredSink(OutputSink out) {
+            this.out = out;
+        }
+
+        @Override
+        public void print(String value) {
+            outputBytes.add(utf8Length(value));
+            out.print(value);
+        }
+
+        @Override
+        public void print(int value) {
+            outputBytes.add(length(value));
+            out.print(value);
+        }
+
+        @Override
+        public void print(long value) {
+            outputBytes.add(length(value));
+            out.print(value);
+        }
+
+        @Override
+        public void print(float value) {
+            outputBytes.add(Float.toString(value).length());
+            out.print(value);
+        }
+
+        @Override
+        public void print(double value) {
+            outputBytes.add(Double.toString(value).length());
+            out.print(value);
+        }
+
+        @Override
+        public void print(boolean value) {
+            outputBytes.add(value ? 4 : 5);
+            out.print(value);
+        }
+
+        @Override
+        public void newLine() {
+            outputBytes.add(LINE_SEPARATOR_LENGTH);
+            out.newLine();
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            out.close();
+        }
+
+        private int length(long value) {
+            if (Long.MIN_VALUE == value) {
+                return 20;
+            }
+            int length = value < 0 ? 2 : 1;
+            for (long rest = Math.abs(value); rest >= 10; rest /= 10) {
+                length++;
+            }
+            return length;
+        }
+
+        private int utf8Length(String value) {
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.slang.metrics;
+
+import java.util.Map;
+
+/**
+ * The {@link SlangMetrics} as seen over JMX
+ */
+public interface SlangMetricsMXBean {
+
+    long getExecutions();
+
+    long getActiveExecutions();
+
+    Map<String, Long> getInvocations();
+
+    Map<String, Long> getErrors();
+
+    double getAverageFrameDepth();
+
+    long getAllocatedBytes();
+
+    long getOutputBytes();
+}
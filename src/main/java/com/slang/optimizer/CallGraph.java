@@ -0,0 +1,81 @@
+package com.slang.optimizer;
+
+import com.slang.SymbolInfo;
+import com.slang.ast.Function;
+import com.slang.ast.FunctionInvokeExpression;
+import com.slang.visitor.Context;
+import com.slang.visitor.TreeWalker;
+
+import java.util.*;
+
+/**
+ * Static call graph between the top level functions of a module. Calls through lambda variables are not
+ * statically resolvable and therefore don't add edges.
+ */
+public class CallGraph {
+
+    private final Map<String, Function> functions;
+    private final Map<String, Set<String>> callees = new LinkedHashMap<>();
+
+    public CallGraph(Map<String, Function> functions) {
+        this.functions = functions;
+        for (Function function : functions.values()) {
+            Set<String> functionCallees = new LinkedHashSet<>();
+            function.accept(new TreeWalker() {
+                @Override
+                public SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context) {
+                    if (functions.containsKey(functionInvokeExpression.getFunctionName())) {
+                        functionCallees.add(functionInvokeExpression.getFunctionName());
+                    }
+                    return super.visit(functionInvokeExpression, context);
+                }
+            }, null);
+            callees.put(function.getName(), functionCallees);
+        }
+    }
+
+    public Set<String> getCallees(String functionName) {
+        Set<String> functionCallees = callees.get(functionName);
+        return null == functionCallees ? Collections.emptySet() : Collections.unmodifiableSet(functionCallees);
+    }
+
+    /**
+     * A function is recursive when it can reach itself, either directly or through other functions.
+     */
+    public boolean isRecursive(String functionName) {
+        Deque<String> pending = new ArrayDeque<>(getCallees(functionName));
+        Set<String> seen = new HashSet<>();
+        while (!pending.isEmpty()) {
+            String callee = pending.pop();
+            if (callee.equals(functionName)) {
+                return true;
+            }
+            if (seen.add(callee)) {
+                pending.addAll(getCallees(callee));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Functions ordered so that callees come before their callers, as far as cycles allow.
+     */
+    public List<Function> bottomUpOrder() {
+        List<Function> order = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (String functionName : functions.keySet()) {
+            postOrder(functionName, visited, order);
+        }
+        return order;
+    }
+
+    private void postOrder(String functionName, Set<String> visited, List<Function> order) {
+        if (!visited.add(functionName)) {
+            return;
+        }
+        for (String callee : getCallees(functionName)) {
+            postOrder(callee, visited, order);
+        }
+        order.add(functions.get(functionName));
+    }
+}
@@ -0,0 +1,304 @@
+package com.slang.optimizer;
+
+import com.slang.CompileStatistics;
+import com.slang.SymbolInfo;
+import com.slang.ast.*;
+import com.slang.ast.Module;
+import com.slang.visitor.Context;
+import com.slang.visitor.IVisitable;
+import com.slang.visitor.TreeWalker;
+
+import java.util.*;
+
+/**
+ * Substitutes the body of small, non recursive top level functions at their call sites.
+ *
+ * Functions are processed callees first, so a function which itself had calls inlined is measured with those
+ * bodies included. A function is inlined only when its size (number of AST nodes in its body) fits in the
+ * budget, it doesn't create lambdas and it doesn't refer to any name other than its params, its locals and
+ * other top level functions. The last rule is what makes it safe to evaluate the body in a scope nested in the
+ * caller instead of a fresh function scope.
+ *
+ * Should run after the SemanticAnalyzer, as the inlined call sites are no longer type checked at runtime.
+ */
+public class Inliner {
+
+    public static final int DEFAULT_SIZE_BUDGET = 40;
+
+    private final int sizeBudget;
+    private final CompileStatistics statistics;
+
+    private Map<String, Function> functions;
+    private final Map<String, Function> inlineCandidates = new HashMap<>();
+    private final Map<String, String> rejections = new HashMap<>();
+
+    public Inliner(int sizeBudget, CompileStatistics statistics) {
+        this.sizeBudget = sizeBudget;
+        this.statistics = statistics;
+    }
+
+    public Inliner(CompileStatistics statistics) {
+        this(DEFAULT_SIZE_BUDGET, statistics);
+    }
+
+    public Module inline(Module module) {
+        functions = module.getFunctionsMap();
+        CallGraph callGraph = new CallGraph(functions);
+
+        for (Function function : callGraph.bottomUpOrder()) {
+            rewrite(function.getBody());
+
+            if (callGraph.isRecursive(function.getName())) {
+                rejections.put(function.getName(), "recursive");
+                continue;
+            }
+
+            FunctionSummary summary = new FunctionSummary(functions.keySet());
+            summary.walkFunction(function);
+            if (summary.nodeCount > sizeBudget) {
+                rejections.put(function.getName(), "size");
+            } else if (summary.hasLambda || !summary.isClosed()) {
+                rejections.put(function.getName(), "scope");
+            } else {
+                inlineCandidates.put(function.getName(), function);
+            }
+        }
+        statistics.add("inline.candidates", inlineCandidates.size());
+        return module;
+    }
+
+    private void rewrite(List<Statement> statements) {
+        if (null == statements) {
+            return;
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            Statement rewritten = rewrite(statements.get(i));
+            rewritten.setLine(statements.get(i).getLine());
+            statements.set(i, rewritten);
+        }
+    }
+
+    private Statement rewrite(Statement statement) {
+        if (statement instanceof FunctionInvokeStatement) {
+            FunctionInvokeExpression invokeExpression = ((FunctionInvokeStatement) statement).getFunctionInvokeExpression();
+            Expression rewritten = rewrite(invokeExpression);
+            return rewritten == invokeExpression ? statement
+                    : new FunctionInvokeStatement((FunctionInvokeExpression) rewritten);
+        } else if (statement instanceof VariableAssignmentStatement) {
+            return rewrite((VariableAssignmentStatement) statement);
+        } else if (statement instanceof VariableDeclAndAssignStatement) {
+            VariableDeclAndAssignStatement declAndAssignStatement = (VariableDeclAndAssignStatement) statement;
+            VariableAssignmentStatement assignmentStatement = declAndAssignStatement.getVariableAssignmentStatement();
+            VariableAssignmentStatement rewritten = rewrite(assignmentStatement);
+            return rewritten == assignmentStatement ? statement
+                    : new VariableDeclAndAssignStatement(declAndAssignStatement.getVariableDeclarationStatement(), rewritten);
+        } else if (statement instanceof ReturnStatement) {
+            Expression expression = ((ReturnStatement) statement).getExpression();
+            Expression rewritten = rewrite(expression);
+            return rewritten == expression ? statement : new ReturnStatement(rewritten);
+        } else if (statement instanceof PrintStatement) {
+            Expression expression = ((PrintStatement) statement).getExpression();
+            Expression rewritten = rewrite(expression);
+            return rewritten == expression ? statement : new PrintStatement(rewritten);
+        } else if (statement instanceof PrintlnStatement) {
+            Expression expression = ((PrintlnStatement) statement).getExpression();
+            Expression rewritten = rewrite(expression);
+            return rewritten == expression ? statement : new PrintlnStatement(rewritten);
+        } else if (statement instanceof IfStatement) {
+            IfStatement ifStatement = (IfStatement) statement;
+            rewrite(ifStatement.getTrueBody());
+            rewrite(ifStatement.getFalseBody());
+            Expression condition = ifStatement.getBooleanExpression();
+            Expression rewritten = rewrite(condition);
+            return rewritten == condition ? statement
+                    : new IfStatement(rewritten, ifStatement.getTrueBody(), ifStatement.getFalseBody());
+        } else if (statement instanceof WhileStatement) {
+            WhileStatement whileStatement = (WhileStatement) statement;
+            rewrite(whileStatement.getBody());
+            Expression condition = whileStatement.getExpression();
+            Expression rewritten = rewrite(condition);
+            return rewritten == condition ? statement : new WhileStatement(rewritten, whileStatement.getBody());
+        }
+        return statement;
+    }
+
+    private VariableAssignmentStatement rewrite(VariableAssignmentStatement assignmentStatement) {
+        Expression expression = assignmentStatement.getExpression();
+        Expression rewritten = rewrite(expression);
+        return rewritten == expression ? assignmentStatement
+                : new VariableAssignmentStatement(assignmentStatement.getVariableName(), rewritten);
+    }
+
+    /**
+     * Rewrites the calls anywhere in expression, operands and arguments included. A node whose operands or
+     * arguments changed is copied, the original is left as it is.
+     */
+    private Expression rewrite(Expression expression) {
+        if (expression instanceof LambdaExpression) {
+            rewrite(((LambdaExpression) expression).getFunction().getBody());
+            return expression;
+        }
+        if (expression instanceof ArithmeticExpressionExpression) {
+            ArithmeticExpressionExpression arithmetic = (ArithmeticExpressionExpression) expression;
+            Expression left = rewrite(arithmetic.getLeftExpression());
+            Expression right = rewrite(arithmetic.getRightExpression());
+            return left == arithmetic.getLeftExpression() && right == arithmetic.getRightExpression() ? expression
+                    : typed(new ArithmeticExpressionExpression(left, right, arithmetic.getOperator()), expression);
+        }
+        if (expression instanceof RelationalExpression) {
+            RelationalExpression relational = (RelationalExpression) expression;
+            Expression left = rewrite(relational.getLeftExpression());
+            Expression right = rewrite(relational.getRightExpression());
+            return left == relational.getLeftExpression() && right == relational.getRightExpression() ? expression
+                    : typed(new RelationalExpression(left, right, relational.getOperator()), expression);
+        }
+        if (expression instanceof LogicalExpression) {
+            LogicalExpression logical = (LogicalExpression) expression;
+            Expression left = rewrite(logical.getLeftExpression());
+            Expression right = rewrite(logical.getRightExpression());
+            return left == logical.getLeftExpression() && right == logical.getRightExpression() ? expression
+                    : typed(new LogicalExpression(left, right, logical.getOperator()), expression);
+        }
+        if (expression instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) expression;
+            Expression operand = rewrite(unary.getLeftExpression());
+            return operand == unary.getLeftExpression() ? expression
+                    : typed(new UnaryExpression(operand, unary.getOperator()), expression);
+        }
+        if (expression instanceof NotExpression) {
+            Expression operand = rewrite(((NotExpression) expression).getExpression());
+            return operand == ((NotExpression) expression).getExpression() ? expression
+                    : typed(new NotExpression(operand), expression);
+        }
+        if (!(expression instanceof FunctionInvokeExpression) || expression instanceof InlinedFunctionInvokeExpression) {
+            return expression;
+        }
+
+        FunctionInvokeExpression invokeExpression = (FunctionInvokeExpression) expression;
+        List<Expression> arguments = new ArrayList<>();
+        boolean changed = false;
+        for (Expression argument : invokeExpression.getActualFunctionArguments()) {
+            Expression rewritten = rewrite(argument);
+            arguments.add(rewritten);
+            changed |= rewritten != argument;
+        }
+        if (changed) {
+            FunctionInvokeExpression copy = new FunctionInvokeExpression(invokeExpression.getFunctionName(), arguments);
+            copy.setTarget(invokeExpression.getTarget());
+            copy.setLambdaDepth(invokeExpression.getLambdaDepth());
+            invokeExpression = (FunctionInvokeExpression) typed(copy, invokeExpression);
+        }
+
+        String functionName = invokeExpression.getFunctionName();
+        statistics.increment("inline.call-sites");
+        if (!functions.containsKey(functionName)) {
+            //call through a lambda variable, can't be resolved statically
+            statistics.increment("inline.rejected.dynamic");
+            return invokeExpression;
+        }
+
+        Function function = inlineCandidates.get(functionName);
+        if (null == function) {
+            statistics.increment("inline.rejected." + rejections.getOrDefault(functionName, "recursive"));
+            return invokeExpression;
+        }
+        if (function.getFormalArguments().size() != invokeExpression.getActualFunctionArguments().size()) {
+            statistics.increment("inline.rejected.arity");
+            return invokeExpression;
+        }
+
+        statistics.increment("inline.inlined");
+        return new InlinedFunctionInvokeExpression(invokeExpression, function);
+    }
+
+    //A copied node keeps the type the SemanticAnalyzer proved, its runtime checks stay skipped
+    private static Expression typed(Expression rewritten, Expression original) {
+        rewritten.setStaticType(original.getStaticType());
+        return rewritten;
+    }
+
+    /**
+     * Size and scope facts about a function body.
+     */
+    private static class FunctionSummary extends TreeWalker {
+
+        private final Set<String> topLevelFunctions;
+        private final Set<String> declaredNames = new HashSet<>();
+        private final Set<String> referencedNames = new HashSet<>();
+        private int nodeCount = 0;
+        private boolean hasLambda = false;
+
+        FunctionSummary(Set<String> topLevelFunctions) {
+            this.topLevelFunctions = topLevelFunctions;
+        }
+
+        void walkFunction(Function function) {
+            declaredNames.addAll(function.getFormalArguments().keySet());
+            walk(function.getBody(), null);
+        }
+
+        boolean isClosed() {
+            return declaredNames.containsAll(referencedNames);
+        }
+
+        @Override
+        protected void visitNode(IVisitable node, Context context) {
+            nodeCount++;
+        }
+
+        @Override
+        public SymbolInfo visit(VariableExpression variableExpression, Context context) {
+            referencedNames.add(variableExpression.getVariableName());
+            return super.visit(variableExpression, context);
+        }
+
+        @Override
+        public SymbolInfo visit(VariableDeclarationStatement variableDeclarationStatement, Context context) {
+            declaredNames.add(variableDeclarationStatement.getVariableExpression().getVariableName());
+            return super.visit(variableDeclarationStatement, context);
+        }
+
+        @Override
+        public SymbolInfo visit(VariableAssignmentStatement variableAssignmentStatement, Context context) {
+            referencedNames.add(variableAssignmentStatement.getVariableName());
+            return super.visit(variableAssignmentStatement, context);
+        }
+
+        @Override
+        public SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context) {
+            if (!topLevelFunctions.contains(functionInvokeExpression.getFunctionName())) {
+                referencedNames.add(functionInvokeExpression.getFunctionName());
+            }
+            return super.visit(functionInvokeExpression, context);
+        }
+
+        @Override
+        public SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context) {
+            //The inlined body was already checked to be closed, only its size and arguments count here
+            visitNode(inlinedFunctionInvokeExpression, context);
+            walk(inlinedFunctionInvokeExpression.getActualFunctionArguments(), context);
+            nodeCount += countNodes(inlinedFunctionInvokeExpression.getBody());
+            return null;
+        }
+
+        @Override
+        public SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
+            hasLambda = true;
+            return super.visit(lambdaExpression, context);
+        }
+
+        private static int countNodes(List<Statement> statements) {
+            int[] count = new int[1];
+            TreeWalker counter = new TreeWalker() {
+                @Override
+                protected void visitNode(IVisitable node, Context context) {
+                    count[0]++;
+                }
+            };
+            for (Statement statement : statements) {
+                statement.accept(counter, null);
+            }
+            return count[0];
+        }
+    }
+}
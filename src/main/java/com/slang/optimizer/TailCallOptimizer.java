@@ -0,0 +1,59 @@
+package com.slang.optimizer;
+
+import com.slang.CompileStatistics;
+import com.slang.ast.*;
+import com.slang.ast.Module;
+
+import java.util.List;
+
+/**
+ * Marks the calls of top level functions to themselves in tail position ({@code return f(...);}, also inside
+ * if and while bodies) as {@link TailCallExpression}s, which the interpreter runs as a loop over the same frame.
+ *
+ * Lambda bodies are skipped, a call to the enclosing function from a lambda is not a tail call of that function.
+ */
+public class TailCallOptimizer {
+
+    private final CompileStatistics statistics;
+
+    public TailCallOptimizer(CompileStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public Module optimize(Module module) {
+        for (Function function : module.getFunctionsMap().values()) {
+            rewrite(function, function.getBody());
+        }
+        return module;
+    }
+
+    private void rewrite(Function function, List<Statement> statements) {
+        if (null == statements) {
+            return;
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            Statement statement = statements.get(i);
+            if (statement instanceof ReturnStatement) {
+                Expression expression = ((ReturnStatement) statement).getExpression();
+                if (isSelfCall(function, expression)) {
+                    statistics.increment("tailcall.sites");
+                    Statement tailCall = new ReturnStatement(new TailCallExpression((FunctionInvokeExpression) expression));
+                    tailCall.setLine(statement.getLine());
+                    statements.set(i, tailCall);
+                }
+            } else if (statement instanceof IfStatement) {
+                rewrite(function, ((IfStatement) statement).getTrueBody());
+                rewrite(function, ((IfStatement) statement).getFalseBody());
+            } else if (statement instanceof WhileStatement) {
+                rewrite(function, ((WhileStatement) statement).getBody());
+            }
+        }
+    }
+
+    private boolean isSelfCall(Function function, Expression expression) {
+        //Only a plain call, inlined and already marked calls are left alone. Top level functions take precedence
+        //over variables in the interpreter, so a call by the function's own name always resolves to it.
+        return null != expression && FunctionInvokeExpression.class == expression.getClass()
+                && function.getName().equals(((FunctionInvokeExpression) expression).getFunctionName());
+    }
+}
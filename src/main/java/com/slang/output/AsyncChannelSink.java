@@ -0,0 +1,162 @@
+package com.slang.output;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands full buffers to a writer thread, so the interpreter keeps running while the previous buffer is being
+ * written. The interpreter only waits when every buffer is queued for writing, or on flush. Whatever the writer
+ * thread fails with is thrown to the next write, flush or close.
+ */
+public class AsyncChannelSink extends BufferedSink {
+
+    private static final int BUFFER_COUNT = 3;
+    //Tells the writer thread to stop
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private static final long WAIT_MILLIS = 100;
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(BUFFER_COUNT + 1);
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final Thread writer;
+
+    //guarded by this
+    private long submitted;
+    private long written;
+    private Throwable failure;
+
+    public AsyncChannelSink(WritableByteChannel channel) {
+        this(channel, BufferedSink.DEFAULT_BUFFER_SIZE);
+    }
+
+    public AsyncChannelSink(WritableByteChannel channel, int bufferSize) {
+        this(channel, bufferSize, true);
+    }
+
+    private AsyncChannelSink(WritableByteChannel channel, int bufferSize, boolean closeChannel) {
+        super(ByteBuffer.allocateDirect(bufferSize));
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        for (int i = 1; i < BUFFER_COUNT; i++) {
+            free.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+        writer = new Thread(this::writeLoop, "slang-output-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * A sink on the channel of stdout. Closing it only flushes, stdout stays open for System.out and the JVM.
+     */
+    public static AsyncChannelSink stdout() {
+        return new AsyncChannelSink(new FileOutputStream(FileDescriptor.out).getChannel(),
+                BufferedSink.DEFAULT_BUFFER_SIZE, false);
+    }
+
+    @Override
+    protected ByteBuffer write(ByteBuffer buffer) {
+        synchronized (this) {
+            checkFailure();
+            submitted++;
+        }
+        try {
+            filled.put(buffer);
+            ByteBuffer next;
+            //Polled, the writer thread may have died holding the buffers
+            while (null == (next = free.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS))) {
+                synchronized (this) {
+                    checkFailure();
+                }
+            }
+            return next;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing output", e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        synchronized (this) {
+            while (written < submitted && null == failure) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while flushing output", e);
+                }
+            }
+            checkFailure();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            filled.add(END);
+            try {
+                writer.join();
+                if (closeChannel) {
+                    channel.close();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to close output", e);
+            }
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                ByteBuffer buffer = filled.take();
+                if (END == buffer) {
+                    return;
+                }
+                try {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } catch (Throwable e) {
+                    //Keep handing the buffers back, a writer waiting for one then sees the failure
+                    fail(e);
+                }
+                buffer.clear();
+                free.put(buffer);
+                synchronized (this) {
+                    written++;
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private synchronized void fail(Throwable e) {
+        if (null == failure) {
+            failure = e;
+        }
+        notifyAll();
+    }
+
+    private void checkFailure() {
+        if (null != failure) {
+            throw new RuntimeException("Unable to write output", failure);
+        }
+    }
+}
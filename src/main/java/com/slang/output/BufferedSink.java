@@ -0,0 +1,147 @@
+package com.slang.output;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes everything printed as UTF-8 straight into a ByteBuffer, subclasses decide where a full buffer goes.
+ * Integers are written digit by digit and floating point numbers through a reused StringBuilder, so printing a
+ * number creates no String.
+ */
+public abstract class BufferedSink implements OutputSink {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] LONG_MIN_VALUE = String.valueOf(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    //Long.MIN_VALUE aside, a long is at most 19 digits and the sign
+    private static final int MAX_LONG_LENGTH = 20;
+
+    private final byte[] digits = new byte[MAX_LONG_LENGTH];
+    private final StringBuilder floatingPoint = new StringBuilder(32);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private ByteBuffer buffer;
+
+    protected BufferedSink(ByteBuffer buffer) {
+        if (buffer.capacity() < MAX_LONG_LENGTH) {
+            throw new RuntimeException("Output buffer too small : " + buffer.capacity());
+        }
+        this.buffer = buffer;
+    }
+
+    /**
+     * Writes out the given flipped buffer and returns the cleared buffer to fill next
+     */
+    protected abstract ByteBuffer write(ByteBuffer filled);
+
+    @Override
+    public void print(String value) {
+        print((CharSequence) value);
+    }
+
+    @Override
+    public void print(int value) {
+        print((long) value);
+    }
+
+    @Override
+    public void print(long value) {
+        if (Long.MIN_VALUE == value) {
+            put(LONG_MIN_VALUE);
+            return;
+        }
+        if (buffer.remaining() < MAX_LONG_LENGTH) {
+            drain();
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+    }
+
+    @Override
+    public void print(float value) {
+        floatingPoint.setLength(0);
+        floatingPoint.append(value);
+        print(floatingPoint);
+    }
+
+    @Override
+    public void print(double value) {
+        floatingPoint.setLength(0);
+        floatingPoint.append(value);
+        print(floatingPoint);
+    }
+
+    @Override
+    public void print(boolean value) {
+        put(value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void newLine() {
+        put(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.position() > 0) {
+            drain();
+        }
+    }
+
+    private void print(CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                encode(value, i);
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    //Slow path for anything beyond ASCII
+    private void encode(CharSequence value, int from) {
+        CharBuffer chars = CharBuffer.wrap(value, from, value.length());
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true).isOverflow()) {
+            drain();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+    }
+
+    private void put(byte[] bytes) {
+        if (buffer.remaining() < bytes.length) {
+            drain();
+        }
+        buffer.put(bytes);
+    }
+
+    private void drain() {
+        buffer.flip();
+        buffer = write(buffer);
+    }
+}
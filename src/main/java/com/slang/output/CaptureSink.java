@@ -0,0 +1,46 @@
+package com.slang.output;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps everything printed in memory, for tests and embedders which want the output of a program as a String.
+ */
+public class CaptureSink extends BufferedSink {
+
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    public CaptureSink() {
+        this(4 * 1024);
+    }
+
+    public CaptureSink(int bufferSize) {
+        super(ByteBuffer.allocate(bufferSize));
+    }
+
+    @Override
+    protected ByteBuffer write(ByteBuffer filled) {
+        captured.write(filled.array(), filled.arrayOffset() + filled.position(), filled.remaining());
+        filled.clear();
+        return filled;
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Everything printed so far
+     */
+    public String getOutput() {
+        flush();
+        return new String(captured.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    public void reset() {
+        flush();
+        captured.reset();
+    }
+}
@@ -0,0 +1,65 @@
+package com.slang.output;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes to a channel, e.g. the FileChannel of stdout, only when the buffer is full or on flush, so a program
+ * printing many small lines costs a write call per buffer instead of one per statement. Whatever is still
+ * buffered is lost unless the sink is flushed or closed before exit.
+ */
+public class ChannelSink extends BufferedSink {
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+
+    public ChannelSink(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ChannelSink(WritableByteChannel channel, int bufferSize) {
+        this(channel, bufferSize, true);
+    }
+
+    private ChannelSink(WritableByteChannel channel, int bufferSize, boolean closeChannel) {
+        super(ByteBuffer.allocateDirect(bufferSize));
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+    }
+
+    /**
+     * A sink on the channel of stdout. Closing it only flushes, stdout stays open for System.out and the JVM.
+     */
+    public static ChannelSink stdout() {
+        return new ChannelSink(new FileOutputStream(FileDescriptor.out).getChannel(), DEFAULT_BUFFER_SIZE, false);
+    }
+
+    @Override
+    protected ByteBuffer write(ByteBuffer filled) {
+        try {
+            while (filled.hasRemaining()) {
+                channel.write(filled);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write output", e);
+        }
+        filled.clear();
+        return filled;
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (!closeChannel) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to close output", e);
+        }
+    }
+}
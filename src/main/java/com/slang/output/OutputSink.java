@@ -0,0 +1,32 @@
+package com.slang.output;
+
+/**
+ * Where the print and println statements of a program write to. Implementations need not be thread safe, an
+ * interpreter run owns its sink.
+ */
+public interface OutputSink {
+
+    void print(String value);
+
+    void print(int value);
+
+    void print(long value);
+
+    void print(float value);
+
+    void print(double value);
+
+    void print(boolean value);
+
+    void newLine();
+
+    /**
+     * Writes out everything printed so far
+     */
+    void flush();
+
+    /**
+     * Flushes and releases the sink, nothing can be printed after this
+     */
+    void close();
+}
@@ -0,0 +1,53 @@
+package com.slang.output;
+
+/**
+ * Prints straight to whatever System.out is at the time of the call. This is the unbuffered default of the
+ * interpreter.
+ */
+public class SystemOutSink implements OutputSink {
+
+    @Override
+    public void print(String value) {
+        System.out.print(value);
+    }
+
+    @Override
+    public void print(int value) {
+        System.out.print(value);
+    }
+
+    @Override
+    public void print(long value) {
+        System.out.print(value);
+    }
+
+    @Override
+    public void print(float value) {
+        System.out.print(value);
+    }
+
+    @Override
+    public void print(double value) {
+        System.out.print(value);
+    }
+
+    @Override
+    public void print(boolean value) {
+        System.out.print(value);
+    }
+
+    @Override
+    public void newLine() {
+        System.out.println();
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,79 @@
+package com.slang.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Supplier;
+
+/**
+ * Prints to a character stream, e.g. the writer of a javax.script context. The writer is looked up on every
+ * print, so the sink follows a writer which is replaced while it is in use.
+ */
+public class WriterSink implements OutputSink {
+
+    private final Supplier<Writer> writer;
+
+    public WriterSink(Writer writer) {
+        this(() -> writer);
+    }
+
+    public WriterSink(Supplier<Writer> writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void print(String value) {
+        write(value);
+    }
+
+    @Override
+    public void print(int value) {
+        write(String.valueOf(value));
+    }
+
+    @Override
+    public void print(long value) {
+        write(String.valueOf(value));
+    }
+
+    @Override
+    public void print(float value) {
+        write(String.valueOf(value));
+    }
+
+    @Override
+    public void print(double value) {
+        write(String.valueOf(value));
+    }
+
+    @Override
+    public void print(boolean value) {
+        write(String.valueOf(value));
+    }
+
+    @Override
+    public void newLine() {
+        write(System.lineSeparator());
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.get().flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to flush output", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void write(String value) {
+        try {
+            writer.get().write(value);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write output", e);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.slang.parser;
 
 import com.slang.Type;
-import com.slang.TypeCategory;
+import com.slang.TypeTable;
 import com.slang.ast.*;
+import com.slang.ast.Module;
 import com.slang.lexer.Lexer;
 
 import java.util.*;
@@ -91,25 +92,12 @@ public class Parser {
         if (Type.VOID != returnType && !foundReturn) {
             throw new RuntimeException("Return getType expected");
         } else if (Type.VOID == returnType && !foundReturn) {
-            functionBody.add(new ReturnStatement(new VoidExpression()));
+            functionBody.add(voidReturn());
         }
         lexer.expect(Token.END);
 
-        //Build lambda getType information
-        StringBuilder sb = new StringBuilder();
-        sb.append("(");
-        int i = 0;
-        int formalArgSize = formalArguments.entrySet().size();
-        for(Map.Entry<String, Type> formalArgEntry : formalArguments.entrySet()) {
-            sb.append(formalArgEntry.getValue().getTypeName());
-            if(i++ != formalArgSize -1) {
-                sb.append(",");
-            }
-        }
-        sb.append(")->");
-        sb.append(returnType.getTypeName());
         Function function = new Function(name, returnType, formalArguments, functionBody,
-                new Type(sb.toString(), TypeCategory.FUNCTION, fnFormalParamTypes, returnType));
+                TypeTable.functionType(fnFormalParamTypes, returnType));
         lexer.eat();
         return function;
 
@@ -134,38 +122,37 @@ public class Parser {
         }
 
         if (lexer.getCurrentToken() == Token.OPAR) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("(");
             lexer.eat();
             List<Type> fnFormalParamTypes = new ArrayList<>();
             while(lexer.getCurrentToken() != Token.CPAR) {
                 Type type  = parseType();
                 fnFormalParamTypes.add(type);
-                sb.append(type.getTypeName());
                 lexer.eat();
                 if (lexer.getCurrentToken() != Token.COMMA) {
                     break;
                 }
-                sb.append(",");
                 lexer.eat();
             }
             lexer.expect(Token.CPAR);
-            sb.append(")");
             lexer.eat();
             lexer.expect(Token.SUB);
-            sb.append("-");
             lexer.eat();
             lexer.expect(Token.GT);
-            sb.append(">");
             lexer.eat();
             Type lambdaReturnType = parseType();
-            sb.append(lambdaReturnType.getTypeName());
-            return new Type(sb.toString(), TypeCategory.FUNCTION, fnFormalParamTypes, lambdaReturnType);
+            return TypeTable.functionType(fnFormalParamTypes, lambdaReturnType);
         } else {
             throw new RuntimeException("Return getType cannot be " + lexer.getCurrentToken());
         }
     }
 
+    //The implicit return of a void function or lambda, at the line of its end
+    private Statement voidReturn() {
+        Statement statement = new ReturnStatement(new VoidExpression());
+        statement.setLine(lexer.getLine());
+        return statement;
+    }
+
     public List<Statement> parseStatements() {
         Token token = null;
         List<Statement> statements = new ArrayList<>();
@@ -182,6 +169,13 @@ public class Parser {
         if (null == lexer.getPreviousToken()) {
             lexer.eat();
         }
+        int line = lexer.getLine();
+        Statement statement = parseStatementAt();
+        statement.setLine(line);
+        return statement;
+    }
+
+    private Statement parseStatementAt() {
         Token token = lexer.getCurrentToken();
 
         //TODO accept function invocation statement with print
@@ -328,26 +322,12 @@ public class Parser {
         if (Type.VOID != returnType && !foundReturn) {
             throw new RuntimeException("Return getType expected");
         } else if (Type.VOID == returnType && !foundReturn) {
-            functionBody.add(new ReturnStatement(new VoidExpression()));
+            functionBody.add(voidReturn());
         }
         lexer.expect(Token.ENDLAMBDA);
 
-        //Build lambda getType information
-        StringBuilder sb = new StringBuilder();
-        sb.append("(");
-        int i = 0;
-        int formalArgSize = formalArguments.entrySet().size();
-        for(Map.Entry<String, Type> formalArgEntry : formalArguments.entrySet()) {
-            sb.append(formalArgEntry.getValue().getTypeName());
-            if(i++ != formalArgSize -1) {
-                sb.append(",");
-            }
-        }
-        sb.append(")->");
-        sb.append(returnType.getTypeName());
-
         Function function = new Function("lambda$"+ (++lambdaCount), returnType, formalArguments,
-                functionBody, new Type(sb.toString(), TypeCategory.FUNCTION, fnFormalParamTypes, returnType));
+                functionBody, TypeTable.functionType(fnFormalParamTypes, returnType));
         lexer.eat();
         return new LambdaExpression(function);
 
@@ -0,0 +1,157 @@
+package com.slang.profiler;
+
+import com.slang.ast.Expression;
+import com.slang.ast.Module;
+import com.slang.ast.Statement;
+import com.slang.visitor.AllocationTracker;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The SymbolInfos and LexicalContexts (frames) the interpreter created in the runs of a module, per statement or
+ * expression and per source line, to find the lines which make the garbage. An allocation counts against the
+ * innermost node being evaluated, the frame of a call against the call expression, the frame of a loop iteration
+ * against the while and the result of an arithmetic expression against the expression. Slot 0 counts the
+ * allocations outside of the module's nodes, e.g. the frame of main.
+ *
+ * The nodes are numbered like for {@link ExecutionCounts}, the counters aren't atomic either. Only the allocations
+ * of runs inside {@link #newTracker()} are counted, every other run pays a read of a static field per allocation.
+ */
+public final class AllocationProfile {
+
+    private final Module module;
+    private final int[] lines;
+    private final long[] symbolInfos;
+    private final long[] frames;
+
+    public AllocationProfile(Module module) {
+        this.module = module;
+        NodeNumbering numbering = new NodeNumbering(module);
+        lines = numbering.lines;
+        symbolInfos = new long[lines.length];
+        frames = new long[lines.length];
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    /**
+     * A tracker counting into this profile, for {@link com.slang.visitor.AllocationInterpreter}s
+     */
+    public AllocationTracker newTracker() {
+        return new AllocationTracker(symbolInfos, frames);
+    }
+
+    public long getSymbolInfos(Statement statement) {
+        return symbolInfos[statement.getId()];
+    }
+
+    public long getSymbolInfos(Expression expression) {
+        return symbolInfos[expression.getId()];
+    }
+
+    public long getFrames(Statement statement) {
+        return frames[statement.getId()];
+    }
+
+    public long getFrames(Expression expression) {
+        return frames[expression.getId()];
+    }
+
+    public long getTotalSymbolInfos() {
+        return Arrays.stream(symbolInfos).sum();
+    }
+
+    public long getTotalFrames() {
+        return Arrays.stream(frames).sum();
+    }
+
+    /**
+     * Allocations of every line which allocated, in line order
+     */
+    public List<Line> getLines() {
+        Map<Integer, Line> byLine = new TreeMap<>();
+        for (int id = 1; id < lines.length; id++) {
+            if (lines[id] > 0 && (0 != symbolInfos[id] || 0 != frames[id])) {
+                Line line = byLine.computeIfAbsent(lines[id], Line::new);
+                line.symbolInfos += symbolInfos[id];
+                line.frames += frames[id];
+            }
+        }
+        return new ArrayList<>(byLine.values());
+    }
+
+    /**
+     * The limit lines which allocated the most
+     */
+    public List<Line> getTopLines(int limit) {
+        List<Line> top = getLines();
+        top.sort(Comparator.comparingLong(Line::getTotal).reversed().thenComparingInt(Line::getLine));
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    public void reset() {
+        Arrays.fill(symbolInfos, 0);
+        Arrays.fill(frames, 0);
+    }
+
+    /**
+     * Prints the limit lines which allocated the most, with their source when it's given, and the totals
+     */
+    public void print(PrintStream out, String source, int limit) {
+        String[] sourceLines = null == source ? new String[0] : source.split("\r?\n");
+        out.printf("%12s %12s %6s  %s%n", "SymbolInfos", "Frames", "Line", "Source");
+        for (Line line : getTopLines(limit)) {
+            out.printf("%12d %12d %6d  %s%n", line.symbolInfos, line.frames, line.line,
+                    line.line <= sourceLines.length ? sourceLines[line.line - 1].trim() : "");
+        }
+        long totalSymbolInfos = getTotalSymbolInfos();
+        long totalFrames = getTotalFrames();
+        long lineSymbolInfos = 0;
+        long lineFrames = 0;
+        for (Line line : getLines()) {
+            lineSymbolInfos += line.symbolInfos;
+            lineFrames += line.frames;
+        }
+        out.printf("%d SymbolInfos and %d frames, %d and %d outside of the source lines%n", totalSymbolInfos,
+                totalFrames, totalSymbolInfos - lineSymbolInfos, totalFrames - lineFrames);
+    }
+
+    public static final class Line {
+        private final int line;
+        private long symbolInfos;
+        private long frames;
+
+        private Line(int line) {
+            this.line = line;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public long getSymbolInfos() {
+            return symbolInfos;
+        }
+
+        public long getFrames() {
+            return frames;
+        }
+
+        public long getTotal() {
+            return symbolInfos + frames;
+        }
+
+        @Override
+        public String toString() {
+            return line + ": " + symbolInfos + " SymbolInfos, " + frames + " frames";
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.slang.profiler;
+
+import com.slang.ast.Expression;
+import com.slang.ast.Module;
+import com.slang.ast.Statement;
+import com.slang.visitor.IVisitable;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * How often every statement ran and every expression was evaluated in the runs of a module, also as execution counts
+ * per source line which double as a coverage report. Every statement and expression gets a compact id, its place in
+ * a walk of the module, and the {@link com.slang.visitor.CountingInterpreter} increments the long[] counter at that
+ * id, without maps or boxing. Slot 0 counts the nodes the interpreter makes up itself, e.g. the call of main.
+ *
+ * The ids are given once when the module is compiled, see {@link NodeNumbering}, so several counts of one module can
+ * be taken at a time. The counters aren't atomic, concurrent runs into the same counts can lose increments.
+ */
+public final class ExecutionCounts {
+
+    private final Module module;
+    private final IVisitable[] nodes;
+    //Source line of every node, the line of the statement an expression is part of
+    private final int[] lines;
+    private final SortedSet<Integer> statementLines;
+    private final long[] counters;
+
+    public ExecutionCounts(Module module) {
+        this.module = module;
+        NodeNumbering numbering = new NodeNumbering(module);
+        nodes = numbering.nodes;
+        lines = numbering.lines;
+        statementLines = numbering.statementLines();
+        counters = new long[nodes.length];
+    }
+
+    public Module getModule() {
+        return module;
+    }
+
+    /**
+     * The counters by node id, which the interpreter increments
+     */
+    public long[] getCounters() {
+        return counters;
+    }
+
+    public long getCount(Statement statement) {
+        return counters[statement.getId()];
+    }
+
+    public long getCount(Expression expression) {
+        return counters[expression.getId()];
+    }
+
+    /**
+     * Execution count of every line with a statement, the most any statement or expression on the line ran
+     */
+    public SortedMap<Integer, Long> getLineCounts() {
+        SortedMap<Integer, Long> lineCounts = new TreeMap<>();
+        for (int line : statementLines) {
+            lineCounts.put(line, 0L);
+        }
+        for (int id = 1; id < nodes.length; id++) {
+            if (lineCounts.containsKey(lines[id])) {
+                lineCounts.merge(lines[id], counters[id], Math::max);
+            }
+        }
+        return lineCounts;
+    }
+
+    /**
+     * The lines with a statement which never ran
+     */
+    public Set<Integer> getUncoveredLines() {
+        Set<Integer> uncovered = new TreeSet<>();
+        for (Map.Entry<Integer, Long> line : getLineCounts().entrySet()) {
+            if (0 == line.getValue()) {
+                uncovered.add(line.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(uncovered);
+    }
+
+    public void reset() {
+        Arrays.fill(counters, 0);
+    }
+
+    /**
+     * Prints the source with the execution count of every line in front, ##### for lines which never ran and - for
+     * lines without a statement, and the share of covered lines. Without the source only the lines with a count
+     * are printed.
+     */
+    public void print(PrintStream out, String source) {
+        SortedMap<Integer, Long> lineCounts = getLineCounts();
+        if (null == source) {
+            for (Map.Entry<Integer, Long> line : lineCounts.entrySet()) {
+                out.printf("%12s: %5d%n", count(line.getValue()), line.getKey());
+            }
+        } else {
+            String[] sourceLines = source.split("\r?\n");
+            for (int i = 0; i < sourceLines.length; i++) {
+                Long count = lineCounts.get(i + 1);
+                out.printf("%12s: %5d: %s%n", null == count ? "-" : count(count), i + 1, sourceLines[i]);
+            }
+        }
+        int covered = lineCounts.size() - getUncoveredLines().size();
+        out.printf("%d of %d lines covered (%.1f%%)%n", covered, lineCounts.size(),
+                lineCounts.isEmpty() ? 100.0 : 100.0 * covered / lineCounts.size());
+    }
+
+    private static String count(long count) {
+        return 0 == count ? "#####" : Long.toString(count);
+    }
+}
@@ -0,0 +1,253 @@
+package com.slang.profiler;
+
+import com.slang.ast.Function;
+import com.slang.ast.Statement;
+import com.slang.visitor.InvocationListener;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Instrumenting profiler of Slang functions and lambdas: call counts, self and total time and the bytes allocated
+ * while a function runs, its callees included. Every thread builds its own call tree, so the Slang call stack of
+ * each sample is kept and can be written in the collapsed stack format of flame graph tools.
+ *
+ * Pass it to {@link com.slang.CompiledModule#run(com.slang.output.OutputSink, InvocationListener)}, read the
+ * results once the runs have finished. Allocation is -1 when the JVM can't measure it per thread.
+ */
+public class FunctionProfiler implements InvocationListener {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final List<ThreadProfile> profiles = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ThreadProfile> profile = ThreadLocal.withInitial(() -> {
+        ThreadProfile threadProfile = new ThreadProfile();
+        profiles.add(threadProfile);
+        return threadProfile;
+    });
+
+    /**
+     * A function of a call path, a node of the call tree
+     */
+    private static final class Node {
+        private final String name;
+        private final Node parent;
+        private final Map<String, Node> children = new HashMap<>();
+        private long calls;
+        private long selfNanos;
+        private long totalNanos;
+        private long allocatedBytes;
+
+        private Node(String name, Node parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        private Node child(String name) {
+            Node child = children.get(name);
+            if (null == child) {
+                child = new Node(name, this);
+                children.put(name, child);
+            }
+            return child;
+        }
+    }
+
+    private static final class Frame {
+        private Node node;
+        private long begin;
+        private long allocated;
+        private long childNanos;
+    }
+
+    private static final class ThreadProfile {
+        private final Node root = new Node(null, null);
+        private final long threadId = Thread.currentThread().getId();
+        //frames are reused, so the profiler itself only allocates for new call paths
+        private Frame[] stack = new Frame[64];
+        private int depth;
+
+        private void enter(String name) {
+            if (depth == stack.length) {
+                Frame[] grown = new Frame[2 * depth];
+                System.arraycopy(stack, 0, grown, 0, depth);
+                stack = grown;
+            }
+            Frame frame = stack[depth];
+            if (null == frame) {
+                frame = stack[depth] = new Frame();
+            }
+            frame.node = (0 == depth ? root : stack[depth - 1].node).child(name);
+            frame.childNanos = 0;
+            frame.allocated = allocatedBytes(threadId);
+            depth++;
+            frame.begin = System.nanoTime();
+        }
+
+        private void exit() {
+            long end = System.nanoTime();
+            Frame frame = stack[--depth];
+            long nanos = end - frame.begin;
+            Node node = frame.node;
+            node.calls++;
+            node.totalNanos += nanos;
+            node.selfNanos += nanos - frame.childNanos;
+            node.allocatedBytes = frame.allocated < 0 ? -1 : node.allocatedBytes + allocatedBytes(threadId) - frame.allocated;
+            if (depth > 0) {
+                stack[depth - 1].childNanos += nanos;
+            }
+        }
+    }
+
+    @Override
+    public void enter(Function function) {
+        profile.get().enter(function.getName());
+    }
+
+    @Override
+    public void exit(Function function) {
+        profile.get().exit();
+    }
+
+    @Override
+    public void statement(Statement statement) {
+    }
+
+    @Override
+    public void aborted() {
+        //the invocations still running end with the exception
+        ThreadProfile threadProfile = profile.get();
+        while (threadProfile.depth > 0) {
+            threadProfile.exit();
+        }
+    }
+
+    private static long allocatedBytes(long threadId) {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Totals of a function over all its call paths and threads. The total time and allocation of a recursive
+     * function only count its outermost invocations.
+     */
+    public static final class FunctionProfile {
+        private final String name;
+        private long calls;
+        private long selfNanos;
+        private long totalNanos;
+        private long allocatedBytes;
+
+        private FunctionProfile(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    /**
+     * The profiled functions, the most self time first
+     */
+    public List<FunctionProfile> getFunctions() {
+        Map<String, FunctionProfile> functions = new LinkedHashMap<>();
+        for (ThreadProfile threadProfile : profiles) {
+            summarize(threadProfile.root, functions);
+        }
+        List<FunctionProfile> sorted = new ArrayList<>(functions.values());
+        sorted.sort((a, b) -> Long.compare(b.selfNanos, a.selfNanos));
+        return sorted;
+    }
+
+    private static void summarize(Node node, Map<String, FunctionProfile> functions) {
+        for (Node child : node.children.values()) {
+            FunctionProfile function = functions.computeIfAbsent(child.name, FunctionProfile::new);
+            function.calls += child.calls;
+            function.selfNanos += child.selfNanos;
+            if (!isRecursive(child)) {
+                function.totalNanos += child.totalNanos;
+                function.allocatedBytes = function.allocatedBytes < 0 || child.allocatedBytes < 0
+                        ? -1 : function.allocatedBytes + child.allocatedBytes;
+            }
+            summarize(child, functions);
+        }
+    }
+
+    private static boolean isRecursive(Node node) {
+        for (Node caller = node.parent; null != caller.name; caller = caller.parent) {
+            if (caller.name.equals(node.name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void printReport(PrintStream out, int limit) {
+        List<FunctionProfile> functions = getFunctions();
+        int width = "function".length();
+        for (FunctionProfile function : functions) {
+            width = Math.max(width, function.name.length());
+        }
+        String format = "%-" + width + "s %10s %12s %12s %15s%n";
+        out.printf(format, "function", "calls", "self ms", "total ms", "allocated KB");
+        for (FunctionProfile function : functions.subList(0, Math.min(limit, functions.size()))) {
+            out.printf(format, function.name, function.calls, String.format("%.3f", function.selfNanos / 1e6),
+                    String.format("%.3f", function.totalNanos / 1e6),
+                    function.allocatedBytes < 0 ? "n/a" : String.format("%.1f", function.allocatedBytes / 1024.0));
+        }
+    }
+
+    /**
+     * One line per call path, the functions from the outermost separated by ; and the self time in nanoseconds,
+     * the input of flamegraph.pl and similar tools
+     */
+    public void writeCollapsed(PrintStream out) {
+        Map<String, Long> stacks = new TreeMap<>();
+        for (ThreadProfile threadProfile : profiles) {
+            collapse(threadProfile.root, "", stacks);
+        }
+        for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+            out.println(stack.getKey() + " " + stack.getValue());
+        }
+    }
+
+    private static void collapse(Node node, String path, Map<String, Long> stacks) {
+        for (Node child : node.children.values()) {
+            String childPath = path.isEmpty() ? child.name : path + ";" + child.name;
+            if (child.selfNanos > 0) {
+                stacks.merge(childPath, child.selfNanos, Long::sum);
+            }
+            collapse(child, childPath, stacks);
+        }
+    }
+}
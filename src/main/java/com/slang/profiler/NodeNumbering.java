@@ -0,0 +1,109 @@
+package com.slang.profiler;
+
+import com.slang.ast.Expression;
+import com.slang.ast.Module;
+import com.slang.ast.Statement;
+import com.slang.visitor.Context;
+import com.slang.visitor.IVisitable;
+import com.slang.visitor.TreeWalker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Gives every statement and expression of a module a compact id, its place in a walk of the module, for the
+ * profilers which count into a long[] at the id. Id 0 is left for the nodes the interpreter makes up itself, e.g.
+ * the call of main.
+ *
+ * The ids are written into the nodes once by {@link #number(Module)}, when the module is compiled and before any
+ * thread runs it. The profilers only read them, so they can be created while other threads run the module.
+ */
+public final class NodeNumbering {
+
+    final IVisitable[] nodes;
+    //Source line of every node, the line of the statement an expression is part of
+    final int[] lines;
+
+    NodeNumbering(Module module) {
+        List<IVisitable> found = new ArrayList<>();
+        List<Integer> foundLines = new ArrayList<>();
+        int[] maxId = {0};
+        walk(module, (node, line) -> {
+            int id = getId(node);
+            if (0 == id) {
+                throw new RuntimeException("The nodes of the module aren't numbered");
+            }
+            found.add(node);
+            foundLines.add(line);
+            maxId[0] = Math.max(maxId[0], id);
+        });
+
+        nodes = new IVisitable[maxId[0] + 1];
+        lines = new int[nodes.length];
+        for (int i = 0; i < found.size(); i++) {
+            int id = getId(found.get(i));
+            nodes[id] = found.get(i);
+            lines[id] = foundLines.get(i);
+        }
+    }
+
+    /**
+     * Numbers the nodes of a module, before it is shared with other threads
+     */
+    public static void number(Module module) {
+        Set<IVisitable> numbered = Collections.newSetFromMap(new IdentityHashMap<>());
+        walk(module, (node, line) -> {
+            //Bodies shared by inlined calls are numbered once
+            if (numbered.add(node)) {
+                if (node instanceof Statement) {
+                    ((Statement) node).setId(numbered.size());
+                } else {
+                    ((Expression) node).setId(numbered.size());
+                }
+            }
+        });
+    }
+
+    private interface NodeVisitor {
+        void visit(IVisitable node, int line);
+    }
+
+    //Visits every statement and expression with the source line of its statement
+    private static void walk(Module module, NodeVisitor visitor) {
+        module.accept(new TreeWalker() {
+            private int line;
+
+            @Override
+            protected void visitNode(IVisitable node, Context context) {
+                if (node instanceof Statement && ((Statement) node).getLine() > 0) {
+                    line = ((Statement) node).getLine();
+                }
+                if (node instanceof Statement || node instanceof Expression) {
+                    visitor.visit(node, line);
+                }
+            }
+        }, null);
+    }
+
+    static int getId(IVisitable node) {
+        return node instanceof Statement ? ((Statement) node).getId() : ((Expression) node).getId();
+    }
+
+    /**
+     * The lines with a statement
+     */
+    SortedSet<Integer> statementLines() {
+        SortedSet<Integer> statementLines = new TreeSet<>();
+        for (int id = 1; id < nodes.length; id++) {
+            if (nodes[id] instanceof Statement && lines[id] > 0) {
+                statementLines.add(lines[id]);
+            }
+        }
+        return statementLines;
+    }
+}
@@ -0,0 +1,254 @@
+package com.slang.profiler;
+
+import com.slang.ast.Function;
+import com.slang.ast.Statement;
+import com.slang.visitor.InvocationListener;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampling profiler of Slang code, cheap enough to stay on in production. As an {@link InvocationListener} it keeps
+ * a shadow stack per thread, the function of every running invocation and the statement it is running, which costs
+ * a couple of array stores per call and one per statement. A daemon thread reads every shadow stack at a fixed
+ * interval and counts the function on top, the functions anywhere on the stack, the line of the running statement
+ * and the whole stack.
+ *
+ * The stacks are read without locking, so a sample taken while a call is entered or left can be off by a frame.
+ * {@link #report()} has the counts since the start, {@link #drain()} those since the last drain, e.g. per minute.
+ */
+public class SamplingProfiler implements InvocationListener, AutoCloseable {
+
+    private static final class ShadowStack {
+        private final Thread thread = Thread.currentThread();
+        private Function[] functions = new Function[64];
+        private Statement[] statements = new Statement[64];
+        //written last on enter and exit, so the sampler sees the frames below it
+        private volatile int depth;
+
+        private void grow() {
+            Function[] grownFunctions = new Function[2 * functions.length];
+            Statement[] grownStatements = new Statement[2 * statements.length];
+            System.arraycopy(functions, 0, grownFunctions, 0, functions.length);
+            System.arraycopy(statements, 0, grownStatements, 0, statements.length);
+            functions = grownFunctions;
+            statements = grownStatements;
+        }
+    }
+
+    private final List<ShadowStack> stacks = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ShadowStack> stack = ThreadLocal.withInitial(() -> {
+        ShadowStack shadowStack = new ShadowStack();
+        stacks.add(shadowStack);
+        return shadowStack;
+    });
+    private final long intervalNanos;
+    private final Thread sampler;
+    private volatile boolean running = true;
+    private Report report = new Report();
+
+    /**
+     * Starts sampling every interval microseconds
+     */
+    public SamplingProfiler(long intervalMicros) {
+        this.intervalNanos = TimeUnit.MICROSECONDS.toNanos(intervalMicros);
+        sampler = new Thread(this::sample, "slang-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    @Override
+    public void enter(Function function) {
+        ShadowStack shadowStack = stack.get();
+        int depth = shadowStack.depth;
+        if (depth == shadowStack.functions.length) {
+            shadowStack.grow();
+        }
+        shadowStack.functions[depth] = function;
+        shadowStack.statements[depth] = null;
+        shadowStack.depth = depth + 1;
+    }
+
+    @Override
+    public void exit(Function function) {
+        ShadowStack shadowStack = stack.get();
+        shadowStack.depth = shadowStack.depth - 1;
+    }
+
+    @Override
+    public void statement(Statement statement) {
+        ShadowStack shadowStack = stack.get();
+        shadowStack.statements[shadowStack.depth - 1] = statement;
+    }
+
+    @Override
+    public void aborted() {
+        stack.get().depth = 0;
+    }
+
+    private void sample() {
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            for (ShadowStack shadowStack : stacks) {
+                if (!shadowStack.thread.isAlive()) {
+                    stacks.remove(shadowStack);
+                    continue;
+                }
+                int depth = shadowStack.depth;
+                Function[] functions = shadowStack.functions;
+                Statement[] statements = shadowStack.statements;
+                depth = Math.min(depth, functions.length);
+                if (depth > 0 && null != functions[depth - 1]) {
+                    record(functions, depth, statements[depth - 1]);
+                }
+            }
+        }
+    }
+
+    private synchronized void record(Function[] functions, int depth, Statement statement) {
+        Function top = functions[depth - 1];
+        report.samples++;
+        report.self.merge(top.getName(), 1L, Long::sum);
+        if (null != statement && statement.getLine() > 0) {
+            report.lines.merge(statement.getLine(), 1L, Long::sum);
+            report.lineFunctions.put(statement.getLine(), top.getName());
+        }
+
+        Set<String> onStack = new HashSet<>();
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            Function function = functions[i];
+            String name = null == function ? "?" : function.getName();
+            if (onStack.add(name)) {
+                report.total.merge(name, 1L, Long::sum);
+            }
+            path.append(0 == i ? "" : ";").append(name);
+        }
+        report.stacks.merge(path.toString(), 1L, Long::sum);
+    }
+
+    /**
+     * The samples since the start or the last {@link #drain()}
+     */
+    public synchronized Report report() {
+        return report.copy();
+    }
+
+    /**
+     * The samples since the start or the last drain, and starts counting anew
+     */
+    public synchronized Report drain() {
+        Report drained = report;
+        report = new Report();
+        return drained;
+    }
+
+    /**
+     * Stops sampling, the report stays available
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(sampler);
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static final class Report {
+        private long samples;
+        private final Map<String, Long> self = new HashMap<>();
+        private final Map<String, Long> total = new HashMap<>();
+        private final Map<Integer, Long> lines = new HashMap<>();
+        private final Map<Integer, String> lineFunctions = new HashMap<>();
+        private final Map<String, Long> stacks = new TreeMap<>();
+
+        private Report copy() {
+            Report copy = new Report();
+            copy.samples = samples;
+            copy.self.putAll(self);
+            copy.total.putAll(total);
+            copy.lines.putAll(lines);
+            copy.lineFunctions.putAll(lineFunctions);
+            copy.stacks.putAll(stacks);
+            return copy;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        /**
+         * Samples with the function on top of the stack, by function name
+         */
+        public Map<String, Long> getSelf() {
+            return Collections.unmodifiableMap(self);
+        }
+
+        /**
+         * Samples with the function anywhere on the stack, by function name
+         */
+        public Map<String, Long> getTotal() {
+            return Collections.unmodifiableMap(total);
+        }
+
+        /**
+         * Samples by the source line of the running statement
+         */
+        public Map<Integer, Long> getLines() {
+            return Collections.unmodifiableMap(lines);
+        }
+
+        public void print(PrintStream out, int limit) {
+            out.println(samples + " samples");
+            int width = "function".length();
+            for (String name : total.keySet()) {
+                width = Math.max(width, name.length());
+            }
+            String format = "%-" + width + "s %10s %7s %10s %7s%n";
+            out.printf(format, "function", "self", "%", "total", "%");
+            for (Map.Entry<String, Long> function : top(self, limit)) {
+                long functionTotal = total.getOrDefault(function.getKey(), 0L);
+                out.printf(format, function.getKey(), function.getValue(), percent(function.getValue()),
+                        functionTotal, percent(functionTotal));
+            }
+
+            out.printf("%n%6s %10s %7s  %s%n", "line", "samples", "%", "function");
+            for (Map.Entry<Integer, Long> line : top(lines, limit)) {
+                out.printf("%6d %10d %7s  %s%n", line.getKey(), line.getValue(), percent(line.getValue()),
+                        lineFunctions.get(line.getKey()));
+            }
+        }
+
+        /**
+         * One line per sampled stack, the functions from the outermost separated by ; and the number of samples
+         */
+        public void writeCollapsed(PrintStream out) {
+            for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+                out.println(stack.getKey() + " " + stack.getValue());
+            }
+        }
+
+        private String percent(long count) {
+            return String.format("%.1f", 0 == samples ? 0.0 : 100.0 * count / samples);
+        }
+
+        private static <K> List<Map.Entry<K, Long>> top(Map<K, Long> counts, int limit) {
+            List<Map.Entry<K, Long>> sorted = new ArrayList<>(counts.entrySet());
+            sorted.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            return sorted.subList(0, Math.min(limit, sorted.size()));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.slang.script;
+
+import com.slang.CompiledModule;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * A parsed, analysed and optimized script, evaluating it runs the main function again
+ */
+public class SlangCompiledScript extends CompiledScript {
+
+    private final SlangScriptEngine engine;
+    private final CompiledModule module;
+
+    SlangCompiledScript(SlangScriptEngine engine, CompiledModule module) {
+        this.engine = engine;
+        this.module = module;
+    }
+
+    @Override
+    public Object eval(ScriptContext context) throws ScriptException {
+        return engine.run(module, context);
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+
+    CompiledModule getModule() {
+        return module;
+    }
+}
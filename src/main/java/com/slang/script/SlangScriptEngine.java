@@ -0,0 +1,203 @@
+package com.slang.script;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.SourceHash;
+import com.slang.output.WriterSink;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * javax.script engine for Slang. Evaluating a script runs its main function, printing to the writer of the
+ * script context, and makes its functions available to {@link Invocable}. Slang has no global variables, so
+ * bindings are not visible to scripts.
+ *
+ * Compiled modules are kept in an LRU cache keyed by the SHA-256 of the source, so evaluating the same text
+ * again skips lexing, parsing and analysis.
+ */
+public class SlangScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
+
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final SlangScriptEngineFactory factory;
+    private final SlangEngine slangEngine;
+    private final Map<String, CompiledModule> cache;
+    //guarded by cache
+    private long compilations;
+    //Module of the last evaluated script, whose functions are invoked through Invocable
+    private volatile CompiledModule module;
+
+    public SlangScriptEngine(SlangScriptEngineFactory factory) {
+        this(factory, DEFAULT_CACHE_SIZE);
+    }
+
+    public SlangScriptEngine(SlangScriptEngineFactory factory, int cacheSize) {
+        this.factory = factory;
+        this.slangEngine = SlangEngine.builder()
+                .withOutput(new WriterSink(() -> getContext().getWriter()))
+                .build();
+        this.cache = new LinkedHashMap<String, CompiledModule>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledModule> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return run(compileModule(script), context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        return new SlangCompiledScript(this, compileModule(script));
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    @Override
+    public Object invokeFunction(String name, Object... args) throws ScriptException, NoSuchMethodException {
+        CompiledModule module = this.module;
+        if (null == module || !module.getFunctionNames().contains(name)) {
+            throw new NoSuchMethodException(name);
+        }
+        try {
+            return module.invoke(name, args);
+        } catch (RuntimeException e) {
+            throw scriptException(e);
+        } finally {
+            flush(getContext());
+        }
+    }
+
+    @Override
+    public Object invokeMethod(Object thiz, String name, Object... args) throws NoSuchMethodException {
+        throw new NoSuchMethodException("Slang has no objects, use invokeFunction for " + name);
+    }
+
+    @Override
+    public <T> T getInterface(Class<T> clasz) {
+        CompiledModule module = this.module;
+        if (null == module || !clasz.isInterface()) {
+            return null;
+        }
+        for (Method method : clasz.getMethods()) {
+            if (!module.getFunctionNames().contains(method.getName())) {
+                return null;
+            }
+        }
+        return clasz.cast(Proxy.newProxyInstance(clasz.getClassLoader(), new Class<?>[]{clasz},
+                (proxy, method, args) -> {
+                    if (Object.class == method.getDeclaringClass()) {
+                        return method.invoke(module, args);
+                    }
+                    return module.invoke(method.getName(), null == args ? new Object[0] : args);
+                }));
+    }
+
+    @Override
+    public <T> T getInterface(Object thiz, Class<T> clasz) {
+        throw new IllegalArgumentException("Slang has no objects");
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    Object run(CompiledModule module, ScriptContext context) throws ScriptException {
+        this.module = module;
+        try {
+            module.run(new WriterSink(context.getWriter()));
+        } catch (RuntimeException e) {
+            throw scriptException(e);
+        } finally {
+            flush(context);
+        }
+        return null;
+    }
+
+    long getCompilations() {
+        synchronized (cache) {
+            return compilations;
+        }
+    }
+
+    private CompiledModule compileModule(String script) throws ScriptException {
+        String key = SourceHash.sha256(script);
+        synchronized (cache) {
+            CompiledModule module = cache.get(key);
+            if (null != module) {
+                return module;
+            }
+        }
+
+        CompiledModule module;
+        try {
+            module = slangEngine.compile(script);
+        } catch (RuntimeException e) {
+            throw scriptException(e);
+        }
+        synchronized (cache) {
+            compilations++;
+            cache.put(key, module);
+        }
+        return module;
+    }
+
+    private static void flush(ScriptContext context) {
+        try {
+            context.getWriter().flush();
+        } catch (IOException e) {
+            //nothing more to do with the output
+        }
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[8192];
+        try {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+        return sb.toString();
+    }
+
+    private static ScriptException scriptException(RuntimeException e) {
+        ScriptException scriptException = new ScriptException(e.getMessage());
+        scriptException.initCause(e);
+        return scriptException;
+    }
+}
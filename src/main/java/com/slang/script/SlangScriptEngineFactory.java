@@ -0,0 +1,95 @@
+package com.slang.script;
+
+import com.slang.SlangEngine;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registers Slang with javax.script, so a host finds it with {@code new ScriptEngineManager().getEngineByName("slang")}
+ */
+public class SlangScriptEngineFactory implements ScriptEngineFactory {
+
+    private static final String NAME = "slang";
+    private static final String VERSION = SlangEngine.VERSION;
+
+    @Override
+    public String getEngineName() {
+        return "Slang";
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return Collections.singletonList("sl");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return Collections.singletonList("application/x-slang");
+    }
+
+    @Override
+    public List<String> getNames() {
+        return Arrays.asList(NAME, "Slang");
+    }
+
+    @Override
+    public String getLanguageName() {
+        return "Slang";
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        switch (key) {
+            case ScriptEngine.ENGINE:
+                return getEngineName();
+            case ScriptEngine.ENGINE_VERSION:
+                return getEngineVersion();
+            case ScriptEngine.NAME:
+                return NAME;
+            case ScriptEngine.LANGUAGE:
+                return getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION:
+                return getLanguageVersion();
+            case "THREADING":
+                //compiled modules can be run from several threads, see CompiledModule
+                return "MULTITHREADED";
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        //no objects in Slang, only functions
+        return m + "(" + String.join(", ", args) + ")";
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        return "println \"" + toDisplay + "\";";
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return "function void main() " + String.join(" ", statements) + " end";
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new SlangScriptEngine(this);
+    }
+}
@@ -0,0 +1,64 @@
+package com.slang.snapshot;
+
+import com.slang.ast.Function;
+import com.slang.ast.LambdaExpression;
+import com.slang.ast.Module;
+import com.slang.visitor.Context;
+import com.slang.visitor.TreeWalker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Layout of a snapshot, all numbers big endian:
+ *
+ * <pre>
+ * int magic, int version
+ * the module, as written by {@link com.slang.cache.ModuleWriter}
+ * int symbol count, the variable name of every symbol
+ * the value of every symbol in the same order: type, byte 1 when it has a value, the value
+ * int frame size, variable names and symbol refs of main's frame
+ * </pre>
+ *
+ * Symbols are referenced by index, so values shared between main's frame and closures stay shared after a
+ * restore. A type is a byte, -1 for null, the id of a primitive type or FUNCTION_TYPE followed by the param
+ * count, param types and return type. A function value is a top level function by name or a closure, the index
+ * of its lambda in {@link #lambdas(Module)} and its captured variables as names and symbol refs. Strings are a
+ * UTF-8 byte count, -1 for null, and the bytes.
+ */
+final class HeapFormat {
+
+    static final int MAGIC = 0x534c534e;
+    static final int VERSION = 1;
+
+    static final byte NULL_TYPE = -1;
+    static final byte FUNCTION_TYPE = 100;
+
+    static final byte TOP_LEVEL_FUNCTION = 1;
+    static final byte CLOSURE = 2;
+
+    static final int NULL = -1;
+
+    private HeapFormat() {
+    }
+
+    /**
+     * Every lambda of the module in an order which only depends on the source
+     */
+    static List<Function> lambdas(Module module) {
+        List<Function> lambdas = new ArrayList<>();
+        TreeWalker walker = new TreeWalker() {
+            @Override
+            public com.slang.SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
+                lambdas.add(lambdaExpression.getFunction());
+                return super.visit(lambdaExpression, context);
+            }
+        };
+        for (Map.Entry<String, Function> function : new TreeMap<>(module.getFunctionsMap()).entrySet()) {
+            function.getValue().accept(walker, null);
+        }
+        return lambdas;
+    }
+}
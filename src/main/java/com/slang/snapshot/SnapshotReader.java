@@ -0,0 +1,153 @@
+package com.slang.snapshot;
+
+import com.slang.SymbolInfo;
+import com.slang.Type;
+import com.slang.TypeCategory;
+import com.slang.TypeTable;
+import com.slang.ast.Function;
+import com.slang.ast.Module;
+import com.slang.cache.ModuleReader;
+import com.slang.visitor.Context;
+import com.slang.visitor.LexicalContext;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter}. The module is read once by {@link #readModule(ByteBuffer)},
+ * main's frame is read again by {@link #readFrame(Module, ByteBuffer)} for every run, so every run starts from
+ * the state after the setup.
+ */
+public class SnapshotReader {
+
+    private final Module module;
+    private final ByteBuffer buffer;
+    private final List<Function> lambdas;
+    private SymbolInfo[] symbols;
+
+    private SnapshotReader(Module module, ByteBuffer buffer) {
+        this.module = module;
+        this.buffer = buffer;
+        this.lambdas = HeapFormat.lambdas(module);
+    }
+
+    /**
+     * Reads the header and the module, leaving the buffer at main's frame
+     */
+    public static Module readModule(ByteBuffer buffer) {
+        if (HeapFormat.MAGIC != buffer.getInt()) {
+            throw new RuntimeException("Not a Slang snapshot");
+        }
+        int version = buffer.getInt();
+        if (HeapFormat.VERSION != version) {
+            throw new RuntimeException("Unsupported snapshot format version : " + version);
+        }
+        return ModuleReader.read(buffer);
+    }
+
+    public static Context readFrame(Module module, ByteBuffer buffer) {
+        return new SnapshotReader(module, buffer).readFrame();
+    }
+
+    private Context readFrame() {
+        symbols = new SymbolInfo[buffer.getInt()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = new SymbolInfo(null, readString());
+        }
+        for (SymbolInfo symbolInfo : symbols) {
+            readValue(symbolInfo);
+        }
+
+        Context frame = new LexicalContext(module.getFunctionsMap());
+        for (Map.Entry<String, SymbolInfo> variable : readVariables().entrySet()) {
+            frame.addToSymbolTable(variable.getKey(), variable.getValue());
+        }
+        return frame;
+    }
+
+    private Map<String, SymbolInfo> readVariables() {
+        int size = buffer.getInt();
+        Map<String, SymbolInfo> variables = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            variables.put(readString(), symbols[buffer.getInt()]);
+        }
+        return variables;
+    }
+
+    private void readValue(SymbolInfo symbolInfo) {
+        Type type = readType();
+        if (null == type) {
+            return;
+        }
+        symbolInfo.setDataType(type);
+        if (!readBoolean()) {
+            return;
+        }
+
+        if (Type.STRING == type) {
+            symbolInfo.setStringValue(readString());
+        } else if (Type.INTEGER == type) {
+            symbolInfo.setIntegerValue(buffer.getInt());
+        } else if (Type.LONG == type) {
+            symbolInfo.setLongValue(buffer.getLong());
+        } else if (Type.FLOAT == type) {
+            symbolInfo.setFloatValue(buffer.getFloat());
+        } else if (Type.DOUBLE == type) {
+            symbolInfo.setDoubleValue(buffer.getDouble());
+        } else if (Type.BOOL == type) {
+            symbolInfo.setBoolValue(readBoolean());
+        } else if (TypeCategory.FUNCTION == type.getTypeCategory()) {
+            symbolInfo.setFunctionValue(readFunction());
+        } else {
+            throw new RuntimeException("Unable to restore a value of type " + type.getTypeName());
+        }
+    }
+
+    private Function readFunction() {
+        byte kind = buffer.get();
+        if (HeapFormat.TOP_LEVEL_FUNCTION == kind) {
+            String name = readString();
+            Function function = module.getFunctionsMap().get(name);
+            if (null == function) {
+                throw new RuntimeException("Undefined function : " + name);
+            }
+            return function;
+        }
+        Function lambda = lambdas.get(buffer.getInt());
+        return lambda.withCapturedVariables(readVariables());
+    }
+
+    private Type readType() {
+        byte tag = buffer.get();
+        if (HeapFormat.NULL_TYPE == tag) {
+            return null;
+        }
+        if (HeapFormat.FUNCTION_TYPE == tag) {
+            int paramCount = buffer.getInt();
+            List<Type> paramTypes = new ArrayList<>(paramCount);
+            for (int i = 0; i < paramCount; i++) {
+                paramTypes.add(readType());
+            }
+            return TypeTable.functionType(paramTypes, readType());
+        }
+        return TypeTable.getType(tag);
+    }
+
+    private boolean readBoolean() {
+        return 0 != buffer.get();
+    }
+
+    private String readString() {
+        int length = buffer.getInt();
+        if (HeapFormat.NULL == length) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,199 @@
+package com.slang.snapshot;
+
+import com.slang.SymbolInfo;
+import com.slang.Type;
+import com.slang.TypeCategory;
+import com.slang.ast.Function;
+import com.slang.ast.Module;
+import com.slang.cache.ModuleWriter;
+import com.slang.visitor.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a module together with the frame of main after its setup, in the layout described by {@link HeapFormat}.
+ * Everything reachable from the frame is written, the variables captured by closures included.
+ */
+public class SnapshotWriter {
+
+    private final Module module;
+    private final Map<List<?>, Integer> lambdaRefs = new IdentityHashMap<>();
+    private final Map<SymbolInfo, Integer> symbolRefs = new IdentityHashMap<>();
+    private final List<SymbolInfo> symbols = new ArrayList<>();
+    private final Deque<SymbolInfo> pending = new ArrayDeque<>();
+    private final DataOutputStream out;
+
+    private SnapshotWriter(Module module, ByteArrayOutputStream bytes) {
+        this.module = module;
+        this.out = new DataOutputStream(bytes);
+        List<Function> lambdas = HeapFormat.lambdas(module);
+        for (int i = lambdas.size() - 1; i >= 0; i--) {
+            lambdaRefs.put(lambdas.get(i).getBody(), i);
+        }
+    }
+
+    public static byte[] write(Module module, Context frame) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try {
+            new SnapshotWriter(module, bytes).writeSnapshot(frame.getSymbolTable());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write snapshot", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeSnapshot(Map<String, SymbolInfo> frame) throws IOException {
+        out.writeInt(HeapFormat.MAGIC);
+        out.writeInt(HeapFormat.VERSION);
+        out.write(ModuleWriter.write(module));
+
+        //number every reachable symbol first, values refer to each other
+        for (SymbolInfo symbolInfo : frame.values()) {
+            symbolRef(symbolInfo);
+        }
+        while (!pending.isEmpty()) {
+            Function function = pending.poll().getFunctionValue();
+            if (null != function && null != function.getCapturedVariables()) {
+                for (SymbolInfo captured : function.getCapturedVariables().values()) {
+                    symbolRef(captured);
+                }
+            }
+        }
+
+        out.writeInt(symbols.size());
+        for (SymbolInfo symbolInfo : symbols) {
+            writeString(symbolInfo.getVariableName());
+        }
+        for (SymbolInfo symbolInfo : symbols) {
+            writeValue(symbolInfo);
+        }
+        writeVariables(frame);
+        out.flush();
+    }
+
+    private int symbolRef(SymbolInfo symbolInfo) {
+        Integer ref = symbolRefs.get(symbolInfo);
+        if (null == ref) {
+            ref = symbols.size();
+            symbols.add(symbolInfo);
+            symbolRefs.put(symbolInfo, ref);
+            pending.add(symbolInfo);
+        }
+        return ref;
+    }
+
+    private void writeVariables(Map<String, SymbolInfo> variables) throws IOException {
+        out.writeInt(variables.size());
+        for (Map.Entry<String, SymbolInfo> variable : variables.entrySet()) {
+            writeString(variable.getKey());
+            out.writeInt(symbolRefs.get(variable.getValue()));
+        }
+    }
+
+    private void writeValue(SymbolInfo symbolInfo) throws IOException {
+        Type type = symbolInfo.getDataType();
+        writeType(type);
+        if (null == type) {
+            return;
+        }
+
+        if (Type.STRING == type) {
+            writePresent(symbolInfo.getStringValue());
+            if (null != symbolInfo.getStringValue()) {
+                writeString(symbolInfo.getStringValue());
+            }
+        } else if (Type.INTEGER == type) {
+            writePresent(symbolInfo.getIntegerValue());
+            if (null != symbolInfo.getIntegerValue()) {
+                out.writeInt(symbolInfo.getIntegerValue());
+            }
+        } else if (Type.LONG == type) {
+            writePresent(symbolInfo.getLongValue());
+            if (null != symbolInfo.getLongValue()) {
+                out.writeLong(symbolInfo.getLongValue());
+            }
+        } else if (Type.FLOAT == type) {
+            writePresent(symbolInfo.getFloatValue());
+            if (null != symbolInfo.getFloatValue()) {
+                out.writeFloat(symbolInfo.getFloatValue());
+            }
+        } else if (Type.DOUBLE == type) {
+            writePresent(symbolInfo.getDoubleValue());
+            if (null != symbolInfo.getDoubleValue()) {
+                out.writeDouble(symbolInfo.getDoubleValue());
+            }
+        } else if (Type.BOOL == type) {
+            writePresent(symbolInfo.getBoolValue());
+            if (null != symbolInfo.getBoolValue()) {
+                out.writeBoolean(symbolInfo.getBoolValue());
+            }
+        } else if (TypeCategory.FUNCTION == type.getTypeCategory()) {
+            writePresent(symbolInfo.getFunctionValue());
+            if (null != symbolInfo.getFunctionValue()) {
+                writeFunction(symbolInfo.getFunctionValue());
+            }
+        } else if (Type.VOID == type) {
+            out.writeBoolean(false);
+        } else {
+            throw new RuntimeException("Unable to snapshot a value of type " + type.getTypeName());
+        }
+    }
+
+    private void writePresent(Object value) throws IOException {
+        out.writeBoolean(null != value);
+    }
+
+    private void writeFunction(Function function) throws IOException {
+        if (null == function.getCapturedVariables()) {
+            if (module.getFunctionsMap().get(function.getName()) != function) {
+                throw new RuntimeException("Unable to snapshot function " + function.getName());
+            }
+            out.writeByte(HeapFormat.TOP_LEVEL_FUNCTION);
+            writeString(function.getName());
+            return;
+        }
+        Integer lambdaRef = lambdaRefs.get(function.getBody());
+        if (null == lambdaRef) {
+            throw new RuntimeException("Unable to snapshot closure " + function.getName());
+        }
+        out.writeByte(HeapFormat.CLOSURE);
+        out.writeInt(lambdaRef);
+        writeVariables(function.getCapturedVariables());
+    }
+
+    private void writeType(Type type) throws IOException {
+        if (null == type) {
+            out.writeByte(HeapFormat.NULL_TYPE);
+        } else if (TypeCategory.FUNCTION == type.getTypeCategory()) {
+            out.writeByte(HeapFormat.FUNCTION_TYPE);
+            out.writeInt(type.getFnFormalParamTypes().size());
+            for (Type paramType : type.getFnFormalParamTypes()) {
+                writeType(paramType);
+            }
+            writeType(type.getFnReturnType());
+        } else if (TypeCategory.PRIMITIVE == type.getTypeCategory()) {
+            out.writeByte(type.getId());
+        } else {
+            throw new RuntimeException("Unable to snapshot a value of type " + type.getTypeName());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (null == value) {
+            out.writeInt(HeapFormat.NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,242 @@
+package com.slang.visitor;
+
+import com.slang.SymbolInfo;
+import com.slang.ast.*;
+import com.slang.output.OutputSink;
+
+/**
+ * An {@link Interpreter} which keeps the id of the node it's evaluating in an {@link AllocationTracker}, so the
+ * SymbolInfos and LexicalContexts created meanwhile are counted against the innermost node, e.g. a frame of a call
+ * against the call and a frame of a loop iteration against the while. Runs are to be made inside
+ * {@link AllocationTracker#track(Runnable)}, see {@link com.slang.profiler.AllocationProfile}.
+ */
+public class AllocationInterpreter extends Interpreter {
+
+    private final AllocationTracker tracker;
+
+    public AllocationInterpreter(boolean paranoid, OutputSink out, AllocationTracker tracker) {
+        this(paranoid, out, InvocationListener.NONE, tracker);
+    }
+
+    public AllocationInterpreter(boolean paranoid, OutputSink out, InvocationListener listener,
+                                 AllocationTracker tracker) {
+        super(paranoid, out, listener);
+        this.tracker = tracker;
+    }
+
+    @Override
+    public SymbolInfo visit(NumericExpression expression, Context context) {
+        int parent = tracker.node;
+        tracker.node = expression.getId();
+        SymbolInfo value = super.visit(expression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(UnaryExpression expression, Context context) {
+        int parent = tracker.node;
+        tracker.node = expression.getId();
+        SymbolInfo value = super.visit(expression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(ArithmeticExpressionExpression expression, Context context) {
+        int parent = tracker.node;
+        tracker.node = expression.getId();
+        SymbolInfo value = super.visit(expression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(StringLiteral stringLiteral, Context context) {
+        int parent = tracker.node;
+        tracker.node = stringLiteral.getId();
+        SymbolInfo value = super.visit(stringLiteral, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(BooleanExpression booleanExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = booleanExpression.getId();
+        SymbolInfo value = super.visit(booleanExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableExpression variableExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = variableExpression.getId();
+        SymbolInfo value = super.visit(variableExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(RelationalExpression relationalExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = relationalExpression.getId();
+        SymbolInfo value = super.visit(relationalExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(LogicalExpression logicalExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = logicalExpression.getId();
+        SymbolInfo value = super.visit(logicalExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(NotExpression notExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = notExpression.getId();
+        SymbolInfo value = super.visit(notExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = lambdaExpression.getId();
+        SymbolInfo value = super.visit(lambdaExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(PrintStatement printStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = printStatement.getId();
+        SymbolInfo value = super.visit(printStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(PrintlnStatement printlnStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = printlnStatement.getId();
+        SymbolInfo value = super.visit(printlnStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclarationStatement variableDeclarationStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = variableDeclarationStatement.getId();
+        SymbolInfo value = super.visit(variableDeclarationStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableAssignmentStatement variableAssignmentStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = variableAssignmentStatement.getId();
+        SymbolInfo value = super.visit(variableAssignmentStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclAndAssignStatement variableDeclAndAssignStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = variableDeclAndAssignStatement.getId();
+        SymbolInfo value = super.visit(variableDeclAndAssignStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(IfStatement ifStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = ifStatement.getId();
+        SymbolInfo value = super.visit(ifStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(WhileStatement whileStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = whileStatement.getId();
+        SymbolInfo value = super.visit(whileStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(BreakStatement breakStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = breakStatement.getId();
+        SymbolInfo value = super.visit(breakStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(ReturnStatement returnStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = returnStatement.getId();
+        SymbolInfo value = super.visit(returnStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = functionInvokeExpression.getId();
+        SymbolInfo value = super.visit(functionInvokeExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(TailCallExpression tailCallExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = tailCallExpression.getId();
+        SymbolInfo value = super.visit(tailCallExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = inlinedFunctionInvokeExpression.getId();
+        SymbolInfo value = super.visit(inlinedFunctionInvokeExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeStatement functionInvokeStatement, Context context) {
+        int parent = tracker.node;
+        tracker.node = functionInvokeStatement.getId();
+        SymbolInfo value = super.visit(functionInvokeStatement, context);
+        tracker.node = parent;
+        return value;
+    }
+
+    @Override
+    public SymbolInfo visit(VoidExpression voidExpression, Context context) {
+        int parent = tracker.node;
+        tracker.node = voidExpression.getId();
+        SymbolInfo value = super.visit(voidExpression, context);
+        tracker.node = parent;
+        return value;
+    }
+}
@@ -0,0 +1,82 @@
+package com.slang.visitor;
+
+import java.util.function.Supplier;
+
+/**
+ * Counts the SymbolInfos and LexicalContexts created on a thread against the node the {@link AllocationInterpreter}
+ * is evaluating, see {@link com.slang.profiler.AllocationProfile}, or against slot 0 when nothing sets the node,
+ * e.g. for {@link com.slang.PhaseStatistics}. The constructors of both report every instance here; while no thread
+ * tracks that costs a read of a static field. Trackers nest, an allocation counts in every tracker of the thread.
+ */
+public final class AllocationTracker {
+
+    //Threads tracking now. Written under the class lock, read without, a stale value on another thread only costs
+    //that thread a ThreadLocal lookup or skips an allocation which isn't tracked anyway.
+    private static int tracking;
+    private static final ThreadLocal<AllocationTracker> CURRENT = new ThreadLocal<>();
+
+    private final long[] symbolInfos;
+    private final long[] frames;
+    //Id of the node being evaluated, 0 outside of the module's nodes
+    int node;
+    //Tracker of the thread this one is nested in
+    private AllocationTracker outer;
+
+    public AllocationTracker(long[] symbolInfos, long[] frames) {
+        this.symbolInfos = symbolInfos;
+        this.frames = frames;
+    }
+
+    /**
+     * Runs run, e.g. an AllocationInterpreter, counting the allocations of the calling thread into this tracker
+     */
+    public void track(Runnable run) {
+        track(() -> {
+            run.run();
+            return null;
+        });
+    }
+
+    public <T> T track(Supplier<T> run) {
+        for (AllocationTracker tracker = CURRENT.get(); null != tracker; tracker = tracker.outer) {
+            if (this == tracker) {
+                throw new RuntimeException("Allocations are already tracked by this tracker");
+            }
+        }
+        synchronized (AllocationTracker.class) {
+            tracking++;
+        }
+        outer = CURRENT.get();
+        CURRENT.set(this);
+        node = 0;
+        try {
+            return run.get();
+        } finally {
+            if (null == outer) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+                outer = null;
+            }
+            synchronized (AllocationTracker.class) {
+                tracking--;
+            }
+        }
+    }
+
+    public static void symbolInfoCreated() {
+        if (0 != tracking) {
+            for (AllocationTracker tracker = CURRENT.get(); null != tracker; tracker = tracker.outer) {
+                tracker.symbolInfos[tracker.node]++;
+            }
+        }
+    }
+
+    public static void frameCreated() {
+        if (0 != tracking) {
+            for (AllocationTracker tracker = CURRENT.get(); null != tracker; tracker = tracker.outer) {
+                tracker.frames[tracker.node]++;
+            }
+        }
+    }
+}
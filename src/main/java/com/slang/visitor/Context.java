@@ -18,6 +18,16 @@ public abstract class Context {
 
     public abstract SymbolInfo getSymbolInfoFromCurrentScope(String symbolName);
 
+    /**
+     * Scopes from this one up to the nearest one which holds the symbol, -1 when none does
+     */
+    public abstract int getSymbolDepth(String symbolName);
+
+    /**
+     * The symbol of the scope depth scopes up, null when that scope doesn't hold it
+     */
+    public abstract SymbolInfo getSymbolInfo(String symbolName, int depth);
+
     public abstract Function getFunction(String functionIdentifier);
 
     public abstract void setCurrentFunction(Function function);
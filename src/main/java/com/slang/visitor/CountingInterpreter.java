@@ -0,0 +1,168 @@
+package com.slang.visitor;
+
+import com.slang.SymbolInfo;
+import com.slang.ast.*;
+import com.slang.output.OutputSink;
+
+/**
+ * An {@link Interpreter} which counts every run of a statement and every evaluation of an expression in the
+ * counter at the node's id, see {@link com.slang.profiler.ExecutionCounts}. The plain Interpreter doesn't pay
+ * for the counting.
+ */
+public class CountingInterpreter extends Interpreter {
+
+    private final long[] counters;
+
+    public CountingInterpreter(boolean paranoid, OutputSink out, long[] counters) {
+        this(paranoid, out, InvocationListener.NONE, counters);
+    }
+
+    public CountingInterpreter(boolean paranoid, OutputSink out, InvocationListener listener, long[] counters) {
+        super(paranoid, out, listener);
+        this.counters = counters;
+    }
+
+    @Override
+    public SymbolInfo visit(NumericExpression expression, Context context) {
+        counters[expression.getId()]++;
+        return super.visit(expression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(UnaryExpression expression, Context context) {
+        counters[expression.getId()]++;
+        return super.visit(expression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(ArithmeticExpressionExpression expression, Context context) {
+        counters[expression.getId()]++;
+        return super.visit(expression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(StringLiteral stringLiteral, Context context) {
+        counters[stringLiteral.getId()]++;
+        return super.visit(stringLiteral, context);
+    }
+
+    @Override
+    public SymbolInfo visit(BooleanExpression booleanExpression, Context context) {
+        counters[booleanExpression.getId()]++;
+        return super.visit(booleanExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(VariableExpression variableExpression, Context context) {
+        counters[variableExpression.getId()]++;
+        return super.visit(variableExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(RelationalExpression relationalExpression, Context context) {
+        counters[relationalExpression.getId()]++;
+        return super.visit(relationalExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(LogicalExpression logicalExpression, Context context) {
+        counters[logicalExpression.getId()]++;
+        return super.visit(logicalExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(NotExpression notExpression, Context context) {
+        counters[notExpression.getId()]++;
+        return super.visit(notExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
+        counters[lambdaExpression.getId()]++;
+        return super.visit(lambdaExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(PrintStatement printStatement, Context context) {
+        counters[printStatement.getId()]++;
+        return super.visit(printStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(PrintlnStatement printlnStatement, Context context) {
+        counters[printlnStatement.getId()]++;
+        return super.visit(printlnStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclarationStatement variableDeclarationStatement, Context context) {
+        counters[variableDeclarationStatement.getId()]++;
+        return super.visit(variableDeclarationStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(VariableAssignmentStatement variableAssignmentStatement, Context context) {
+        counters[variableAssignmentStatement.getId()]++;
+        return super.visit(variableAssignmentStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclAndAssignStatement variableDeclAndAssignStatement, Context context) {
+        counters[variableDeclAndAssignStatement.getId()]++;
+        return super.visit(variableDeclAndAssignStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(IfStatement ifStatement, Context context) {
+        counters[ifStatement.getId()]++;
+        return super.visit(ifStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(WhileStatement whileStatement, Context context) {
+        counters[whileStatement.getId()]++;
+        return super.visit(whileStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(BreakStatement breakStatement, Context context) {
+        counters[breakStatement.getId()]++;
+        return super.visit(breakStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(ReturnStatement returnStatement, Context context) {
+        counters[returnStatement.getId()]++;
+        return super.visit(returnStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context) {
+        counters[functionInvokeExpression.getId()]++;
+        return super.visit(functionInvokeExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(TailCallExpression tailCallExpression, Context context) {
+        counters[tailCallExpression.getId()]++;
+        return super.visit(tailCallExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context) {
+        counters[inlinedFunctionInvokeExpression.getId()]++;
+        return super.visit(inlinedFunctionInvokeExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeStatement functionInvokeStatement, Context context) {
+        counters[functionInvokeStatement.getId()]++;
+        return super.visit(functionInvokeStatement, context);
+    }
+
+    @Override
+    public SymbolInfo visit(VoidExpression voidExpression, Context context) {
+        counters[voidExpression.getId()]++;
+        return super.visit(voidExpression, context);
+    }
+}
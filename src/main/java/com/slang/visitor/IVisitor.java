@@ -2,6 +2,7 @@ package com.slang.visitor;
 
 import com.slang.SymbolInfo;
 import com.slang.ast.*;
+import com.slang.ast.Module;
 
 /**
  * Created by sarath on 18/3/17.
@@ -31,6 +32,8 @@ public interface IVisitor {
     SymbolInfo visit(Function function, Context context);
     SymbolInfo visit(ReturnStatement returnStatement, Context context);
     SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context);
+    SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context);
+    SymbolInfo visit(TailCallExpression tailCallExpression, Context context);
     SymbolInfo visit(FunctionInvokeStatement functionInvokeStatement, Context context);
     SymbolInfo visit(VoidExpression voidExpression, Context context);
     SymbolInfo visit(Module module, Context context);
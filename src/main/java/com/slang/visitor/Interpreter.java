@@ -4,6 +4,10 @@ import com.slang.SymbolInfo;
 import com.slang.Type;
 import com.slang.TypeCategory;
 import com.slang.ast.*;
+import com.slang.ast.Module;
+import com.slang.events.SlangEvents;
+import com.slang.output.OutputSink;
+import com.slang.output.SystemOutSink;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -13,14 +17,37 @@ import java.util.stream.Collectors;
  */
 public class Interpreter implements IVisitor {
 
+    //When set, every runtime check is done even if the SemanticAnalyzer already proved it
+    private final boolean paranoid;
+    private final OutputSink out;
+    private final InvocationListener listener;
+
+    public Interpreter() {
+        this(false);
+    }
+
+    public Interpreter(boolean paranoid) {
+        this(paranoid, new SystemOutSink());
+    }
+
+    public Interpreter(boolean paranoid, OutputSink out) {
+        this(paranoid, out, InvocationListener.NONE);
+    }
+
+    public Interpreter(boolean paranoid, OutputSink out, InvocationListener listener) {
+        this.paranoid = paranoid;
+        this.out = out;
+        this.listener = listener;
+    }
+
     public SymbolInfo visit(NumericExpression expression, Context context) {
-        if (Type.DOUBLE.equals(expression.getDataType())) {
+        if (Type.DOUBLE == expression.getDataType()) {
             return new SymbolInfo(expression.getDoubleValue());
-        } else if (Type.FLOAT.equals(expression.getDataType())) {
+        } else if (Type.FLOAT == expression.getDataType()) {
             return new SymbolInfo(expression.getFloatValue());
-        } else if (Type.LONG.equals(expression.getDataType())) {
+        } else if (Type.LONG == expression.getDataType()) {
             return new SymbolInfo(expression.getLongValue());
-        } else if (Type.INTEGER.equals(expression.getDataType())) {
+        } else if (Type.INTEGER == expression.getDataType()) {
             return new SymbolInfo(expression.getIntegerValue());
         } else {
             throw new RuntimeException("Unsupported data getType");
@@ -30,21 +57,21 @@ public class Interpreter implements IVisitor {
     public SymbolInfo visit(UnaryExpression expression, Context context) {
         SymbolInfo leftExpVal = expression.getLeftExpression().accept(this, context);
         if(Token.SUB != expression.getOperator()) {
-            if (!(Type.DOUBLE.equals(leftExpVal.getDataType()) || Type.FLOAT.equals(leftExpVal.getDataType())
-                    || Type.LONG.equals(leftExpVal.getDataType()) || Type.INTEGER.equals(leftExpVal.getDataType()))) {
+            if (!(Type.DOUBLE == leftExpVal.getDataType() || Type.FLOAT == leftExpVal.getDataType()
+                    || Type.LONG == leftExpVal.getDataType() || Type.INTEGER == leftExpVal.getDataType())) {
                 throw new RuntimeException("Unsupported data getType : " + leftExpVal.getDataType());
             }
             return leftExpVal;
         }
 
         //When oper is SUB
-        if(Type.DOUBLE.equals(leftExpVal.getDataType())) {
+        if(Type.DOUBLE == leftExpVal.getDataType()) {
             return new SymbolInfo(leftExpVal.getDoubleValue() * -1);
-        } else if(Type.FLOAT.equals(leftExpVal.getDataType())) {
+        } else if(Type.FLOAT == leftExpVal.getDataType()) {
             return new SymbolInfo(leftExpVal.getFloatValue() * -1);
-        } else if(Type.LONG.equals(leftExpVal.getDataType())) {
+        } else if(Type.LONG == leftExpVal.getDataType()) {
             return new SymbolInfo(leftExpVal.getLongValue() * -1);
-        } else if(Type.INTEGER.equals(leftExpVal.getDataType())) {
+        } else if(Type.INTEGER == leftExpVal.getDataType()) {
             return new SymbolInfo(leftExpVal.getIntegerValue() * -1);
         } else {
             throw new RuntimeException("Unsupported data getType : " + leftExpVal.getDataType());
@@ -88,7 +115,7 @@ public class Interpreter implements IVisitor {
         Type rhsType = rightExpVal.getDataType();
 
         //TODO rewrite the conditional operator
-        if (lhsType == Type.BOOL && rhsType == Type.BOOL) {
+        if (isTrusted(logicalExpression) || (lhsType == Type.BOOL && rhsType == Type.BOOL)) {
             return new SymbolInfo(logicalExpression.getOperator() == Token.OR
                     ? leftExpVal.getBoolValue() || rightExpVal.getBoolValue() :
                     logicalExpression.getOperator() == Token.ANDAND
@@ -102,7 +129,7 @@ public class Interpreter implements IVisitor {
     @Override
     public SymbolInfo visit(NotExpression notExpression, Context context) {
         SymbolInfo expVal = notExpression.getExpression().accept(this, context);
-        if(expVal.getDataType() != Type.BOOL) {
+        if(!isTrusted(notExpression) && expVal.getDataType() != Type.BOOL) {
             throw new RuntimeException("Not Expression is supported with boolean values only");
         }
 
@@ -112,8 +139,8 @@ public class Interpreter implements IVisitor {
     @Override
     public SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
         //TODO tree walk and find the correct variable to capture
-        final Function function = lambdaExpression.getFunction().clone();
-        function.setCapturedVariables(new LinkedHashMap<>(context.getSymbolTable()));
+        final Function function = lambdaExpression.getFunction().withCapturedVariables(context.getSymbolTable());
+        SlangEvents.INSTANCE.closureCreated(function);
         return SymbolInfo.builder().withFunctionValue(function).withDataType(function.getType()).build();
     }
 
@@ -306,18 +333,18 @@ public class Interpreter implements IVisitor {
 
     public SymbolInfo visit(PrintStatement printStatement, Context context) {
         SymbolInfo exp = printStatement.getExpression().accept(this, context);
-        if (Type.DOUBLE.equals(exp.getDataType())) {
-            System.out.print(exp.getDoubleValue());
-        } else if (Type.INTEGER.equals(exp.getDataType())) {
-            System.out.print(exp.getIntegerValue());
-        } else if (Type.LONG.equals(exp.getDataType())) {
-            System.out.print(exp.getLongValue());
-        } else if (Type.FLOAT.equals(exp.getDataType())) {
-            System.out.print(exp.getFloatValue());
-        } else if (Type.STRING.equals(exp.getDataType())) {
-            System.out.print(exp.getStringValue());
-        } else if (Type.BOOL.equals(exp.getDataType())) {
-            System.out.print(exp.getBoolValue());
+        if (Type.DOUBLE == exp.getDataType()) {
+            out.print(exp.getDoubleValue());
+        } else if (Type.INTEGER == exp.getDataType()) {
+            out.print(exp.getIntegerValue());
+        } else if (Type.LONG == exp.getDataType()) {
+            out.print(exp.getLongValue());
+        } else if (Type.FLOAT == exp.getDataType()) {
+            out.print(exp.getFloatValue());
+        } else if (Type.STRING == exp.getDataType()) {
+            out.print(exp.getStringValue());
+        } else if (Type.BOOL == exp.getDataType()) {
+            out.print(exp.getBoolValue());
         } else {
             throw new RuntimeException("Unknown Data Type");
         }
@@ -326,21 +353,22 @@ public class Interpreter implements IVisitor {
 
     public SymbolInfo visit(PrintlnStatement printlnStatement, Context context) {
         SymbolInfo exp = printlnStatement.getExpression().accept(this, context);
-        if (Type.DOUBLE.equals(exp.getDataType())) {
-            System.out.println(exp.getDoubleValue());
-        } else if (Type.INTEGER.equals(exp.getDataType())) {
-            System.out.println(exp.getIntegerValue());
-        } else if (Type.LONG.equals(exp.getDataType())) {
-            System.out.println(exp.getLongValue());
-        } else if (Type.FLOAT.equals(exp.getDataType())) {
-            System.out.println(exp.getFloatValue());
-        } else if (Type.STRING.equals(exp.getDataType())) {
-            System.out.println(exp.getStringValue());
-        } else if (Type.BOOL.equals(exp.getDataType())) {
-            System.out.println(exp.getBoolValue());
+        if (Type.DOUBLE == exp.getDataType()) {
+            out.print(exp.getDoubleValue());
+        } else if (Type.INTEGER == exp.getDataType()) {
+            out.print(exp.getIntegerValue());
+        } else if (Type.LONG == exp.getDataType()) {
+            out.print(exp.getLongValue());
+        } else if (Type.FLOAT == exp.getDataType()) {
+            out.print(exp.getFloatValue());
+        } else if (Type.STRING == exp.getDataType()) {
+            out.print(exp.getStringValue());
+        } else if (Type.BOOL == exp.getDataType()) {
+            out.print(exp.getBoolValue());
         } else {
             throw new RuntimeException("Unknown Data Type");
         }
+        out.newLine();
         return null;
     }
 
@@ -373,19 +401,19 @@ public class Interpreter implements IVisitor {
         Type rhsType = rhsInfo.getDataType();
         if(null == lhsType && null != rhsType) {
             //when lhs is declared and rhs has value
-            if (Type.FLOAT.equals(rhsInfo.getDataType())) {
+            if (Type.FLOAT == rhsInfo.getDataType()) {
                 lhsInfo.setFloatValue(rhsInfo.getFloatValue());
-            } else if (Type.DOUBLE.equals(rhsInfo.getDataType())) {
+            } else if (Type.DOUBLE == rhsInfo.getDataType()) {
                 lhsInfo.setDoubleValue(rhsInfo.getDoubleValue());
-            } else if (Type.INTEGER.equals(rhsInfo.getDataType())) {
+            } else if (Type.INTEGER == rhsInfo.getDataType()) {
                 lhsInfo.setIntegerValue(rhsInfo.getIntegerValue());
-            } else if (Type.LONG.equals(rhsInfo.getDataType())) {
+            } else if (Type.LONG == rhsInfo.getDataType()) {
                 lhsInfo.setLongValue(rhsInfo.getLongValue());
-            } else if (Type.STRING.equals(rhsInfo.getDataType())) {
+            } else if (Type.STRING == rhsInfo.getDataType()) {
                 lhsInfo.setStringValue(rhsInfo.getStringValue());
-            } else if (Type.BOOL.equals(rhsInfo.getDataType())) {
+            } else if (Type.BOOL == rhsInfo.getDataType()) {
                 lhsInfo.setBoolValue(rhsInfo.getBoolValue());
-            } else if (TypeCategory.FUNCTION.equals(rhsInfo.getDataType().getTypeCategory())) {
+            } else if (TypeCategory.FUNCTION == rhsInfo.getDataType().getTypeCategory()) {
                 lhsInfo.setFunctionValue(rhsInfo.getFunctionValue());
             }
         } else if(null != lhsType && null == rhsType) {
@@ -417,12 +445,10 @@ public class Interpreter implements IVisitor {
                 lhsInfo.setBoolValue(rhsInfo.getBoolValue());
             } else if(lhsType == Type.STRING && rhsType == Type.STRING) {
                 lhsInfo.setStringValue(rhsInfo.getStringValue());
-            } else if(lhsType.getTypeCategory().equals(rhsType.getTypeCategory())) {
-                if(lhsType.getTypeCategory().equals(TypeCategory.FUNCTION)
-                        && lhsType.getTypeName().equals(rhsType.getTypeName())) {
+            } else if(lhsType == rhsType) {
+                if(lhsType.getTypeCategory() == TypeCategory.FUNCTION) {
                     lhsInfo.setFunctionValue(rhsInfo.getFunctionValue());
-                } else if(lhsType.getTypeCategory().equals(TypeCategory.OBJECT)
-                        && lhsType.getTypeName().equals(rhsType.getTypeName())) {
+                } else if(lhsType.getTypeCategory() == TypeCategory.OBJECT) {
                     lhsInfo.setSObjectValue(rhsInfo.getSObjectValue());
                 } else {
                     throw new RuntimeException("Unsupported types lhs : " + lhsType + ", rhs : " + rhsType);
@@ -445,7 +471,7 @@ public class Interpreter implements IVisitor {
     @Override
     public SymbolInfo visit(IfStatement ifStatement, Context context) {
         SymbolInfo symbolInfo = ifStatement.getBooleanExpression().accept(this, context);
-        if(Type.BOOL != symbolInfo.getDataType()) {
+        if(!isTrusted(ifStatement.getBooleanExpression()) && Type.BOOL != symbolInfo.getDataType()) {
             throw new RuntimeException("If condition expression should be of getType boolean");
         }
 
@@ -453,6 +479,7 @@ public class Interpreter implements IVisitor {
 
         if(symbolInfo.getBoolValue() == true) {
             for (Statement statement : ifStatement.getTrueBody()) {
+                listener.statement(statement);
                 statement.accept(this, ifContext);
                 //Todo evaluate the behaviour of break
                 if (ifContext.getSymbolInfo("break") != null) {
@@ -465,6 +492,7 @@ public class Interpreter implements IVisitor {
             }
         } else {
             for (Statement statement : ifStatement.getFalseBody()) {
+                listener.statement(statement);
                 statement.accept(this, ifContext);
                 //Todo evaluate the behaviour of break
                 if (ifContext.getSymbolInfo("break") != null) {
@@ -483,7 +511,7 @@ public class Interpreter implements IVisitor {
     public SymbolInfo visit(WhileStatement whileStatement, Context context) {
         SymbolInfo symbolInfo = whileStatement.getExpression().accept(this, context);
 
-        if(Type.BOOL != symbolInfo.getDataType()) {
+        if(!isTrusted(whileStatement.getExpression()) && Type.BOOL != symbolInfo.getDataType()) {
             throw new RuntimeException("While condition expression should be of getType boolean");
         }
 
@@ -493,14 +521,16 @@ public class Interpreter implements IVisitor {
 
             //Executing body of while
             for(Statement statement : whileStatement.getBody()) {
+                listener.statement(statement);
                 statement.accept(this, whileContext);
                 if(whileContext.getSymbolInfo("break") != null) {
                     break slangWhile;
                 } else if (whileContext.getSymbolInfo("return") != null) {
                     context.addToSymbolTable("return", whileContext.getSymbolInfo("return"));
-                    break;
+                    break slangWhile;
                 }
             }
+            listener.statement(whileStatement);
             symbolInfo = whileStatement.getExpression().accept(this, context);
         }
 
@@ -528,35 +558,151 @@ public class Interpreter implements IVisitor {
 
     @Override
     public SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context) {
-        Function function = context.getFunction(functionInvokeExpression.getFunctionName());
-
+        Function function = functionInvokeExpression.getTarget();
         if(null == function) {
-            SymbolInfo lambdaSymbol = context.getSymbolInfo(functionInvokeExpression.getFunctionName());
-            if(null == lambdaSymbol) {
-                throw new RuntimeException("Undefined function : " + functionInvokeExpression.getFunctionName());
+            function = resolveFunction(functionInvokeExpression, context);
+        }
+
+        List<SymbolInfo> actualParams = functionInvokeExpression.getActualFunctionArguments()
+                .stream()
+                .map(expression -> expression.accept(this, context))
+                .collect(Collectors.toList());
+
+        Context functionContext = new LexicalContext(context.getFunctionTable());
+        bindFunctionContext(functionInvokeExpression, function, actualParams, functionContext,
+                !isTrusted(functionInvokeExpression));
+        if(isObserved()) {
+            return invokeObserved(functionInvokeExpression, function, functionContext, actualParams.size());
+        }
+        //The loop of run without the listener, repeated so a plain call takes a single Java frame, the depth of a
+        //non-tail recursion on the default stack depends on it
+        List<Statement> body = function.getBody();
+        for(int i = 0; i < body.size(); i++) {
+            body.get(i).accept(this, functionContext);
+            SymbolInfo returnInfo = functionContext.getSymbolInfo("return");
+            if(returnInfo instanceof TailCall) {
+                functionContext.getSymbolTable().clear();
+                TailCall tailCall = (TailCall) returnInfo;
+                bindFunctionContext(functionInvokeExpression, function, tailCall.getActualParams(), functionContext,
+                        !tailCall.isTrusted());
+                i = -1;
+                continue;
+            }
+            if(null != returnInfo && !isTrusted(function) && function.getReturnType() != returnInfo.getDataType()) {
+                throw new RuntimeException("Return getType doesn't match the function definition");
+            }
+            if(null != returnInfo) {
+                return returnInfo;
             }
+        }
+        throw new RuntimeException("Expecting a return statement in AST");
+    }
 
-            if(TypeCategory.FUNCTION != lambdaSymbol.getDataType().getTypeCategory()) {
-                throw new RuntimeException(functionInvokeExpression.getFunctionName() + " is not a function getType");
+    /**
+     * Calls a top level function of the module with arguments evaluated by the caller, e.g. an embedding
+     * application. The call isn't analysed, so the arguments are checked against the formal params.
+     */
+    public SymbolInfo invoke(Module module, Function function, List<SymbolInfo> actualParams) {
+        FunctionInvokeExpression functionInvokeExpression = new FunctionInvokeExpression(function.getName(), Collections.emptyList());
+        functionInvokeExpression.setTarget(function);
+        Context functionContext = new LexicalContext(module.getFunctionsMap());
+        try {
+            bindFunctionContext(functionInvokeExpression, function, actualParams, functionContext, true);
+            return isObserved()
+                    ? invokeObserved(functionInvokeExpression, function, functionContext, actualParams.size())
+                    : run(functionInvokeExpression, function, functionContext, 0);
+        } catch (RuntimeException | Error e) {
+            listener.aborted();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether a listener or a recording watches the invocations. Only then an invocation takes the way through
+     * {@link #invokeObserved}, the hooks and their locals would otherwise make every Slang call use more Java
+     * stack and lower the depth of recursion the default stack holds.
+     */
+    private boolean isObserved() {
+        return InvocationListener.NONE != listener || SlangEvents.INSTANCE.isInvocationRecorded();
+    }
+
+    private SymbolInfo invokeObserved(FunctionInvokeExpression functionInvokeExpression, Function function,
+                                      Context functionContext, int arguments) {
+        //No try/finally in the recursion, it makes every Slang call use more stack, see InvocationListener#aborted
+        listener.enter(function);
+        Object event = SlangEvents.INSTANCE.beginInvocation(function);
+        SymbolInfo returnInfo = run(functionInvokeExpression, function, functionContext, 0);
+        SlangEvents.INSTANCE.endInvocation(event, function, arguments);
+        listener.exit(function);
+        return returnInfo;
+    }
+
+    private SymbolInfo run(FunctionInvokeExpression functionInvokeExpression, Function function,
+                           Context functionContext, int from) {
+        List<Statement> body = function.getBody();
+        for(int i = from; i < body.size(); i++) {
+            listener.statement(body.get(i));
+            body.get(i).accept(this, functionContext);
+            SymbolInfo returnInfo = functionContext.getSymbolInfo("return");
+            if(returnInfo instanceof TailCall) {
+                //Self tail call - reuse the frame and run the body again with the new arguments
+                functionContext.getSymbolTable().clear();
+                TailCall tailCall = (TailCall) returnInfo;
+                bindFunctionContext(functionInvokeExpression, function, tailCall.getActualParams(), functionContext,
+                        !tailCall.isTrusted());
+                i = -1;
+                continue;
+            }
+            if(null != returnInfo && !isTrusted(function) && function.getReturnType() != returnInfo.getDataType()) {
+                throw new RuntimeException("Return getType doesn't match the function definition");
             }
+            if(null != returnInfo) {
+                return returnInfo;
+            }
+        }
 
-            function = lambdaSymbol.getFunctionValue();
+        throw new RuntimeException("Expecting a return statement in AST");
+    }
+
+    private Function resolveFunction(FunctionInvokeExpression functionInvokeExpression, Context context) {
+        //An analysed call without a target is known to go through a lambda variable
+        if(null == functionInvokeExpression.getStaticType()) {
+            Function function = context.getFunction(functionInvokeExpression.getFunctionName());
+            if(null != function) {
+                return function;
+            }
         }
 
-        if(null == function) {
+        SymbolInfo lambdaSymbol = null;
+        if(isTrusted(functionInvokeExpression) && functionInvokeExpression.getLambdaDepth() >= 0) {
+            //Straight to the scope of the variable, without a lookup in the scopes in between
+            lambdaSymbol = context.getSymbolInfo(functionInvokeExpression.getFunctionName(),
+                    functionInvokeExpression.getLambdaDepth());
+        }
+        if(null == lambdaSymbol) {
+            lambdaSymbol = context.getSymbolInfo(functionInvokeExpression.getFunctionName());
+        }
+        if(null == lambdaSymbol) {
             throw new RuntimeException("Undefined function : " + functionInvokeExpression.getFunctionName());
         }
-        List<SymbolInfo> actualParams = functionInvokeExpression.getActualFunctionArguments()
-                .stream()
-                .map(expression -> expression.accept(this, context))
-                .collect(Collectors.toList());
 
-        if(actualParams.size() != function.getFormalArguments().entrySet().size()) {
-            System.out.println(functionInvokeExpression.getFunctionName());
-            throw new RuntimeException("Formal and actual param size doesn't match");
+        if(TypeCategory.FUNCTION != lambdaSymbol.getDataType().getTypeCategory()) {
+            throw new RuntimeException(functionInvokeExpression.getFunctionName() + " is not a function getType");
         }
 
-        Context functionContext = new LexicalContext(context.getFunctionTable());
+        Function function = lambdaSymbol.getFunctionValue();
+        if(null == function) {
+            throw new RuntimeException("Undefined function : " + functionInvokeExpression.getFunctionName());
+        }
+        return function;
+    }
+
+    private void bindFunctionContext(FunctionInvokeExpression functionInvokeExpression, Function function,
+                                     List<SymbolInfo> actualParams, Context functionContext, boolean checkParams) {
+        if(checkParams && actualParams.size() != function.getFormalArguments().entrySet().size()) {
+            throw new RuntimeException("Formal and actual param size doesn't match : "
+                    + functionInvokeExpression.getFunctionName());
+        }
 
         if(null != function.getCapturedVariables()) {
             for(Map.Entry<String, SymbolInfo> capturedEntry : function.getCapturedVariables().entrySet()) {
@@ -564,36 +710,55 @@ public class Interpreter implements IVisitor {
             }
         }
 
-        Set<Map.Entry<String, Type>> formalParams = function.getFormalArguments().entrySet();
-
         int i = 0;
         for (Map.Entry<String, Type> formalParam : function.getFormalArguments().entrySet()) {
-            if (!actualParams.get(i).getDataType().equals(formalParam.getValue())) {
+            if (checkParams && actualParams.get(i).getDataType() != formalParam.getValue()) {
                 throw new RuntimeException("Actual and formal params data getType is not matching");
             }
 
             functionContext.addToSymbolTable(formalParam.getKey(), actualParams.get(i));
             i++;
         }
+    }
 
-        boolean foundReturn = false;
-        for(Statement statement : function.getBody()) {
-            statement.accept(this, functionContext);
-            SymbolInfo returnInfo = functionContext.getSymbolInfo("return");
-            if(null != returnInfo && !(function.getReturnType().equals(returnInfo.getDataType()))) {
-                throw new RuntimeException("Return getType doesn't match the function definition");
-            }
+    @Override
+    public SymbolInfo visit(TailCallExpression tailCallExpression, Context context) {
+        List<SymbolInfo> actualParams = new ArrayList<>(tailCallExpression.getActualFunctionArguments().size());
+        for (Expression expression : tailCallExpression.getActualFunctionArguments()) {
+            actualParams.add(expression.accept(this, context));
+        }
+        return new TailCall(actualParams, isTrusted(tailCallExpression));
+    }
+
+    @Override
+    public SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context) {
+        //Arguments are bound in a scope nested in the caller, the inliner has already checked that the body
+        //doesn't refer to anything other than its own params and locals
+        Context inlinedContext = new LexicalContext(context);
+        Function function = inlinedFunctionInvokeExpression.getFunction();
+
+        Iterator<Expression> actualParams = inlinedFunctionInvokeExpression.getActualFunctionArguments().iterator();
+        for (String formalParam : function.getFormalArguments().keySet()) {
+            inlinedContext.addToSymbolTable(formalParam, actualParams.next().accept(this, context));
+        }
+
+        listener.enter(function);
+        Object event = SlangEvents.INSTANCE.beginInvocation(function);
+        for(Statement statement : inlinedFunctionInvokeExpression.getBody()) {
+            listener.statement(statement);
+            statement.accept(this, inlinedContext);
+            SymbolInfo returnInfo = inlinedContext.getSymbolInfoFromCurrentScope("return");
             if(null != returnInfo) {
-                foundReturn = true;
+                if(!isTrusted(function) && function.getReturnType() != returnInfo.getDataType()) {
+                    throw new RuntimeException("Return getType doesn't match the function definition");
+                }
+                SlangEvents.INSTANCE.endInvocation(event, function, function.getFormalArguments().size());
+                listener.exit(function);
                 return returnInfo;
             }
         }
 
-        if(!foundReturn) {
-            throw new RuntimeException("Expecting a return statement in AST");
-        }
-
-        return null;
+        throw new RuntimeException("Expecting a return statement in AST");
     }
 
     @Override
@@ -606,10 +771,64 @@ public class Interpreter implements IVisitor {
         return SymbolInfo.builder().withDataType(Type.VOID).build();
     }
 
+    /**
+     * The leading variable declarations of main, the setup which {@link #setUp(Module)} runs on its own
+     */
+    public static int setUpLength(Function main) {
+        int length = 0;
+        for (Statement statement : main.getBody()) {
+            if (!(statement instanceof VariableDeclarationStatement)
+                    && !(statement instanceof VariableDeclAndAssignStatement)) {
+                break;
+            }
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Runs the setup of main and returns main's frame, which {@link #resume(Module, Context)} continues from
+     */
+    public Context setUp(Module module) {
+        Function main = module.getFunctionsMap().get("main");
+        Context frame = new LexicalContext(module.getFunctionsMap());
+        List<Statement> body = main.getBody();
+        for (int i = 0, length = setUpLength(main); i < length; i++) {
+            body.get(i).accept(this, frame);
+        }
+        return frame;
+    }
+
+    /**
+     * Runs the rest of main after its setup, in a frame from {@link #setUp(Module)} or restored from a snapshot
+     */
+    public void resume(Module module, Context frame) {
+        Function main = module.getFunctionsMap().get("main");
+        FunctionInvokeExpression invocation = new FunctionInvokeExpression("main", new ArrayList<>());
+        invocation.setTarget(main);
+        listener.enter(main);
+        Object event = SlangEvents.INSTANCE.beginInvocation(main);
+        try {
+            run(invocation, main, frame, setUpLength(main));
+        } catch (RuntimeException | Error e) {
+            listener.aborted();
+            throw e;
+        }
+        SlangEvents.INSTANCE.endInvocation(event, main, 0);
+        listener.exit(main);
+    }
+
     @Override
     public SymbolInfo visit(Module module, Context context) {
         Context moduleContext = new LexicalContext(context, module.getFunctionsMap());
-        new FunctionInvokeExpression("main", new ArrayList<>()).accept(this, moduleContext);
+        FunctionInvokeExpression main = new FunctionInvokeExpression("main", new ArrayList<>());
+        main.setTarget(module.getFunctionsMap().get("main"));
+        try {
+            main.accept(this, moduleContext);
+        } catch (RuntimeException | Error e) {
+            listener.aborted();
+            throw e;
+        }
         return null;
     }
 
@@ -779,4 +998,13 @@ public class Interpreter implements IVisitor {
         }
     }
 
+    //Runtime checks can be skipped for whatever the SemanticAnalyzer has proved, unless running paranoid
+    private boolean isTrusted(Expression expression) {
+        return !paranoid && null != expression.getStaticType();
+    }
+
+    private boolean isTrusted(Function function) {
+        return !paranoid && function.isTypeChecked();
+    }
+
 }
@@ -0,0 +1,47 @@
+package com.slang.visitor;
+
+import com.slang.ast.Function;
+import com.slang.ast.Statement;
+
+/**
+ * Called by the {@link Interpreter} around every invocation of a function or lambda, inlined calls included, and
+ * before every statement of their bodies, on the thread running it. A self tail call stays in the frame of its
+ * first invocation. Unless profiling, the interpreter uses {@link #NONE}; a call then checks for it once and runs
+ * without the hooks, so they don't add to the Java stack of every Slang call.
+ */
+public interface InvocationListener {
+
+    InvocationListener NONE = new InvocationListener() {
+        @Override
+        public void enter(Function function) {
+        }
+
+        @Override
+        public void exit(Function function) {
+        }
+
+        @Override
+        public void statement(Statement statement) {
+        }
+
+        @Override
+        public void aborted() {
+        }
+    };
+
+    void enter(Function function);
+
+    void exit(Function function);
+
+    /**
+     * The statement about to run in the current invocation, also the while statement before its condition is
+     * evaluated again
+     */
+    void statement(Statement statement);
+
+    /**
+     * The run of main or the invocation from the embedding application ended with an exception, instead of the
+     * exits of the invocations which were still running on this thread
+     */
+    void aborted();
+}
@@ -13,6 +13,10 @@ import java.util.Map;
  */
 public class LexicalContext extends Context {
 
+    {
+        AllocationTracker.frameCreated();
+    }
+
     protected Context parentContext = null;
     protected Map<String, Function> functionTable;
     protected Function currentFunction;
@@ -62,6 +66,22 @@ public class LexicalContext extends Context {
         return symbolTable.get(symbolName);
     }
 
+    @Override
+    public int getSymbolDepth(String symbolName) {
+        if (symbolTable.containsKey(symbolName)) {
+            return 0;
+        }
+        int depth = null == parentContext ? -1 : parentContext.getSymbolDepth(symbolName);
+        return depth < 0 ? -1 : depth + 1;
+    }
+
+    @Override
+    public SymbolInfo getSymbolInfo(String symbolName, int depth) {
+        return 0 == depth ? symbolTable.get(symbolName)
+                : null == parentContext ? null
+                : parentContext.getSymbolInfo(symbolName, depth - 1);
+    }
+
     @Override
     public Function getFunction(String functionIdentifier) {
         return null == functionTable
@@ -77,7 +97,10 @@ public class LexicalContext extends Context {
 
     @Override
     public Function getCurrentFunction() {
-        return currentFunction;
+        return null == currentFunction
+                ? null == parentContext
+                ? null : parentContext.getCurrentFunction()
+                : currentFunction;
     }
 
     @Override
@@ -111,6 +134,9 @@ public class LexicalContext extends Context {
 
     @Override
     public Map<String, Function> getFunctionTable() {
-        return functionTable;
+        return null == functionTable
+                ? null == parentContext
+                ? null : parentContext.getFunctionTable()
+                : functionTable;
     }
 }
@@ -4,6 +4,7 @@ import com.slang.SymbolInfo;
 import com.slang.Type;
 import com.slang.TypeCategory;
 import com.slang.ast.*;
+import com.slang.ast.Module;
 
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -16,7 +17,7 @@ public class SemanticAnalyzer implements IVisitor{
 
     @Override
     public SymbolInfo visit(NumericExpression expression, Context context) {
-        return SymbolInfo.builder().withDataType(expression.getDataType()).build();
+        return annotate(expression, SymbolInfo.builder().withDataType(expression.getDataType()).build());
     }
 
     @Override
@@ -26,36 +27,36 @@ public class SemanticAnalyzer implements IVisitor{
         if (!(dataType == Type.INTEGER || dataType == Type.LONG || dataType == Type.FLOAT || dataType == Type.DOUBLE)) {
             throw new RuntimeException("Unary operator " + expression.getOperator() + " is not allowed on datatype " + dataType);
         }
-        return symbolInfo;
+        return annotate(expression, symbolInfo);
     }
 
     @Override
     public SymbolInfo visit(ArithmeticExpressionExpression expression, Context context) {
         SymbolInfo lhsInfo = expression.getLeftExpression().accept(this, context);
         SymbolInfo rhsInfo = expression.getRightExpression().accept(this, context);
-        return TypeCheckerHelper.checkArithmeticExpresion(lhsInfo, rhsInfo, expression.getOperator());
+        return annotate(expression, TypeCheckerHelper.checkArithmeticExpresion(lhsInfo, rhsInfo, expression.getOperator()));
     }
 
     @Override
     public SymbolInfo visit(StringLiteral stringLiteral, Context context) {
-        return SymbolInfo.builder().withDataType(Type.STRING).build();
+        return annotate(stringLiteral, SymbolInfo.builder().withDataType(Type.STRING).build());
     }
 
     @Override
     public SymbolInfo visit(BooleanExpression booleanExpression, Context context) {
-        return SymbolInfo.builder().withDataType(Type.BOOL).build();
+        return annotate(booleanExpression, SymbolInfo.builder().withDataType(Type.BOOL).build());
     }
 
     @Override
     public SymbolInfo visit(VariableExpression variableExpression, Context context) {
-        return context.getSymbolInfo(variableExpression.getVariableName());
+        return annotate(variableExpression, context.getSymbolInfo(variableExpression.getVariableName()));
     }
 
     @Override
     public SymbolInfo visit(RelationalExpression relationalExpression, Context context) {
         SymbolInfo lhsInfo = relationalExpression.getLeftExpression().accept(this, context);
         SymbolInfo rhsInfo = relationalExpression.getRightExpression().accept(this, context);
-        return TypeCheckerHelper.checkRelationalExpression(lhsInfo, rhsInfo, relationalExpression.getOperator());
+        return annotate(relationalExpression, TypeCheckerHelper.checkRelationalExpression(lhsInfo, rhsInfo, relationalExpression.getOperator()));
     }
 
     @Override
@@ -66,7 +67,7 @@ public class SemanticAnalyzer implements IVisitor{
         Token operator = logicalExpression.getOperator();
         if (lhsInfo.getDataType() == Type.BOOL && rhsInfo.getDataType() == Type.BOOL
                 && (operator == Token.OR || operator == Token.ANDAND)){
-            return SymbolInfo.builder().withDataType(Type.BOOL).build();
+            return annotate(logicalExpression, SymbolInfo.builder().withDataType(Type.BOOL).build());
         }
         throw new RuntimeException("Unsupported types lhs : " + lhsInfo.getDataType() + ", rhs : " + rhsInfo.getDataType() + " on operator " + operator);
     }
@@ -77,18 +78,19 @@ public class SemanticAnalyzer implements IVisitor{
         if(symbolInfo.getDataType() != Type.BOOL) {
             throw new RuntimeException("Unsupported getType " + symbolInfo.getDataType() + " on not operator ");
         }
-        return SymbolInfo.builder().withDataType(Type.BOOL).build();
+        return annotate(notExpression, SymbolInfo.builder().withDataType(Type.BOOL).build());
     }
 
     @Override
     public SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
         //TODO getType check lambda expression
         //TODO tree walk and find the correct variable to capture
-        final Function function = lambdaExpression.getFunction().clone();
-        function.setCapturedVariables(new LinkedHashMap<>(context.getSymbolTable()));
+        final Function function = lambdaExpression.getFunction().withCapturedVariables(context.getSymbolTable());
         function.accept(this, context);
+        //the interpreter copies the function of the lambda expression, not the one analysed here
+        lambdaExpression.getFunction().setTypeChecked(true);
 
-        return SymbolInfo.builder().withDataType(function.getType()).withFunctionValue(function).build();
+        return annotate(lambdaExpression, SymbolInfo.builder().withDataType(function.getType()).withFunctionValue(function).build());
     }
 
     @Override
@@ -125,7 +127,7 @@ public class SemanticAnalyzer implements IVisitor{
 //            }
 //            variableInfo.setDataType(rhsExpInfo.getDataType());
             return null;
-        } else if(!variableInfo.getDataType().getTypeName().equals(rhsExpInfo.getDataType().getTypeName())) {
+        } else if(variableInfo.getDataType() != rhsExpInfo.getDataType()) {
             throw new RuntimeException("Variable getType (" + variableInfo.getDataType() + ") doesn't match the rhs exp getType(" + rhsExpInfo.getDataType() + ")");
         }
 
@@ -155,7 +157,7 @@ public class SemanticAnalyzer implements IVisitor{
                     throw new RuntimeException("Break statement is not allowed without a parent loop");
                 } else if(ReturnStatement.class.isAssignableFrom(statement.getClass())) {
                     ReturnStatement returnStatement = ReturnStatement.class.cast(statement);
-                    SymbolInfo returnInfo = returnStatement.accept(this, context);
+                    SymbolInfo returnInfo = returnStatement.accept(this, ifContext);
                     Function currentFunction = context.getCurrentFunction();
                     if(currentFunction.getReturnType() != returnInfo.getDataType()) {
                         throw new RuntimeException("Return getType doesn't (" + currentFunction.getReturnType() + ") match function return getType ( " + returnInfo.getDataType() + ")");
@@ -194,9 +196,10 @@ public class SemanticAnalyzer implements IVisitor{
             throw new RuntimeException("Conditional expressions in while should be of getType boolean");
         }
 
+        //One scope for the whole body, like every iteration gets at runtime
+        Context whileContext = new LexicalContext(context);
+        whileContext.setCurrentBlock(whileStatement);
         for(Statement statement : whileStatement.getBody()) {
-            Context whileContext = new LexicalContext(context);
-            whileContext.setCurrentBlock(whileStatement);
             if(ReturnStatement.class.isAssignableFrom(statement.getClass())) {
                 ReturnStatement returnStatement = ReturnStatement.class.cast(statement);
                 SymbolInfo returnInfo = returnStatement.accept(this, whileContext);
@@ -250,6 +253,7 @@ public class SemanticAnalyzer implements IVisitor{
             }
             statement.accept(this, functionContext);
         }
+        function.setTypeChecked(true);
         return null;
     }
 
@@ -269,6 +273,8 @@ public class SemanticAnalyzer implements IVisitor{
             }
 
             Type functionType = functionValue.getDataType();
+            //The interpreter nests its scopes like the analyzer, the variable is as many scopes up at runtime
+            functionInvokeExpression.setLambdaDepth(context.getSymbolDepth(functionInvokeExpression.getFunctionName()));
 
             if(functionType.getFnFormalParamTypes().size() != functionInvokeExpression.getActualFunctionArguments().size()) {
                 throw new RuntimeException("Formal and actual param size doesn't match");
@@ -284,8 +290,10 @@ public class SemanticAnalyzer implements IVisitor{
 
             }
 
-            return SymbolInfo.builder().withDataType(functionType.getFnReturnType()).build();
+            return annotate(functionInvokeExpression, SymbolInfo.builder().withDataType(functionType.getFnReturnType()).build());
         } else {
+            //Top level functions take precedence over variables, so the call always resolves to this function
+            functionInvokeExpression.setTarget(function);
 
             if(function.getFormalArguments().entrySet().size() != functionInvokeExpression.getActualFunctionArguments().size()) {
                 throw new RuntimeException("Formal and actual param size doesn't match");
@@ -295,17 +303,27 @@ public class SemanticAnalyzer implements IVisitor{
             for(Expression expression : functionInvokeExpression.getActualFunctionArguments()) {
                 SymbolInfo expressionInfo = expression.accept(this, context);
                 Type formalParamtype = formalParamEntryIterator.next().getValue();
-                if(!formalParamtype.equals(expressionInfo.getDataType())) {
+                if(formalParamtype != expressionInfo.getDataType()) {
                     throw new RuntimeException("Formal and actual param getType mismatch");
                 }
 
             }
 
-            return SymbolInfo.builder().withDataType(function.getReturnType()).build();
+            return annotate(functionInvokeExpression, SymbolInfo.builder().withDataType(function.getReturnType()).build());
         }
 
     }
 
+    @Override
+    public SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context) {
+        return visit((FunctionInvokeExpression) inlinedFunctionInvokeExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(TailCallExpression tailCallExpression, Context context) {
+        return visit((FunctionInvokeExpression) tailCallExpression, context);
+    }
+
     @Override
     public SymbolInfo visit(FunctionInvokeStatement functionInvokeStatement, Context context) {
         return functionInvokeStatement.getFunctionInvokeExpression().accept(this, context);
@@ -313,7 +331,7 @@ public class SemanticAnalyzer implements IVisitor{
 
     @Override
     public SymbolInfo visit(VoidExpression voidExpression, Context context) {
-        return SymbolInfo.builder().withDataType(Type.VOID).build();
+        return annotate(voidExpression, SymbolInfo.builder().withDataType(Type.VOID).build());
     }
 
     @Override
@@ -324,4 +342,14 @@ public class SemanticAnalyzer implements IVisitor{
         });
         return null;
     }
+
+    /**
+     * Records the static getType of the expression on the node, the interpreter trusts it in place of re-checking
+     */
+    private SymbolInfo annotate(Expression expression, SymbolInfo symbolInfo) {
+        if (null != symbolInfo && null != symbolInfo.getDataType()) {
+            expression.setStaticType(symbolInfo.getDataType());
+        }
+        return symbolInfo;
+    }
 }
@@ -0,0 +1,29 @@
+package com.slang.visitor;
+
+import com.slang.SymbolInfo;
+
+import java.util.List;
+
+/**
+ * Returned in place of a value by a self tail call. The invocation of the function picks it up as its
+ * "return" symbol, rebinds the formal params to these arguments and runs the body again in the same frame.
+ */
+class TailCall extends SymbolInfo {
+
+    private final List<SymbolInfo> actualParams;
+    private final boolean trusted;
+
+    TailCall(List<SymbolInfo> actualParams, boolean trusted) {
+        this.actualParams = actualParams;
+        this.trusted = trusted;
+    }
+
+    List<SymbolInfo> getActualParams() {
+        return actualParams;
+    }
+
+    //Whether the arguments were proved to match the formal params by the SemanticAnalyzer
+    boolean isTrusted() {
+        return trusted;
+    }
+}
@@ -0,0 +1,206 @@
+package com.slang.visitor;
+
+import com.slang.SymbolInfo;
+import com.slang.ast.*;
+import com.slang.ast.Module;
+
+/**
+ * Walks every node of the AST without evaluating anything. Compiler passes which only need to inspect the
+ * tree (call graph, node counting etc.) extend this and override {@link #visitNode(IVisitable, Context)}
+ * or the individual visit methods they are interested in.
+ */
+public class TreeWalker implements IVisitor {
+
+    protected void visitNode(IVisitable node, Context context) {
+    }
+
+    protected void walk(Iterable<? extends IVisitable> nodes, Context context) {
+        if (null == nodes) {
+            return;
+        }
+        for (IVisitable node : nodes) {
+            node.accept(this, context);
+        }
+    }
+
+    @Override
+    public SymbolInfo visit(NumericExpression expression, Context context) {
+        visitNode(expression, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(UnaryExpression expression, Context context) {
+        visitNode(expression, context);
+        expression.getLeftExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(ArithmeticExpressionExpression expression, Context context) {
+        visitNode(expression, context);
+        expression.getLeftExpression().accept(this, context);
+        expression.getRightExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(StringLiteral stringLiteral, Context context) {
+        visitNode(stringLiteral, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(BooleanExpression booleanExpression, Context context) {
+        visitNode(booleanExpression, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableExpression variableExpression, Context context) {
+        visitNode(variableExpression, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(RelationalExpression relationalExpression, Context context) {
+        visitNode(relationalExpression, context);
+        relationalExpression.getLeftExpression().accept(this, context);
+        relationalExpression.getRightExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(LogicalExpression logicalExpression, Context context) {
+        visitNode(logicalExpression, context);
+        logicalExpression.getLeftExpression().accept(this, context);
+        logicalExpression.getRightExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(NotExpression notExpression, Context context) {
+        visitNode(notExpression, context);
+        notExpression.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(LambdaExpression lambdaExpression, Context context) {
+        visitNode(lambdaExpression, context);
+        lambdaExpression.getFunction().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(PrintStatement printStatement, Context context) {
+        visitNode(printStatement, context);
+        printStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(PrintlnStatement printlnStatement, Context context) {
+        visitNode(printlnStatement, context);
+        printlnStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclarationStatement variableDeclarationStatement, Context context) {
+        visitNode(variableDeclarationStatement, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableAssignmentStatement variableAssignmentStatement, Context context) {
+        visitNode(variableAssignmentStatement, context);
+        variableAssignmentStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VariableDeclAndAssignStatement variableDeclAndAssignStatement, Context context) {
+        visitNode(variableDeclAndAssignStatement, context);
+        variableDeclAndAssignStatement.getVariableDeclarationStatement().accept(this, context);
+        variableDeclAndAssignStatement.getVariableAssignmentStatement().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(IfStatement ifStatement, Context context) {
+        visitNode(ifStatement, context);
+        ifStatement.getBooleanExpression().accept(this, context);
+        walk(ifStatement.getTrueBody(), context);
+        walk(ifStatement.getFalseBody(), context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(WhileStatement whileStatement, Context context) {
+        visitNode(whileStatement, context);
+        whileStatement.getExpression().accept(this, context);
+        walk(whileStatement.getBody(), context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(BreakStatement breakStatement, Context context) {
+        visitNode(breakStatement, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(Function function, Context context) {
+        visitNode(function, context);
+        walk(function.getBody(), context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(ReturnStatement returnStatement, Context context) {
+        visitNode(returnStatement, context);
+        returnStatement.getExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeExpression functionInvokeExpression, Context context) {
+        visitNode(functionInvokeExpression, context);
+        walk(functionInvokeExpression.getActualFunctionArguments(), context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(InlinedFunctionInvokeExpression inlinedFunctionInvokeExpression, Context context) {
+        visitNode(inlinedFunctionInvokeExpression, context);
+        walk(inlinedFunctionInvokeExpression.getActualFunctionArguments(), context);
+        walk(inlinedFunctionInvokeExpression.getBody(), context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(TailCallExpression tailCallExpression, Context context) {
+        return visit((FunctionInvokeExpression) tailCallExpression, context);
+    }
+
+    @Override
+    public SymbolInfo visit(FunctionInvokeStatement functionInvokeStatement, Context context) {
+        visitNode(functionInvokeStatement, context);
+        functionInvokeStatement.getFunctionInvokeExpression().accept(this, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(VoidExpression voidExpression, Context context) {
+        visitNode(voidExpression, context);
+        return null;
+    }
+
+    @Override
+    public SymbolInfo visit(Module module, Context context) {
+        visitNode(module, context);
+        walk(module.getFunctionsMap().values(), context);
+        return null;
+    }
+}
@@ -201,7 +201,7 @@ public class TypeCheckerHelper {
     }
 
     public static boolean isEqual(Type type1, Type type2) {
-        return type1.getTypeName().equals(type2.getTypeName());
+        return type1 == type2;
     }
 
     public static boolean isNotEqual(Type type1, Type type2) {
@@ -0,0 +1,171 @@
+package com.slang.events.jfr;
+
+import com.slang.ast.Function;
+import com.slang.events.SlangEvents;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The {@link SlangEvents} as Java Flight Recorder events, in the Slang category of a recording. Only built by the
+ * jfr profile, see {@link SlangEvents#load()}.
+ */
+public class JfrEvents implements SlangEvents {
+
+    @Name("com.slang.Lexing")
+    @Label("Slang Lexing")
+    @Description("A separate pass of the lexer over the source, the parser lexes as it goes")
+    @Category({"Slang", "Compiler"})
+    static class Lexing extends Event {
+        @Label("Tokens")
+        long tokens;
+    }
+
+    @Name("com.slang.Parsing")
+    @Label("Slang Parsing")
+    @Category({"Slang", "Compiler"})
+    static class Parsing extends Event {
+        @Label("Functions")
+        int functions;
+    }
+
+    @Name("com.slang.Analysis")
+    @Label("Slang Analysis")
+    @Category({"Slang", "Compiler"})
+    static class Analysis extends Event {
+        @Label("Functions")
+        int functions;
+    }
+
+    @Name("com.slang.FunctionInvocation")
+    @Label("Slang Function Invocation")
+    @Description("A call of a top level function, including an inlined one")
+    @Category({"Slang", "Interpreter"})
+    static class FunctionInvocation extends Event {
+        @Label("Function")
+        String function;
+        @Label("Arguments")
+        int arguments;
+    }
+
+    @Name("com.slang.ClosureCreation")
+    @Label("Slang Closure Creation")
+    @Category({"Slang", "Interpreter"})
+    static class ClosureCreation extends Event {
+        @Label("Lambda")
+        String lambda;
+        @Label("Captured Variables")
+        int capturedVariables;
+    }
+
+    private static final EventType LEXING = EventType.getEventType(Lexing.class);
+    private static final EventType PARSING = EventType.getEventType(Parsing.class);
+    private static final EventType ANALYSIS = EventType.getEventType(Analysis.class);
+    private static final EventType FUNCTION_INVOCATION = EventType.getEventType(FunctionInvocation.class);
+    private static final EventType CLOSURE_CREATION = EventType.getEventType(ClosureCreation.class);
+
+    @Override
+    public Object beginLexing() {
+        if (!LEXING.isEnabled()) {
+            return null;
+        }
+        Lexing event = new Lexing();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endLexing(Object event, long tokens) {
+        if (end(event)) {
+            ((Lexing) event).tokens = tokens;
+            ((Lexing) event).commit();
+        }
+    }
+
+    @Override
+    public Object beginParsing() {
+        if (!PARSING.isEnabled()) {
+            return null;
+        }
+        Parsing event = new Parsing();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endParsing(Object event, int functions) {
+        if (end(event)) {
+            ((Parsing) event).functions = functions;
+            ((Parsing) event).commit();
+        }
+    }
+
+    @Override
+    public Object beginAnalysis() {
+        if (!ANALYSIS.isEnabled()) {
+            return null;
+        }
+        Analysis event = new Analysis();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endAnalysis(Object event, int functions) {
+        if (end(event)) {
+            ((Analysis) event).functions = functions;
+            ((Analysis) event).commit();
+        }
+    }
+
+    @Override
+    public boolean isInvocationRecorded() {
+        return FUNCTION_INVOCATION.isEnabled();
+    }
+
+    @Override
+    public Object beginInvocation(Function function) {
+        //closures carry the variables they captured, top level functions none
+        if (!FUNCTION_INVOCATION.isEnabled() || null != function.getCapturedVariables()) {
+            return null;
+        }
+        FunctionInvocation event = new FunctionInvocation();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endInvocation(Object event, Function function, int arguments) {
+        if (end(event)) {
+            ((FunctionInvocation) event).function = function.getName();
+            ((FunctionInvocation) event).arguments = arguments;
+            ((FunctionInvocation) event).commit();
+        }
+    }
+
+    @Override
+    public void closureCreated(Function closure) {
+        if (CLOSURE_CREATION.isEnabled()) {
+            ClosureCreation event = new ClosureCreation();
+            if (event.shouldCommit()) {
+                event.lambda = closure.getName();
+                event.capturedVariables = closure.getCapturedVariables().size();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Ends a begun event, true when it's long enough for the recording's threshold
+     */
+    private static boolean end(Object event) {
+        if (null == event) {
+            return false;
+        }
+        ((Event) event).end();
+        return ((Event) event).shouldCommit();
+    }
+}
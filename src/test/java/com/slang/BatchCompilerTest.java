@@ -0,0 +1,89 @@
+package com.slang;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchCompilerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String name, String source) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), source.getBytes("UTF-8"));
+        return file.toPath();
+    }
+
+    private void writeScripts() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            write("scripts/ok" + i + ".sl", "function void main() var x = add(" + i + ", 1); println x; end " +
+                    "function int add(int a, int b) return a + b; end");
+        }
+        write("scripts/nested/bad.sl", "function void main() var x = 1; x = \"no\"; end");
+        write("scripts/nested/parse.sl", "function void main( end");
+        write("scripts/readme.txt", "not a script");
+    }
+
+    @Test
+    public void testExpandDirectoriesAndGlobs() throws IOException {
+        writeScripts();
+        String root = folder.getRoot().getPath();
+
+        Assert.assertEquals(12, BatchCompiler.expand(Collections.singletonList(root)).size());
+        List<Path> glob = BatchCompiler.expand(Collections.singletonList(root + "/scripts/ok*.sl"));
+        Assert.assertEquals(10, glob.size());
+        Assert.assertEquals(new File(root, "scripts/ok0.sl").toPath(), glob.get(0));
+        Assert.assertEquals(2, BatchCompiler.expand(Collections.singletonList(root + "/**/nested/*.sl")).size());
+        //no duplicates
+        Assert.assertEquals(12, BatchCompiler.expand(Arrays.asList(root, root + "/scripts/ok1.sl")).size());
+    }
+
+    @Test
+    public void testAggregatedDiagnostics() throws IOException {
+        writeScripts();
+        List<Path> files = BatchCompiler.expand(Collections.singletonList(folder.getRoot().getPath()));
+
+        for (boolean checkOnly : new boolean[]{true, false}) {
+            BatchCompiler.Report report = new BatchCompiler(SlangEngine.create(), checkOnly, 4).compile(files);
+            Assert.assertEquals(12, report.getResults().size());
+            Assert.assertEquals(2, report.getFailures().size());
+            Assert.assertTrue(report.getFailures().get(0).getFile().endsWith("bad.sl"));
+            Assert.assertTrue(report.getFailures().get(1).getFile().endsWith("parse.sl"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            report.printDiagnostics(new PrintStream(out, true));
+            report.printTimings(new PrintStream(out, true), 5);
+            String printed = out.toString("UTF-8");
+            Assert.assertTrue(printed, printed.contains("bad.sl: error: "));
+            Assert.assertTrue(printed, printed.contains("7 more"));
+            Assert.assertTrue(printed, printed.contains("12 files, 2 failed"));
+        }
+    }
+
+    @Test
+    public void testStatisticsAreAddedUp() throws IOException {
+        writeScripts();
+        List<Path> files = BatchCompiler.expand(Collections.singletonList(folder.getRoot() + "/scripts/ok*.sl"));
+        BatchCompiler.Report report = new BatchCompiler(SlangEngine.create(), false, 2).compile(files);
+        Assert.assertEquals(0, report.getFailures().size());
+        Assert.assertEquals(10, report.getStatistics().get("inline.call-sites"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMissingFile() throws IOException {
+        BatchCompiler.expand(Collections.singletonList(folder.getRoot() + "/missing.sl"));
+    }
+}
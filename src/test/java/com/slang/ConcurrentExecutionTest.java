@@ -0,0 +1,63 @@
+package com.slang;
+
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentExecutionTest {
+
+    static final String PROGRAM = "function int apply((int)->int fn, int x) var r = fn(x); return r; end " +
+            "function int work(int n) var k = n; var f = lambda int (int x) return x + k; endlambda " +
+            "var total = 0; var i = 0; while (i < n) total = apply(f, total); i = i + 1; wend return total; end " +
+            "function int sum(int n) if (n == 0) then return 0; endif var r = sum(n - 1); return n + r; end " +
+            "function long count(int n, long acc) if (n == 0) then return acc; endif return count(n - 1, acc + 1); end " +
+            "function void main() var w = work(7); println w; var s = sum(20); println s; end";
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 300;
+
+    @Test
+    public void testOneModuleFromManyThreads() throws Exception {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        FunctionHandle work = module.getFunction("work");
+        FunctionHandle sum = module.getFunction("sum");
+        FunctionHandle count = module.getFunction("count");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int seed = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                int checked = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    int n = (seed + i) % 25 + 1;
+                    Assert.assertEquals(n * n, work.invokeInt(n));
+                    Assert.assertEquals(n * (n + 1) / 2, sum.invokeInt(n));
+                    Assert.assertEquals(100L * n, count.invoke(100 * n, 0L));
+
+                    CaptureSink out = new CaptureSink();
+                    module.run(out);
+                    Assert.assertEquals("49" + System.lineSeparator() + "210" + System.lineSeparator(), out.getOutput());
+                    checked++;
+                }
+                return checked;
+            }));
+        }
+        start.countDown();
+
+        for (Future<Integer> result : results) {
+            Assert.assertEquals(ITERATIONS, (int) result.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,68 @@
+package com.slang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocations per second of one compiled module shared by 1, 2, 4 .. available processors threads, the
+ * throughput should grow close to linearly as nothing is shared while running.
+ *
+ * Usage: ConcurrentThroughputBenchmark [seconds per thread count]
+ */
+public class ConcurrentThroughputBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+        FunctionHandle work = SlangEngine.create().compile(ConcurrentExecutionTest.PROGRAM).getFunction("work");
+
+        //warm up
+        for (int i = 0; i < 20000; i++) {
+            work.invokeInt(10);
+        }
+
+        System.out.println("threads     invocations/s   speedup");
+        double single = 0;
+        for (int threads = 1; threads <= cores; threads = threads < cores && threads * 2 > cores ? cores : threads * 2) {
+            double throughput = run(work, threads, seconds);
+            if (1 == threads) {
+                single = throughput;
+            }
+            System.out.printf("%7d %17.0f %9.2f%n", threads, throughput, throughput / single);
+        }
+    }
+
+    private static double run(FunctionHandle work, int threads, long seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder invocations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (running.get()) {
+                    work.invokeInt(10);
+                    invocations.increment();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        Thread.sleep(seconds * 1000);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return invocations.sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -0,0 +1,83 @@
+package com.slang;
+
+import com.slang.output.CaptureSink;
+import com.slang.profiler.AllocationProfile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PhaseStatisticsTest {
+
+    private static final String PROGRAM = "function void main() var r = fact(5); println r; end " +
+            "function int fact(int n) if (n == 0) then return 1; endif var m = fact(n - 1); return n * m; end";
+
+    @Test
+    public void testCompilePhases() {
+        PhaseStatistics phases = new PhaseStatistics();
+        CompiledModule module = SlangEngine.builder().withTailCalls(false).build()
+                .compile(PROGRAM, new CompileStatistics(), phases);
+        phases.measureFrames("interpret", () -> module.run(new CaptureSink()));
+
+        List<String> names = new ArrayList<>();
+        for (PhaseStatistics.Phase phase : phases.getPhases()) {
+            names.add(phase.getName());
+            Assert.assertTrue(phase.getWallNanos() > 0);
+        }
+        Assert.assertEquals("[lex, parse, analyse, optimize, interpret]", names.toString());
+        Assert.assertEquals(51, (long) phases.getCounts().get("tokens"));
+        Assert.assertTrue(phases.getCounts().get("nodes") > 10);
+        //a frame for the module and each of the 6 calls at least
+        Assert.assertTrue(phases.getPhases().get(4).getFrames() >= 7);
+        //the compiler phases don't pay for the counting
+        Assert.assertEquals(-1, phases.getPhases().get(0).getFrames());
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        phases.print(new PrintStream(table, true));
+        String[] lines = table.toString().split("\r?\n");
+        Assert.assertTrue(lines[1], lines[1].trim().endsWith(" n/a"));
+        Assert.assertTrue(lines[7], lines[7].startsWith("frames are counted in interpret only"));
+    }
+
+    @Test
+    public void testOutput() {
+        PhaseStatistics phases = new PhaseStatistics();
+        SlangEngine.create().compile(PROGRAM, new CompileStatistics(), phases);
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        phases.print(new PrintStream(table, true));
+        String[] lines = table.toString().split("\r?\n");
+        Assert.assertTrue(lines[0].startsWith("phase "));
+        Assert.assertTrue(lines[1].startsWith("lex "));
+        Assert.assertTrue(lines[5].startsWith("total "));
+        Assert.assertTrue(lines[6].startsWith("tokens : 51"));
+
+        String json = phases.toJson();
+        Assert.assertTrue(json, json.matches("\\{\"phases\":\\[(\\{\"name\":\"\\w+\",\"wallNanos\":\\d+,\"cpuNanos\":-?\\d+,"
+                + "\"allocatedBytes\":-?\\d+,\"frames\":-1},?){4}],\"counts\":\\{\"tokens\":51,\"nodes\":\\d+}}"));
+    }
+
+    @Test
+    public void testFramesOfTheMeasuringThreadOnly() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        PhaseStatistics phases = new PhaseStatistics();
+        phases.measureFrames("other thread", () -> {
+            Thread other = new Thread(() -> module.run(new CaptureSink()));
+            other.start();
+            try {
+                other.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        AllocationProfile profile = module.newAllocationProfile();
+        phases.measureFrames("profiled", () -> module.run(new CaptureSink(), profile));
+
+        Assert.assertEquals(0, phases.getPhases().get(0).getFrames());
+        Assert.assertTrue(profile.getTotalFrames() > 0);
+        Assert.assertEquals(profile.getTotalFrames(), phases.getPhases().get(1).getFrames());
+    }
+}
@@ -1,10 +1,9 @@
 package com.slang;
 
-import com.slang.ast.Function;
-import com.slang.ast.FunctionInvokeExpression;
+import com.slang.ast.*;
 import com.slang.ast.Module;
-import com.slang.ast.Statement;
 import com.slang.lexer.Lexer;
+import com.slang.output.CaptureSink;
 import com.slang.parser.Parser;
 import com.slang.visitor.*;
 import org.junit.Assert;
@@ -21,6 +20,8 @@ import java.util.Map;
  */
 public class ProgramTest {
 
+    private static final String NL = System.lineSeparator();
+
     @Rule
     public final ExpectedException expectedException = ExpectedException.none();
 
@@ -533,4 +534,146 @@ public class ProgramTest {
         module.accept(interpreter, context);
     }
 
+    @Test
+    public void testSemanticAnalyzerAnnotatesStaticTypes() {
+        Lexer lexer = new Lexer("function int add(int x, int y) if (x < y) then return y; endif return x + y; end " +
+                "function void main() var sum = add(10, 20); println sum; end ");
+        Parser parser = new Parser(lexer);
+        Module module = parser.parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+
+        Function add = module.getFunctionsMap().get("add");
+        Assert.assertTrue(add.isTypeChecked());
+        IfStatement ifStatement = (IfStatement) add.getBody().get(0);
+        Assert.assertTrue(Type.BOOL == ifStatement.getBooleanExpression().getStaticType());
+        ReturnStatement returnStatement = (ReturnStatement) add.getBody().get(1);
+        Assert.assertTrue(Type.INTEGER == returnStatement.getExpression().getStaticType());
+
+        VariableDeclAndAssignStatement sum = (VariableDeclAndAssignStatement) module.getFunctionsMap().get("main").getBody().get(0);
+        Assert.assertTrue(Type.INTEGER == sum.getVariableAssignmentStatement().getExpression().getStaticType());
+    }
+
+    @Test
+    public void testTrustedAndParanoidExecutionAgree() {
+        Lexer lexer = new Lexer("function int sum(int n) var total = 0; var i = 0; while (i < n) if (!(i == 3)) then total = total + i; endif " +
+                "i = i + 1; wend return total; end ");
+        Parser parser = new Parser(lexer);
+        Map<String, Function> functions = parser.parseFunctions();
+        new Module(functions).accept(new SemanticAnalyzer(), new LexicalContext());
+
+        List<Expression> args = new ArrayList<>();
+        args.add(new NumericExpression(10));
+        SymbolInfo trusted = new FunctionInvokeExpression("sum", args).accept(new Interpreter(), new LexicalContext(functions));
+        SymbolInfo paranoid = new FunctionInvokeExpression("sum", args).accept(new Interpreter(true), new LexicalContext(functions));
+        Assert.assertTrue(trusted.getIntegerValue().equals(42));
+        Assert.assertTrue(paranoid.getIntegerValue().equals(42));
+    }
+
+    @Test
+    public void testUnanalysedCodeIsCheckedAtRuntime() {
+        Lexer lexer = new Lexer("function int add(int x, int y) x = x + y; return x; end function void main() var x = 10.1f; var y = 20.1f; var sum = add(x, y); println x; end ");
+        Parser parser = new Parser(lexer);
+        Map<String, Function> functions = parser.parseFunctions();
+        Context context = new LexicalContext(functions);
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("Actual and formal params data getType is not matching");
+        new FunctionInvokeExpression("main", new ArrayList<>()).accept(new Interpreter(false), context);
+    }
+
+    @Test
+    public void testReturnInIfIsAnalysedInItsScope() {
+        Lexer lexer = new Lexer("function int f() var x = 1; if (true) then var x = \"s\"; return x; endif return 0; end " +
+                "function void main() var r = f(); println r; end ");
+        Module module = new Parser(lexer).parseModule();
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("Return getType doesn't");
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+    }
+
+    @Test
+    public void testReturnInWhileIsAnalysedInItsScope() {
+        Lexer lexer = new Lexer("function int f() var x = 1; while (true) var x = \"s\"; return x; wend return 0; end " +
+                "function void main() var r = f(); println r; end ");
+        Module module = new Parser(lexer).parseModule();
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("Return getType doesn't");
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+    }
+
+    @Test
+    public void testParanoidChecksReturnTypeOfTypeCheckedFunction() {
+        Lexer lexer = new Lexer("function int f() return \"s\"; end ");
+        Map<String, Function> functions = new Parser(lexer).parseFunctions();
+        functions.get("f").setTypeChecked(true);
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("Return getType doesn't match the function definition");
+        new FunctionInvokeExpression("f", new ArrayList<>()).accept(new Interpreter(true), new LexicalContext(functions));
+    }
+
+    @Test
+    public void testCallsAreBoundToTopLevelFunctions() {
+        Lexer lexer = new Lexer("function int add(int x, int y) return x + y; end " +
+                "function void main() var sum = add(10, 20); println sum; end ");
+        Parser parser = new Parser(lexer);
+        Module module = parser.parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+
+        VariableDeclAndAssignStatement statement = (VariableDeclAndAssignStatement) module.getFunctionsMap().get("main").getBody().get(0);
+        FunctionInvokeExpression call = (FunctionInvokeExpression) statement.getVariableAssignmentStatement().getExpression();
+        Assert.assertSame(module.getFunctionsMap().get("add"), call.getTarget());
+    }
+
+    @Test
+    public void testLambdaCallSite() {
+        Lexer lexer = new Lexer("function int apply((int, int)->int fn, int x) var r = fn(x, x); return r; end " +
+                "function void main() var a = lambda int (int x, int y) return x + y; endlambda " +
+                "var m = lambda int (int x, int y) return x * y; endlambda " +
+                "var r = apply(a, 3); println r; r = apply(m, 3); println r; r = apply(a, 4); println r; end ");
+        Parser parser = new Parser(lexer);
+        Module module = parser.parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+
+        VariableDeclAndAssignStatement statement = (VariableDeclAndAssignStatement) module.getFunctionsMap().get("apply").getBody().get(0);
+        FunctionInvokeExpression call = (FunctionInvokeExpression) statement.getVariableAssignmentStatement().getExpression();
+        Assert.assertNull(call.getTarget());
+
+        CaptureSink sink = new CaptureSink();
+        module.accept(new Interpreter(false, sink), new LexicalContext());
+        Assert.assertEquals("6" + NL + "9" + NL + "8" + NL, sink.getOutput());
+    }
+
+    @Test
+    public void testLambdaCallSiteKnowsTheScopeOfItsVariable() {
+        Lexer lexer = new Lexer("function int apply((int)->int fn, int x) var r = 0; var i = 0; " +
+                "while (i < 2) if (i == 1) then r = fn(x); endif i = i + 1; wend return r; end " +
+                "function void main() var f = lambda int (int x) return x + 1; endlambda var r = apply(f, 3); println r; end ");
+        Module module = new Parser(lexer).parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+
+        WhileStatement loop = (WhileStatement) module.getFunctionsMap().get("apply").getBody().get(2);
+        VariableAssignmentStatement assignment =
+                (VariableAssignmentStatement) ((IfStatement) loop.getBody().get(0)).getTrueBody().get(0);
+        //the if and the while scope are skipped, fn is in the frame of apply
+        Assert.assertEquals(2, ((FunctionInvokeExpression) assignment.getExpression()).getLambdaDepth());
+
+        CaptureSink sink = new CaptureSink();
+        module.accept(new Interpreter(false, sink), new LexicalContext());
+        Assert.assertEquals("4" + NL, sink.getOutput());
+    }
+
+    @Test
+    public void testCallSiteOfManyLambdas() {
+        StringBuilder program = new StringBuilder("function int apply((int)->int fn, int x) var r = fn(x); return r; end function void main() var r = 0; ");
+        for (int i = 1; i <= 5; i++) {
+            program.append("var f").append(i).append(" = lambda int (int x) return x + ").append(i).append("; endlambda ")
+                    .append("r = apply(f").append(i).append(", 10); println r; ");
+        }
+        program.append("end ");
+        Module module = new Parser(new Lexer(program.toString())).parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+
+        CaptureSink sink = new CaptureSink();
+        module.accept(new Interpreter(false, sink), new LexicalContext());
+        Assert.assertEquals("11" + NL + "12" + NL + "13" + NL + "14" + NL + "15" + NL, sink.getOutput());
+    }
 }
@@ -0,0 +1,107 @@
+package com.slang;
+
+import com.slang.ast.Module;
+import com.slang.ast.Token;
+import com.slang.generator.ProgramGenerator;
+import com.slang.lexer.Lexer;
+import com.slang.optimizer.Inliner;
+import com.slang.optimizer.TailCallOptimizer;
+import com.slang.output.CaptureSink;
+import com.slang.parser.Parser;
+import com.slang.visitor.Interpreter;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+
+import java.util.Arrays;
+
+/**
+ * Time of every phase over generated modules of doubling size. The slope is the exponent of the growth from the
+ * previous size, around 1 for linear phases, anything above 1.3 is flagged as super linear.
+ *
+ * Usage: ScalingCurves [smallest function count] [sizes] [runs per size]
+ */
+public class ScalingCurves {
+
+    private static final String[] PHASES = {"lex", "parse", "analyse", "optimize", "run"};
+    private static final double SUPER_LINEAR = 1.3;
+
+    public static void main(String[] args) {
+        int smallest = args.length > 0 ? Integer.parseInt(args[0]) : 250;
+        int sizes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        //warm up
+        measure(smallest, 3);
+
+        System.out.printf("%9s %9s", "functions", "bytes");
+        for (String phase : PHASES) {
+            System.out.printf(" %12s %6s", phase + " ms", "slope");
+        }
+        System.out.println();
+
+        double[] previous = null;
+        int previousSize = 0;
+        boolean superLinear = false;
+        for (int i = 0, size = smallest; i < sizes; i++, size *= 2) {
+            double[] times = measure(size, runs);
+            System.out.printf("%9d %9d", size, generate(size).length());
+            for (int phase = 0; phase < PHASES.length; phase++) {
+                if (null == previous) {
+                    System.out.printf(" %12.2f %6s", times[phase], "");
+                    continue;
+                }
+                double slope = Math.log(times[phase] / previous[phase]) / Math.log((double) size / previousSize);
+                superLinear |= slope > SUPER_LINEAR;
+                System.out.printf(" %12.2f %6.2f%s", times[phase], slope, slope > SUPER_LINEAR ? "!" : "");
+            }
+            System.out.println();
+            previous = times;
+            previousSize = size;
+        }
+        if (superLinear) {
+            System.out.println("! grows faster than linearly");
+        }
+    }
+
+    private static String generate(int functions) {
+        return ProgramGenerator.builder().withFunctions(functions).build().generate();
+    }
+
+    //median milliseconds of every phase
+    private static double[] measure(int functions, int runs) {
+        String source = generate(functions);
+        double[][] samples = new double[PHASES.length][runs];
+        for (int run = 0; run < runs; run++) {
+            long begin = System.nanoTime();
+            Lexer lexer = new Lexer(source);
+            lexer.eat();
+            while (Token.UNKNOWN != lexer.getCurrentToken()) {
+                lexer.eat();
+            }
+            long lexed = System.nanoTime();
+            Module module = new Parser(new Lexer(source)).parseModule();
+            long parsed = System.nanoTime();
+            module.accept(new SemanticAnalyzer(), new LexicalContext());
+            long analysed = System.nanoTime();
+            CompileStatistics statistics = new CompileStatistics();
+            new Inliner(Inliner.DEFAULT_SIZE_BUDGET, statistics).inline(module);
+            new TailCallOptimizer(statistics).optimize(module);
+            long optimized = System.nanoTime();
+            module.accept(new Interpreter(false, new CaptureSink()), new LexicalContext());
+            long ran = System.nanoTime();
+
+            samples[0][run] = (lexed - begin) / 1e6;
+            samples[1][run] = (parsed - lexed) / 1e6;
+            samples[2][run] = (analysed - parsed) / 1e6;
+            samples[3][run] = (optimized - analysed) / 1e6;
+            samples[4][run] = (ran - optimized) / 1e6;
+        }
+
+        double[] medians = new double[PHASES.length];
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            Arrays.sort(samples[phase]);
+            medians[phase] = samples[phase][runs / 2];
+        }
+        return medians;
+    }
+}
@@ -0,0 +1,157 @@
+package com.slang;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+public class SlangDTest {
+
+    private static final String PROGRAM = "function void main() var x = fact(10); println x; print \"done\"; end " +
+            "function int fact(int n) if (n == 0) then return 1; endif var r = fact(n - 1); return n * r; end";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private SlangD daemon;
+    private Thread server;
+
+    private static final class Response {
+        private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        private int exitCode;
+    }
+
+    @Before
+    public void start() throws IOException {
+        daemon = new SlangD(0, 2, 4, folder.getRoot().toPath().resolve("slangd.token"));
+        server = new Thread(daemon::serve);
+        server.start();
+    }
+
+    @After
+    public void stop() throws Exception {
+        daemon.close();
+        server.join();
+    }
+
+    private Response request(String stdin, String... args) throws IOException {
+        return requestWithToken(DaemonProtocol.readToken(daemon.getTokenFile()), stdin, args);
+    }
+
+    private Response requestWithToken(String token, String stdin, String... args) throws IOException {
+        Response response = new Response();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            SlangDClient.sendRequest(new DataOutputStream(socket.getOutputStream()), token,
+                    folder.getRoot().getPath(), args, new ByteArrayInputStream(stdin.getBytes("UTF-8")));
+            response.exitCode = SlangDClient.copyResponse(new DataInputStream(socket.getInputStream()),
+                    response.stdout, response.stderr);
+        }
+        return response;
+    }
+
+    private static String expectedOutput(String program) {
+        CompiledModule module = SlangEngine.create().compile(program);
+        com.slang.output.CaptureSink out = new com.slang.output.CaptureSink();
+        SlangC.run(module, false, out, null, null);
+        return withoutIdentities(out.getOutput());
+    }
+
+    //the printed module shows the identity of nodes without toString
+    private static String withoutIdentities(ByteArrayOutputStream output) throws IOException {
+        return withoutIdentities(output.toString("UTF-8"));
+    }
+
+    private static String withoutIdentities(String output) {
+        return output.replaceAll("@[0-9a-f]+", "");
+    }
+
+    @Test
+    public void testRunsFileRelativeToTheClientDirectory() throws IOException {
+        Files.write(new File(folder.getRoot(), "fact.sl").toPath(), PROGRAM.getBytes("UTF-8"));
+
+        Response cold = request("", "--dump-stats", "fact.sl");
+        Assert.assertEquals(0, cold.exitCode);
+        Assert.assertEquals(expectedOutput(PROGRAM), withoutIdentities(cold.stdout));
+        Assert.assertTrue(cold.stderr.toString("UTF-8").contains("daemon.misses"));
+
+        Response warm = request("", "--dump-stats", "fact.sl");
+        Assert.assertEquals(cold.stdout.toString("UTF-8"), warm.stdout.toString("UTF-8"));
+        Assert.assertTrue(warm.stderr.toString("UTF-8").contains("daemon.hits"));
+
+        //other options compile again
+        Response other = request("", "--dump-stats", "--no-inline", "fact.sl");
+        Assert.assertTrue(other.stderr.toString("UTF-8").contains("daemon.misses"));
+    }
+
+    @Test
+    public void testStatsAndModuleOnRequest() throws IOException {
+        Response response = request(PROGRAM, "--stats=json", "-");
+        String stats = response.stderr.toString("UTF-8");
+        Assert.assertTrue(stats, stats.startsWith("{\"phases\":[{\"name\":\"lex\""));
+        Assert.assertTrue(stats, stats.contains("\"name\":\"interpret\""));
+        Assert.assertFalse(response.stdout.toString("UTF-8").contains("Module{"));
+
+        Assert.assertTrue(request(PROGRAM, "--print-module", "-").stdout.toString("UTF-8").startsWith("Module{"));
+    }
+
+    @Test
+    public void testProgramFromStdin() throws IOException {
+        Response response = request(PROGRAM, "-");
+        Assert.assertEquals(0, response.exitCode);
+        Assert.assertEquals(expectedOutput(PROGRAM), withoutIdentities(response.stdout));
+    }
+
+    @Test
+    public void testErrorsGoToStderr() throws IOException {
+        Response response = request("function void main( end", "-");
+        Assert.assertEquals(1, response.exitCode);
+        Assert.assertEquals("", response.stdout.toString("UTF-8"));
+        Assert.assertTrue(response.stderr.toString("UTF-8").contains("RuntimeException"));
+
+        Response usage = request("", "--no-such-option", "fact.sl");
+        Assert.assertEquals(0, usage.exitCode);
+        Assert.assertEquals("unknown option --no-such-option\n", usage.stdout.toString("UTF-8"));
+    }
+
+    @Test
+    public void testRunsAreCounted() throws IOException {
+        Response response = request(PROGRAM, "-");
+        Assert.assertEquals(0, response.exitCode);
+        Assert.assertEquals(1, daemon.getMetrics().getExecutions());
+        Assert.assertEquals(11, (long) daemon.getMetrics().getInvocations().get("fact"));
+    }
+
+    @Test
+    public void testRequestWithoutTheTokenRunsNothing() throws IOException {
+        Response response = requestWithToken("0", PROGRAM, "--snapshot=written.snap", "-");
+        Assert.assertEquals(2, response.exitCode);
+        Assert.assertEquals("", response.stdout.toString("UTF-8"));
+        Assert.assertTrue(response.stderr.toString("UTF-8").contains("wrong token"));
+        Assert.assertFalse(new File(folder.getRoot(), "written.snap").exists());
+        Assert.assertEquals(0, daemon.getMetrics().getExecutions());
+    }
+
+    @Test
+    public void testOnlyTheUserCanReadTheToken() throws IOException {
+        Path tokenFile = daemon.getTokenFile();
+        Assert.assertEquals(64, DaemonProtocol.readToken(tokenFile).length());
+        if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+        }
+    }
+}
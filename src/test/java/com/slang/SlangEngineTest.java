@@ -0,0 +1,78 @@
+package com.slang;
+
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class SlangEngineTest {
+
+    private static final String PROGRAM = "function int add(int x, int y) return x + y; end " +
+            "function long inc(long n) return n + 1; end " +
+            "function double half(double d) return d / 2.0; end " +
+            "function string greet(string name) return \"hello \" + name; end " +
+            "function void main() var r = add(1, 2); println r; end";
+
+    @Rule
+    public final ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void testCompileOnceInvokeMany() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        FunctionHandle add = module.getFunction("add");
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i + 10, add.invokeInt(i, 10));
+        }
+        Assert.assertEquals(10000000001L, module.getFunction("inc").invokeLong(10000000000L));
+        Assert.assertEquals(1.25, module.getFunction("half").invokeDouble(2.5), 0.0);
+    }
+
+    @Test
+    public void testBoxedInvoke() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        Assert.assertEquals(7, module.invoke("add", 3, 4));
+        Assert.assertEquals("hello slang", module.invoke("greet", "slang"));
+    }
+
+    @Test
+    public void testRunWithSink() {
+        CaptureSink out = new CaptureSink();
+        CompiledModule module = SlangEngine.builder().withOutput(out).build().compile(PROGRAM);
+        module.run();
+        module.run();
+        Assert.assertEquals("3" + System.lineSeparator() + "3" + System.lineSeparator(), out.getOutput());
+    }
+
+    @Test
+    public void testArgumentsAreChecked() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("Actual and formal params data getType is not matching");
+        module.invoke("add", 3, 4L);
+    }
+
+    @Test
+    public void testArgumentCountIsChecked() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("Formal and actual param size doesn't match : add");
+        module.invoke("add", 3);
+    }
+
+    @Test
+    public void testReturnTypeIsChecked() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("add returns INTEGER, not LONG");
+        module.getFunction("add").invokeLong(1L, 2L);
+    }
+
+    @Test
+    public void testUndefinedFunction() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("Undefined function : sub");
+        module.getFunction("sub");
+    }
+}
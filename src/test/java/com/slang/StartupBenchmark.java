@@ -0,0 +1,71 @@
+package com.slang;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Time from launching a SlangC process to its first byte of output, with the class data sharing of the JDK off,
+ * with the JDK's default archive and with the archive built by bin/slangc-cds-archive. Runs the JVM this benchmark
+ * runs on, which has to be the JDK the archive was built with.
+ *
+ * Usage: StartupBenchmark [runs] [file]
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        String file = args.length > 1 ? args[1] : "src/main/java/hello.sl";
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String jar = "target/slangc.jar";
+        String archive = "target/slangc.jsa";
+        if (!new File(archive).exists()) {
+            System.out.println("no " + archive + ", run bin/slangc-cds-archive first");
+            System.exit(0);
+        }
+
+        List<String[]> configurations = Arrays.asList(
+                new String[]{"no sharing", "-Xshare:off"},
+                new String[]{"jdk archive", "-Xshare:auto"},
+                new String[]{"slangc archive", "-Xshare:auto", "-XX:SharedArchiveFile=" + archive});
+
+        System.out.println("configuration     median ms      min ms");
+        for (String[] configuration : configurations) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(Arrays.asList(configuration).subList(1, configuration.length));
+            command.addAll(Arrays.asList("-cp", jar, "com.slang.SlangC", file));
+
+            //warm up the file system cache
+            timeToFirstOutput(command);
+            List<Long> times = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                times.add(timeToFirstOutput(command));
+            }
+            Collections.sort(times);
+            System.out.printf("%-14s %12.1f %11.1f%n", configuration[0], times.get(times.size() / 2) / 1e6,
+                    times.get(0) / 1e6);
+        }
+    }
+
+    private static long timeToFirstOutput(List<String> command) throws IOException, InterruptedException {
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        InputStream out = process.getInputStream();
+        if (out.read() < 0) {
+            throw new RuntimeException("No output from " + command);
+        }
+        long time = System.nanoTime() - begin;
+        byte[] rest = new byte[8192];
+        while (out.read(rest) >= 0) {
+        }
+        if (process.waitFor() != 0) {
+            throw new RuntimeException("Failed " + command);
+        }
+        return time;
+    }
+}
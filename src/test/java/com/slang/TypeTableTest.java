@@ -0,0 +1,46 @@
+package com.slang;
+
+import com.slang.ast.LambdaExpression;
+import com.slang.ast.Module;
+import com.slang.ast.VariableDeclAndAssignStatement;
+import com.slang.lexer.Lexer;
+import com.slang.parser.Parser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TypeTableTest {
+
+    @Test
+    public void testPrimitivesAreRegistered() {
+        Assert.assertSame(Type.INTEGER, TypeTable.getType(Type.INTEGER.getId()));
+        Assert.assertSame(Type.VOID, TypeTable.getType("VOID"));
+        Assert.assertTrue(TypeTable.size() >= 7);
+    }
+
+    @Test
+    public void testFunctionTypesAreInterned() {
+        Type first = TypeTable.functionType(Arrays.asList(Type.INTEGER, Type.LONG), Type.BOOL);
+        Type second = TypeTable.functionType(Arrays.asList(Type.INTEGER, Type.LONG), Type.BOOL);
+        Assert.assertSame(first, second);
+        Assert.assertEquals("(INTEGER,LONG)->BOOL", first.getTypeName());
+        Assert.assertEquals(TypeCategory.FUNCTION, first.getTypeCategory());
+        Assert.assertSame(first, TypeTable.getType(first.getId()));
+        Assert.assertNotSame(first, TypeTable.functionType(Arrays.asList(Type.LONG, Type.INTEGER), Type.BOOL));
+    }
+
+    @Test
+    public void testParsedFunctionsShareTypes() {
+        String program = "function void main() println 1; end " +
+                "function int add(int a, int b) return a + b; end " +
+                "function int sub(int a, int b) return a - b; end " +
+                "function int apply((int, int)->int fn) var f = lambda int (int x, int y) return x; endlambda return 0; end";
+        Module module = new Parser(new Lexer(program)).parseModule();
+        Type add = module.getFunctionsMap().get("add").getType();
+        Assert.assertSame(add, module.getFunctionsMap().get("sub").getType());
+        Assert.assertSame(add, module.getFunctionsMap().get("apply").getFormalArguments().get("fn"));
+        VariableDeclAndAssignStatement lambda = (VariableDeclAndAssignStatement) module.getFunctionsMap().get("apply").getBody().get(0);
+        Assert.assertSame(add, ((LambdaExpression) lambda.getVariableAssignmentStatement().getExpression()).getFunction().getType());
+    }
+}
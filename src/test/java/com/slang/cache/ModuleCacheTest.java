@@ -0,0 +1,198 @@
+package com.slang.cache;
+
+import com.slang.CompileStatistics;
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.ast.FunctionInvokeExpression;
+import com.slang.ast.Module;
+import com.slang.ast.Statement;
+import com.slang.lexer.Lexer;
+import com.slang.output.CaptureSink;
+import com.slang.parser.Parser;
+import com.slang.visitor.Context;
+import com.slang.visitor.IVisitable;
+import com.slang.visitor.Interpreter;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+import com.slang.visitor.TreeWalker;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ModuleCacheTest {
+
+    //every statement and expression, inlined calls, tail calls and lambdas
+    private static final String PROGRAM = "function int add(int x, int y) return x + y; end " +
+            "function long count(int n, long acc) if (n == 0) then return acc; endif return count(n - 1, acc + 1); end " +
+            "function int apply((int)->int fn, int x) var r = fn(x); return r; end " +
+            "function void main() var s = add(1, 2); println s; var c = count(1000, 0l); println c; " +
+            "var k = 5; var f = lambda int (int x) return x * k; endlambda var a = apply(f, 3); println a; " +
+            "var d = 2.5; var g = 1.5f; println -d; println d / 2; println g; print \"no newline \"; println \"\\u00e9t\\u00e9\"; " +
+            "var i = 0; while (i < 10) i = i + 1; if (i == 4 && !(i > 5) || false) then println i; else println 0; endif " +
+            "if (i == 7) then break; endif wend println i; println true; end";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static String run(Module module) {
+        CaptureSink out = new CaptureSink();
+        module.accept(new Interpreter(false, out), new LexicalContext());
+        return out.getOutput();
+    }
+
+    private static Module compile(String source) {
+        Module module = new Parser(new Lexer(source)).parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        return module;
+    }
+
+    private static void assertRoundTrip(Module module) {
+        Module read = ModuleReader.read(ByteBuffer.wrap(ModuleWriter.write(module)));
+        //BreakStatement and VoidExpression print their identity
+        Assert.assertEquals(module.toString().replaceAll("@[0-9a-f]+", ""), read.toString().replaceAll("@[0-9a-f]+", ""));
+        Assert.assertEquals(run(module), run(read));
+        Assert.assertSame(module.getFunctionsMap().get("main").getType(), read.getFunctionsMap().get("main").getType());
+        Assert.assertEquals(lines(module), lines(read));
+        Assert.assertEquals(lambdaDepths(module), lambdaDepths(read));
+    }
+
+    private static List<Integer> lambdaDepths(Module module) {
+        List<Integer> depths = new ArrayList<>();
+        module.accept(new TreeWalker() {
+            @Override
+            protected void visitNode(IVisitable node, Context context) {
+                if (node instanceof FunctionInvokeExpression) {
+                    depths.add(((FunctionInvokeExpression) node).getLambdaDepth());
+                }
+            }
+        }, null);
+        return depths;
+    }
+
+    private static List<Integer> lines(Module module) {
+        List<Integer> lines = new ArrayList<>();
+        module.accept(new TreeWalker() {
+            @Override
+            protected void visitNode(IVisitable node, Context context) {
+                if (node instanceof Statement) {
+                    lines.add(((Statement) node).getLine());
+                }
+            }
+        }, null);
+        return lines;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Module module = compile(PROGRAM);
+        //the call through fn in apply
+        Assert.assertTrue(lambdaDepths(module).contains(0));
+        assertRoundTrip(module);
+    }
+
+    @Test
+    public void testRoundTripOfOptimizedModule() throws Exception {
+        Path cache = folder.newFolder().toPath();
+        SlangEngine engine = SlangEngine.builder().withCacheDirectory(cache).build();
+        engine.compile(PROGRAM);
+        try (java.util.stream.Stream<Path> files = Files.list(cache)) {
+            Assert.assertEquals(1, files.count());
+        }
+        Assert.assertEquals(run(compile(PROGRAM)), runCompiled(engine.compile(PROGRAM)));
+    }
+
+    @Test
+    public void testRoundTripOfSamples() throws Exception {
+        for (String sample : new String[]{"hello.sl", "lambda_examp.sl", "lambda_examp2.sl", "lambda_examp3.sl",
+                "recursion.sl", "recursion2.sl"}) {
+            assertRoundTrip(compile(new String(Files.readAllBytes(new File("src/main/java", sample).toPath()), "UTF-8")));
+        }
+    }
+
+    @Test
+    public void testWarmStartSkipsTheFrontEnd() throws Exception {
+        SlangEngine engine = SlangEngine.builder().withCacheDirectory(folder.newFolder().toPath()).build();
+
+        CompileStatistics cold = new CompileStatistics();
+        String expected = runCompiled(engine.compile(PROGRAM, cold));
+        Assert.assertEquals(1, cold.get("cache.misses"));
+
+        CompileStatistics warm = new CompileStatistics();
+        Assert.assertEquals(expected, runCompiled(engine.compile(PROGRAM, warm)));
+        Assert.assertEquals(1, warm.get("cache.hits"));
+        //nothing was inlined or rewritten again
+        Assert.assertEquals(0, warm.get("inline.call-sites"));
+
+        CompileStatistics changed = new CompileStatistics();
+        engine.compile(PROGRAM + " ", changed);
+        Assert.assertEquals(1, changed.get("cache.misses"));
+    }
+
+    @Test
+    public void testOptionsArePartOfTheKey() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        SlangEngine.builder().withCacheDirectory(directory).build().compile(PROGRAM);
+        CompileStatistics statistics = new CompileStatistics();
+        SlangEngine.builder().withCacheDirectory(directory).withInlining(false).build().compile(PROGRAM, statistics);
+        Assert.assertEquals(1, statistics.get("cache.misses"));
+    }
+
+    @Test
+    public void testCorruptEntryIsAMiss() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        SlangEngine engine = SlangEngine.builder().withCacheDirectory(directory).build();
+        engine.compile(PROGRAM);
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            Path entry = files.findFirst().get();
+            byte[] bytes = Files.readAllBytes(entry);
+            Files.write(entry, java.util.Arrays.copyOf(bytes, bytes.length / 2));
+        }
+
+        CompileStatistics statistics = new CompileStatistics();
+        Assert.assertEquals(run(compile(PROGRAM)), runCompiled(engine.compile(PROGRAM, statistics)));
+        Assert.assertEquals(1, statistics.get("cache.misses"));
+        CompileStatistics again = new CompileStatistics();
+        engine.compile(PROGRAM, again);
+        Assert.assertEquals(1, again.get("cache.hits"));
+    }
+
+    @Test
+    public void testHugeCountIsAMiss() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        SlangEngine engine = SlangEngine.builder().withCacheDirectory(directory).build();
+        engine.compile(PROGRAM);
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            //A type table of one type, named by a string longer than the file
+            Files.write(files.findFirst().get(), ByteBuffer.allocate(17).putInt(Format.MAGIC).putInt(Format.VERSION)
+                    .putInt(1).put(Format.PRIMITIVE_TYPE).putInt(Integer.MAX_VALUE).array());
+        }
+
+        CompileStatistics statistics = new CompileStatistics();
+        Assert.assertEquals(run(compile(PROGRAM)), runCompiled(engine.compile(PROGRAM, statistics)));
+        Assert.assertEquals(1, statistics.get("cache.misses"));
+    }
+
+    @Test
+    public void testUnwritableCacheDoesNotFailTheCompile() throws Exception {
+        //a file where the directory should be
+        Path directory = folder.newFile().toPath();
+        CompileStatistics statistics = new CompileStatistics();
+        CompiledModule module = SlangEngine.builder().withCacheDirectory(directory).build().compile(PROGRAM, statistics);
+        Assert.assertEquals(run(compile(PROGRAM)), runCompiled(module));
+        Assert.assertEquals(1, statistics.get("cache.store-failures"));
+    }
+
+    private static String runCompiled(CompiledModule module) {
+        CaptureSink out = new CaptureSink();
+        module.run(out);
+        return out.getOutput();
+    }
+}
@@ -0,0 +1,191 @@
+package com.slang.executor;
+
+import com.slang.CompiledModule;
+import com.slang.FunctionHandle;
+import com.slang.SlangEngine;
+import com.slang.output.OutputSink;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SlangExecutorTest {
+
+    private static final CompiledModule MODULE = SlangEngine.create().compile(
+            "function int sum(int n) if (n == 0) then return 0; endif var r = sum(n - 1); return n + r; end " +
+            "function int spin(int n) var i = 0; while (i < n) i = i + 1; wend return i; end " +
+            "function void main() println 1; end");
+
+    private static void runAll(SlangExecutor executor) throws Exception {
+        List<CompletableFuture<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            results.add(executor.submit(MODULE, "sum", i % 50));
+        }
+        for (int i = 0; i < 500; i++) {
+            int n = i % 50;
+            Assert.assertEquals(n * (n + 1) / 2, results.get(i).get(10, TimeUnit.SECONDS));
+        }
+        LatencyHistogram latencies = executor.getLatencies("sum");
+        Assert.assertEquals(500, latencies.getCount());
+        Assert.assertTrue(latencies.getPercentile(50) <= latencies.getPercentile(99));
+        Assert.assertTrue(latencies.getPercentile(99) <= latencies.getMax());
+    }
+
+    @Test
+    public void testPlatformThreads() throws Exception {
+        try (SlangExecutor executor = SlangExecutor.builder().withConcurrency(4).withQueueCapacity(8).build()) {
+            runAll(executor);
+        }
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        Assume.assumeTrue(SlangExecutor.isVirtualThreadsSupported());
+        try (SlangExecutor executor = SlangExecutor.builder().withConcurrency(4).withQueueCapacity(8)
+                .withVirtualThreads(true).build()) {
+            runAll(executor);
+        }
+    }
+
+    private static int maxRunning(SlangExecutor executor) throws Exception {
+        RunningSink sink = new RunningSink();
+        CompiledModule module = SlangEngine.builder().withOutput(sink).build().compile(
+                "function int busy(int n) println 1; var i = 0; while (i < n) i = i + 1; wend println 2; return n; end " +
+                "function void main() println 0; end");
+        List<CompletableFuture<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(executor.submit(module, "busy", 20000));
+        }
+        for (CompletableFuture<Object> result : results) {
+            Assert.assertEquals(20000, result.get(10, TimeUnit.SECONDS));
+        }
+        return sink.max.get();
+    }
+
+    @Test
+    public void testConcurrencyOfPlatformThreads() throws Exception {
+        try (SlangExecutor executor = SlangExecutor.builder().withConcurrency(2).withQueueCapacity(16).build()) {
+            Assert.assertTrue(maxRunning(executor) <= 2);
+        }
+    }
+
+    @Test
+    public void testConcurrencyOfVirtualThreads() throws Exception {
+        Assume.assumeTrue(SlangExecutor.isVirtualThreadsSupported());
+        try (SlangExecutor executor = SlangExecutor.builder().withConcurrency(2).withQueueCapacity(16)
+                .withVirtualThreads(true).build()) {
+            Assert.assertTrue(maxRunning(executor) <= 2);
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        FunctionHandle spin = MODULE.getFunction("spin");
+        try (SlangExecutor executor = SlangExecutor.builder().withConcurrency(1).withQueueCapacity(1).build()) {
+            List<CompletableFuture<Object>> accepted = new ArrayList<>();
+            CompletableFuture<Object> result;
+            while (null != (result = executor.trySubmit(spin, 200000))) {
+                accepted.add(result);
+            }
+            //refused once one invocation runs and one waits
+            Assert.assertFalse(accepted.isEmpty());
+            for (CompletableFuture<Object> future : accepted) {
+                Assert.assertEquals(200000, future.get(10, TimeUnit.SECONDS));
+            }
+            Assert.assertNotNull(executor.trySubmit(spin, 1));
+        }
+    }
+
+    @Test
+    public void testCloseKeepsTheInterrupt() throws Exception {
+        SlangExecutor executor = SlangExecutor.builder().withConcurrency(1).build();
+        CompletableFuture<Object> result = executor.submit(MODULE, "spin", 200000);
+        Thread.currentThread().interrupt();
+        executor.close();
+        Assert.assertTrue(Thread.interrupted());
+        Assert.assertEquals(200000, result.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailuresCompleteTheFuture() throws Exception {
+        try (SlangExecutor executor = SlangExecutor.builder().withConcurrency(2).build()) {
+            CompletableFuture<Object> result = executor.submit(MODULE, "sum", 1L);
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertEquals("Actual and formal params data getType is not matching", e.getCause().getMessage());
+            }
+            Assert.assertEquals(1, executor.getLatencies("sum").getCount());
+        }
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long nanos : new long[]{0, 1, 15, 16, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE}) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucket(nanos));
+            Assert.assertTrue(nanos <= upper);
+            Assert.assertTrue(upper - nanos <= nanos / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    //Counts the invocations running between their println 1 and println 2
+    private static final class RunningSink implements OutputSink {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        @Override
+        public void print(int value) {
+            if (1 == value) {
+                int now = running.incrementAndGet();
+                max.accumulateAndGet(now, Math::max);
+                //Blocks, so a virtual thread gives its carrier to the next invocation
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else if (2 == value) {
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void print(String value) {
+        }
+
+        @Override
+        public void print(long value) {
+        }
+
+        @Override
+        public void print(float value) {
+        }
+
+        @Override
+        public void print(double value) {
+        }
+
+        @Override
+        public void print(boolean value) {
+        }
+
+        @Override
+        public void newLine() {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.slang.generator;
+
+import com.slang.CompileStatistics;
+import com.slang.SlangEngine;
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProgramGeneratorTest {
+
+    private static String run(SlangEngine engine, String source) {
+        CaptureSink out = new CaptureSink();
+        engine.compile(source).run(out);
+        return out.getOutput();
+    }
+
+    @Test
+    public void testSameSeedSameModule() {
+        ProgramGenerator.Builder builder = ProgramGenerator.builder().withSeed(7).withFunctions(50);
+        Assert.assertEquals(builder.build().generate(), builder.build().generate());
+        Assert.assertNotEquals(builder.build().generate(), builder.withSeed(8).build().generate());
+    }
+
+    @Test
+    public void testGeneratedModulesCompileAndRun() {
+        SlangEngine optimized = SlangEngine.create();
+        SlangEngine plain = SlangEngine.builder().withInlining(false).withTailCalls(false).withParanoid(true).build();
+        for (int seed = 0; seed < 25; seed++) {
+            String source = ProgramGenerator.builder().withSeed(seed).withFunctions(30).build().generate();
+            String output = run(optimized, source);
+            Assert.assertTrue(output.endsWith("done" + System.lineSeparator()));
+            //the optimizers don't change what a program does
+            Assert.assertEquals("seed " + seed, output, run(plain, source));
+        }
+    }
+
+    @Test
+    public void testConfiguration() {
+        String none = ProgramGenerator.builder().withLambdaDensity(0).build().generate();
+        Assert.assertFalse(none.contains("var lam"));
+        String all = ProgramGenerator.builder().withLambdaDensity(1).build().generate();
+        Assert.assertTrue(all.contains("var lam0"));
+
+        String flat = ProgramGenerator.builder().withDepth(1).withExpressionDepth(0).build().generate();
+        Assert.assertFalse(flat.contains("\n            "));
+        Assert.assertFalse(flat.contains("((("));
+
+        String big = ProgramGenerator.builder().withFunctions(400).build().generate();
+        CompileStatistics statistics = new CompileStatistics();
+        SlangEngine.create().compile(big, statistics);
+        Assert.assertTrue(statistics.get("tailcall.sites") > 0);
+        Assert.assertTrue(statistics.get("inline.call-sites") > 0);
+    }
+}
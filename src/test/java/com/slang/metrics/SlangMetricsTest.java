@@ -0,0 +1,113 @@
+package com.slang.metrics;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+public class SlangMetricsTest {
+
+    private static final String PROGRAM = "function int add(int x, int y) return x + y; end " +
+            "function void main() var i = 0; var s = 0; while (i < 3) s = add(s, i); i = i + 1; wend " +
+            "println s; print \"\u00e9\"; end";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static SlangMetrics runAll(SlangMetrics metrics) {
+        CompiledModule module = SlangEngine.builder().withMetrics(metrics).build().compile(PROGRAM);
+        for (int i = 0; i < 2; i++) {
+            CaptureSink out = new CaptureSink();
+            module.run(out);
+            Assert.assertEquals("3\n\u00e9", out.getOutput());
+        }
+        Assert.assertEquals(3, module.getFunction("add").invokeInt(1, 2));
+        try {
+            module.invoke("add", 1L, 2L);
+            Assert.fail();
+        } catch (RuntimeException expected) {
+        }
+        return metrics;
+    }
+
+    @Test
+    public void testCounters() {
+        SlangMetrics metrics = runAll(new SlangMetrics());
+        Assert.assertEquals(4, metrics.getExecutions());
+        Assert.assertEquals(0, metrics.getActiveExecutions());
+        //the failed call never got to enter add
+        Assert.assertEquals("{add=7, main=2}", metrics.getInvocations().toString());
+        Assert.assertEquals("{Actual and formal params data getType is not matching=1}",
+                metrics.getErrors().toString());
+        //main at depth 1 and the six calls of add from main at 2, the call from the application at 1
+        Assert.assertEquals(15.0 / 9, metrics.getAverageFrameDepth(), 1e-9);
+        Assert.assertEquals(2 * (1 + System.lineSeparator().length() + 2), metrics.getOutputBytes());
+        Assert.assertTrue(metrics.getAllocatedBytes() >= 0);
+    }
+
+    @Test
+    public void testModulesWithoutMetricsAreNotCounted() {
+        SlangMetrics metrics = new SlangMetrics();
+        SlangEngine.create().compile(PROGRAM).run(new CaptureSink());
+        Assert.assertEquals(0, metrics.getExecutions());
+    }
+
+    @Test
+    public void testPrometheusFileAndEndpoint() throws Exception {
+        SlangMetrics metrics = runAll(new SlangMetrics());
+        String text = metrics.toPrometheus();
+        Assert.assertTrue(text, text.contains("# TYPE slang_invocations_total counter\n"
+                + "slang_invocations_total{function=\"add\"} 7\n"
+                + "slang_invocations_total{function=\"main\"} 2\n"));
+        Assert.assertTrue(text, text.contains("slang_executions_total 4\n"));
+        Assert.assertTrue(text, text.contains("slang_errors_total{message=\"Actual and formal params data getType "
+                + "is not matching\"} 1\n"));
+
+        Path file = folder.getRoot().toPath().resolve("slang.prom");
+        metrics.writePrometheus(file);
+        Assert.assertEquals(text, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        Assert.assertFalse(Files.exists(folder.getRoot().toPath().resolve("slang.prom.tmp")));
+
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(metrics, 0)) {
+            HttpURLConnection connection = (HttpURLConnection)
+                    new URL("http://localhost:" + endpoint.getPort() + "/metrics").openConnection();
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream()) {
+                byte[] buffer = new byte[4096];
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            Assert.assertEquals(text, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        SlangMetrics metrics = runAll(new SlangMetrics());
+        ObjectName name = metrics.registerMBean("test");
+        try {
+            Assert.assertEquals("com.slang:type=Metrics,name=\"test\"", name.toString());
+            Assert.assertEquals(4L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Executions"));
+            Assert.assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Invocations"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
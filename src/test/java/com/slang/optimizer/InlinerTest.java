@@ -0,0 +1,179 @@
+package com.slang.optimizer;
+
+import com.slang.CompileStatistics;
+import com.slang.Type;
+import com.slang.ast.*;
+import com.slang.ast.Module;
+import com.slang.lexer.Lexer;
+import com.slang.output.CaptureSink;
+import com.slang.parser.Parser;
+import com.slang.visitor.Interpreter;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class InlinerTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static String run(String program, int sizeBudget, CompileStatistics statistics) {
+        return run(new Parser(new Lexer(program)).parseModule(), sizeBudget, statistics);
+    }
+
+    private static String run(Module module, int sizeBudget, CompileStatistics statistics) {
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        if (null != statistics) {
+            new Inliner(sizeBudget, statistics).inline(module);
+        }
+
+        CaptureSink sink = new CaptureSink();
+        module.accept(new Interpreter(false, sink), new LexicalContext());
+        return sink.getOutput();
+    }
+
+    private static void assertSameOutput(String program, CompileStatistics statistics) {
+        String expected = run(program, 0, null);
+        Assert.assertEquals(expected, run(program, Inliner.DEFAULT_SIZE_BUDGET, statistics));
+    }
+
+    @Test
+    public void testEarlyReturnInIf() {
+        String program = "function int sign(int x) if (x < 0) then return 0 - 1; endif return 1; end " +
+                "function void main() var a = 0 - 5; var s = sign(a); println s; s = sign(5); println s; end";
+        CompileStatistics statistics = new CompileStatistics();
+        assertSameOutput(program, statistics);
+        Assert.assertEquals(2, statistics.get("inline.inlined"));
+    }
+
+    @Test
+    public void testEarlyReturnInWhile() {
+        String program = "function int firstOver(int limit) var i = 0; while (i < 100) if (i > limit) then return i; endif " +
+                "i = i + 1; wend return 0; end " +
+                "function void main() var r = firstOver(5); println r; end";
+        CompileStatistics statistics = new CompileStatistics();
+        assertSameOutput(program, statistics);
+        Assert.assertEquals("6" + NL, run(program, Inliner.DEFAULT_SIZE_BUDGET, new CompileStatistics()));
+        Assert.assertEquals(1, statistics.get("inline.inlined"));
+    }
+
+    @Test
+    public void testPassByRefIsPreserved() {
+        String program = "function int add(int x, int y) x = x + y; return x; end " +
+                "function void main() var x = 10; var y = 20; var sum = add(x, y); println x; println sum; end";
+        assertSameOutput(program, new CompileStatistics());
+    }
+
+    @Test
+    public void testRecursiveFunctionsAreNotInlined() {
+        String program = "function void main() var r = display(10); println r; end " +
+                "function int display(int x) println x; if(x == 1) then return x; endif return display(x-1); end";
+        CompileStatistics statistics = new CompileStatistics();
+        assertSameOutput(program, statistics);
+        Assert.assertEquals(0, statistics.get("inline.inlined"));
+        Assert.assertEquals(2, statistics.get("inline.rejected.recursive"));
+    }
+
+    @Test
+    public void testNestedInlining() {
+        String program = "function int square(int x) return x * x; end " +
+                "function int sumOfSquares(int x, int y) var a = square(x); var b = square(y); return a + b; end " +
+                "function void main() var r = sumOfSquares(3, 4); println r; end";
+        Module module = new Parser(new Lexer(program)).parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        CompileStatistics statistics = new CompileStatistics();
+        new Inliner(statistics).inline(module);
+
+        Assert.assertEquals(3, statistics.get("inline.inlined"));
+        VariableDeclAndAssignStatement statement =
+                (VariableDeclAndAssignStatement) module.getFunctionsMap().get("main").getBody().get(0);
+        Assert.assertTrue(statement.getVariableAssignmentStatement().getExpression() instanceof InlinedFunctionInvokeExpression);
+        assertSameOutput(program, new CompileStatistics());
+    }
+
+    @Test
+    public void testSizeBudget() {
+        String program = "function int square(int x) return x * x; end " +
+                "function void main() var r = square(3); println r; end";
+        CompileStatistics statistics = new CompileStatistics();
+        Assert.assertEquals("9" + NL, run(program, 2, statistics));
+        Assert.assertEquals(0, statistics.get("inline.inlined"));
+        Assert.assertEquals(1, statistics.get("inline.rejected.size"));
+    }
+
+    @Test
+    public void testLambdasAreNotInlined() {
+        String program = "function (int,int)->int adder() var z = 10; " +
+                "var x = lambda int (int x, int y) return ( x + y ) * z; endlambda return x; end " +
+                "function void main() var fn = adder(); var result = fn(10, 10); println result; end";
+        CompileStatistics statistics = new CompileStatistics();
+        assertSameOutput(program, statistics);
+        Assert.assertEquals(1, statistics.get("inline.rejected.scope"));
+        Assert.assertEquals(1, statistics.get("inline.rejected.dynamic"));
+    }
+
+    /**
+     * main with calls inside a println operand, a while condition, a call argument and a not in an if condition.
+     * The parser only reads calls as whole statements, assignments and returns, so these are put in place here.
+     */
+    private static Module nestedCalls() {
+        Module module = new Parser(new Lexer("function int sq(int x) return x * x; end " +
+                "function boolean lt(int a, int b) return a < b; end " +
+                "function void main() var i = 0; println 0; while (i < 3) i = i + 1; wend var r = sq(0); println r; end"))
+                .parseModule();
+        List<Statement> main = module.getFunctionsMap().get("main").getBody();
+        main.set(1, new PrintlnStatement(new ArithmeticExpressionExpression(call("sq", new NumericExpression(3)),
+                new NumericExpression(1), Token.ADD)));
+        main.set(2, new WhileStatement(call("lt", new VariableExpression("i"), new NumericExpression(3)),
+                ((WhileStatement) main.get(2)).getBody()));
+        VariableDeclAndAssignStatement r = (VariableDeclAndAssignStatement) main.get(3);
+        ((FunctionInvokeExpression) r.getVariableAssignmentStatement().getExpression()).getActualFunctionArguments()
+                .set(0, call("sq", new NumericExpression(2)));
+        main.add(5, new IfStatement(new NotExpression(call("lt", new VariableExpression("i"), new NumericExpression(3))),
+                new ArrayList<>(Collections.singletonList(new PrintlnStatement(new VariableExpression("i")))),
+                new ArrayList<>()));
+        return module;
+    }
+
+    private static FunctionInvokeExpression call(String functionName, Expression... arguments) {
+        return new FunctionInvokeExpression(functionName, new ArrayList<>(Arrays.asList(arguments)));
+    }
+
+    @Test
+    public void testCallsNestedInExpressions() {
+        CompileStatistics statistics = new CompileStatistics();
+        String output = run(nestedCalls(), Inliner.DEFAULT_SIZE_BUDGET, statistics);
+        Assert.assertEquals("10" + NL + "16" + NL + "3" + NL, output);
+        Assert.assertEquals(run(nestedCalls(), 0, null), output);
+        Assert.assertEquals(5, statistics.get("inline.inlined"));
+    }
+
+    @Test
+    public void testCallsNestedInConditionsAreInlined() {
+        Module module = nestedCalls();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        List<Statement> main = module.getFunctionsMap().get("main").getBody();
+        FunctionInvokeExpression original = (FunctionInvokeExpression)
+                ((VariableDeclAndAssignStatement) main.get(3)).getVariableAssignmentStatement().getExpression();
+        new Inliner(new CompileStatistics()).inline(module);
+
+        Expression sum = ((PrintlnStatement) main.get(1)).getExpression();
+        Assert.assertTrue(((ArithmeticExpressionExpression) sum).getLeftExpression() instanceof InlinedFunctionInvokeExpression);
+        Assert.assertTrue(((WhileStatement) main.get(2)).getExpression() instanceof InlinedFunctionInvokeExpression);
+        FunctionInvokeExpression r = (FunctionInvokeExpression)
+                ((VariableDeclAndAssignStatement) main.get(3)).getVariableAssignmentStatement().getExpression();
+        Assert.assertTrue(r instanceof InlinedFunctionInvokeExpression);
+        Assert.assertTrue(r.getActualFunctionArguments().get(0) instanceof InlinedFunctionInvokeExpression);
+        //the call is copied like the other nodes, its original keeps its arguments
+        Assert.assertFalse(original.getActualFunctionArguments().get(0) instanceof InlinedFunctionInvokeExpression);
+        Expression not = ((IfStatement) main.get(5)).getBooleanExpression();
+        Assert.assertTrue(((NotExpression) not).getExpression() instanceof InlinedFunctionInvokeExpression);
+        //copies keep the type proved by the analyzer
+        Assert.assertSame(Type.INTEGER, sum.getStaticType());
+    }
+}
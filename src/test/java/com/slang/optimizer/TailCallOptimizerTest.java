@@ -0,0 +1,79 @@
+package com.slang.optimizer;
+
+import com.slang.CompileStatistics;
+import com.slang.ast.Expression;
+import com.slang.ast.FunctionInvokeExpression;
+import com.slang.ast.Module;
+import com.slang.ast.ReturnStatement;
+import com.slang.ast.TailCallExpression;
+import com.slang.lexer.Lexer;
+import com.slang.output.CaptureSink;
+import com.slang.parser.Parser;
+import com.slang.visitor.Interpreter;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TailCallOptimizerTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static String run(String program, CompileStatistics statistics) {
+        Module module = new Parser(new Lexer(program)).parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        if (null != statistics) {
+            new TailCallOptimizer(statistics).optimize(module);
+        }
+
+        CaptureSink sink = new CaptureSink();
+        module.accept(new Interpreter(false, sink), new LexicalContext());
+        return sink.getOutput();
+    }
+
+    @Test
+    public void testSameOutputAsRecursion() {
+        String program = "function void main() var x = display(10, 0); print \"Result: \"; println x; end " +
+                "function int display(int x, int y) println x; println y; if(x == 1 || y == 9) then return 1; endif " +
+                "return display(x-1, y + 1); end";
+        CompileStatistics statistics = new CompileStatistics();
+        Assert.assertEquals(run(program, null), run(program, statistics));
+        Assert.assertEquals(1, statistics.get("tailcall.sites"));
+    }
+
+    @Test
+    public void testTailCallsInIfAndElse() {
+        String program = "function void main() var r = gcd(1071, 462); println r; end " +
+                "function int gcd(int a, int b) if (a == b) then return a; endif " +
+                "if (a > b) then return gcd(a - b, b); else return gcd(a, b - a); endif return 0; end";
+        CompileStatistics statistics = new CompileStatistics();
+        Assert.assertEquals(run(program, null), run(program, statistics));
+        Assert.assertEquals("21" + NL, run(program, new CompileStatistics()));
+        Assert.assertEquals(2, statistics.get("tailcall.sites"));
+    }
+
+    @Test
+    public void testDeepRecursionRunsInConstantStack() {
+        String program = "function void main() var r = count(200000, 0l); println r; end " +
+                "function long count(int n, long acc) if (n == 0) then return acc; endif " +
+                "return count(n - 1, acc + 1); end";
+        Assert.assertEquals("200000" + NL, run(program, new CompileStatistics()));
+    }
+
+    @Test
+    public void testSelfCallIsKeptWithoutOptimization() {
+        String program = "function void main() var r = count(10, 0l); println r; end " +
+                "function long count(int n, long acc) if (n == 0) then return acc; endif " +
+                "return count(n - 1, acc + 1); end";
+        Module module = new Parser(new Lexer(program)).parseModule();
+        module.accept(new SemanticAnalyzer(), new LexicalContext());
+        Assert.assertEquals(FunctionInvokeExpression.class, tailExpression(module).getClass());
+
+        new TailCallOptimizer(new CompileStatistics()).optimize(module);
+        Assert.assertTrue(tailExpression(module) instanceof TailCallExpression);
+    }
+
+    private static Expression tailExpression(Module module) {
+        return ((ReturnStatement) module.getFunctionsMap().get("count").getBody().get(1)).getExpression();
+    }
+}
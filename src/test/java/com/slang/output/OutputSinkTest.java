@@ -0,0 +1,141 @@
+package com.slang.output;
+
+import com.slang.ast.Module;
+import com.slang.lexer.Lexer;
+import com.slang.parser.Parser;
+import com.slang.visitor.Interpreter;
+import com.slang.visitor.LexicalContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class OutputSinkTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static void printAll(OutputSink sink) {
+        sink.print(0);
+        sink.print(-42);
+        sink.print(Integer.MIN_VALUE);
+        sink.print(Long.MAX_VALUE);
+        sink.print(Long.MIN_VALUE);
+        sink.newLine();
+        sink.print(1.5f);
+        sink.print(-0.0);
+        sink.print(12.533333333333331);
+        sink.print(1e-10);
+        sink.print(Double.NaN);
+        sink.print(true);
+        sink.print(false);
+        sink.print("h\u00e9llo \u4e16\u754c");
+        sink.newLine();
+    }
+
+    private static String expected() {
+        return "0" + -42 + Integer.MIN_VALUE + Long.MAX_VALUE + Long.MIN_VALUE + NL
+                + 1.5f + -0.0 + 12.533333333333331 + 1e-10 + Double.NaN + true + false + "h\u00e9llo \u4e16\u754c" + NL;
+    }
+
+    @Test
+    public void testFormatsLikePrintStream() {
+        CaptureSink sink = new CaptureSink();
+        printAll(sink);
+        Assert.assertEquals(expected(), sink.getOutput());
+    }
+
+    @Test
+    public void testSmallBufferIsDrainedAcrossValues() {
+        CaptureSink sink = new CaptureSink(20);
+        for (int i = 0; i < 50; i++) {
+            printAll(sink);
+        }
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            expected.append(expected());
+        }
+        Assert.assertEquals(expected.toString(), sink.getOutput());
+    }
+
+    @Test
+    public void testChannelSinkWritesOnlyWhenFlushed() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelSink sink = new ChannelSink(Channels.newChannel(bytes), 1024);
+        sink.print("buffered");
+        Assert.assertEquals(0, bytes.size());
+        sink.close();
+        Assert.assertEquals("buffered", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAsyncSinkKeepsOrder() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AsyncChannelSink sink = new AsyncChannelSink(Channels.newChannel(bytes), 64);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sink.print(i);
+            sink.newLine();
+            expected.append(i).append(NL);
+        }
+        sink.flush();
+        Assert.assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        sink.close();
+    }
+
+    @Test
+    public void testClosingStdoutSinksKeepsStdoutOpen() {
+        ChannelSink.stdout().close();
+        AsyncChannelSink.stdout().close();
+        Assert.assertTrue(FileDescriptor.out.valid());
+    }
+
+    @Test(timeout = 10000)
+    public void testAsyncSinkThrowsWhatTheWriterFailedWith() {
+        Error writeFailure = new AssertionError("disk gone");
+        AsyncChannelSink sink = new AsyncChannelSink(new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                throw writeFailure;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 64);
+        try {
+            //More buffers than the sink has, a writer must not wait for one forever
+            for (int i = 0; i < 1000; i++) {
+                sink.print(i);
+            }
+            sink.flush();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertSame(writeFailure, e.getCause());
+        }
+        try {
+            sink.close();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertSame(writeFailure, e.getCause());
+        }
+    }
+
+    @Test
+    public void testInterpreterPrintsToSink() {
+        Module module = new Parser(new Lexer("function void main() var x = 10; print \"x = \"; println x; " +
+                "println x / 4; println x > 5; end")).parseModule();
+        CaptureSink sink = new CaptureSink();
+        module.accept(new Interpreter(false, sink), new LexicalContext());
+        Assert.assertEquals("x = 10" + NL + "2.5" + NL + "true" + NL, sink.getOutput());
+    }
+}
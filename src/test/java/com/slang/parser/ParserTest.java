@@ -1,6 +1,7 @@
 package com.slang.parser;
 
 import com.slang.ast.*;
+import com.slang.ast.Module;
 import com.slang.lexer.Lexer;
 import com.slang.visitor.Context;
 import com.slang.visitor.IVisitor;
@@ -208,4 +209,20 @@ public class ParserTest {
         System.out.println(context);
     }
 
+    @Test
+    public void testStatementLines() {
+        Module module = new Parser(new Lexer("function void main()\n" +
+                "    var s = \"a\nb\";\n" +
+                "    while (true)\n" +
+                "\n" +
+                "        break;\n" +
+                "    wend\n" +
+                "end\n")).parseModule();
+        List<Statement> body = module.getFunctionsMap().get("main").getBody();
+        Assert.assertEquals(2, body.get(0).getLine());
+        Assert.assertEquals(4, body.get(1).getLine());
+        Assert.assertEquals(6, ((WhileStatement) body.get(1)).getBody().get(0).getLine());
+        //the implicit return is at the end of the function
+        Assert.assertEquals(8, body.get(2).getLine());
+    }
 }
@@ -0,0 +1,163 @@
+package com.slang.perf;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of one run of {@link PerfGate}: the operations per second of every measured iteration of every fork,
+ * by benchmark name, and the machine it ran on. Runs are kept as JSON files named by their time in a history
+ * directory, the {@link #best(Path)} of them is the baseline of the next run.
+ */
+final class BenchmarkRun {
+
+    private static final String PREFIX = "run-";
+    private static final String SUFFIX = ".json";
+
+    private final String time;
+    private final Map<String, String> environment;
+    private final Map<String, List<double[]>> results;
+
+    BenchmarkRun(String time, Map<String, String> environment, Map<String, List<double[]>> results) {
+        this.time = time;
+        this.environment = environment;
+        this.results = results;
+    }
+
+    static BenchmarkRun create() {
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("java.version", System.getProperty("java.version"));
+        environment.put("java.vm.name", System.getProperty("java.vm.name"));
+        environment.put("os.name", System.getProperty("os.name"));
+        environment.put("os.arch", System.getProperty("os.arch"));
+        environment.put("processors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        return new BenchmarkRun(new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()), environment,
+                new LinkedHashMap<>());
+    }
+
+    String getTime() {
+        return time;
+    }
+
+    Map<String, String> getEnvironment() {
+        return environment;
+    }
+
+    /**
+     * The iterations of every fork by benchmark name
+     */
+    Map<String, List<double[]>> getResults() {
+        return results;
+    }
+
+    void addFork(Map<String, List<Double>> fork) {
+        for (Map.Entry<String, List<Double>> benchmark : fork.entrySet()) {
+            double[] iterations = new double[benchmark.getValue().size()];
+            for (int i = 0; i < iterations.length; i++) {
+                iterations[i] = benchmark.getValue().get(i);
+            }
+            results.computeIfAbsent(benchmark.getKey(), name -> new ArrayList<>()).add(iterations);
+        }
+    }
+
+    String toJson() {
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<double[]>> benchmark : this.results.entrySet()) {
+            List<Object> forks = new ArrayList<>();
+            for (double[] iterations : benchmark.getValue()) {
+                List<Object> fork = new ArrayList<>();
+                for (double iteration : iterations) {
+                    fork.add(iteration);
+                }
+                forks.add(fork);
+            }
+            results.put(benchmark.getKey(), forks);
+        }
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("time", time);
+        run.put("environment", environment);
+        run.put("results", results);
+        return Json.write(run) + "\n";
+    }
+
+    @SuppressWarnings("unchecked")
+    static BenchmarkRun fromJson(String json) {
+        Map<String, Object> run = (Map<String, Object>) Json.parse(json);
+        Map<String, String> environment = new LinkedHashMap<>();
+        ((Map<String, Object>) run.get("environment")).forEach((key, value) -> environment.put(key, (String) value));
+        BenchmarkRun benchmarkRun = new BenchmarkRun((String) run.get("time"), environment, new LinkedHashMap<>());
+        for (Map.Entry<String, Object> benchmark : ((Map<String, Object>) run.get("results")).entrySet()) {
+            for (Object fork : (List<Object>) benchmark.getValue()) {
+                Map<String, List<Double>> iterations = new LinkedHashMap<>();
+                iterations.put(benchmark.getKey(), (List<Double>) fork);
+                benchmarkRun.addFork(iterations);
+            }
+        }
+        return benchmarkRun;
+    }
+
+    static BenchmarkRun read(Path file) throws IOException {
+        return fromJson(new String(Files.readAllBytes(file), "UTF-8"));
+    }
+
+    Path save(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(PREFIX + time + SUFFIX);
+        Files.write(file, toJson().getBytes("UTF-8"));
+        return file;
+    }
+
+    /**
+     * The files of the runs in the directory, oldest first
+     */
+    static List<Path> history(Path directory) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return runs;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                runs.add(file);
+            }
+        }
+        runs.sort(Comparator.comparing(file -> file.getFileName().toString()));
+        return runs;
+    }
+
+    /**
+     * The best of the runs in the directory, with every benchmark's forks from the run where it had the highest
+     * throughput and the environment of the latest run, null when there's none. Against the best run, slowdowns
+     * under the threshold add up until they fail, against the latest run each one would be the next baseline.
+     */
+    static BenchmarkRun best(Path directory) throws IOException {
+        List<Path> runs = history(directory);
+        if (runs.isEmpty()) {
+            return null;
+        }
+        Map<String, List<double[]>> best = new LinkedHashMap<>();
+        Map<String, Double> bestMeans = new LinkedHashMap<>();
+        BenchmarkRun latest = null;
+        for (Path file : runs) {
+            latest = read(file);
+            for (Map.Entry<String, List<double[]>> benchmark : latest.getResults().entrySet()) {
+                if (benchmark.getValue().isEmpty()) {
+                    continue;
+                }
+                double mean = new Comparison.Sample(benchmark.getValue()).mean;
+                if (mean > bestMeans.getOrDefault(benchmark.getKey(), Double.NEGATIVE_INFINITY)) {
+                    bestMeans.put(benchmark.getKey(), mean);
+                    best.put(benchmark.getKey(), benchmark.getValue());
+                }
+            }
+        }
+        return new BenchmarkRun(latest.getTime(), latest.getEnvironment(), best);
+    }
+}
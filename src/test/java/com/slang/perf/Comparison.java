@@ -0,0 +1,205 @@
+package com.slang.perf;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compares the throughput of every benchmark of a run against a baseline run. The forks are the samples, each
+ * fork's mean of its iterations is one observation, as the iterations of a fork share its JIT decisions and
+ * aren't independent. The difference of the means gets a 95% confidence interval from Welch's t-test, a benchmark
+ * regressed when it got slower by more than the threshold and the whole interval is below zero.
+ */
+final class Comparison {
+
+    enum Verdict {
+        REGRESSION, IMPROVEMENT, UNCHANGED, NEW, REMOVED
+    }
+
+    //Two sided 95% critical values of Student's t distribution for 1 to 30 degrees of freedom
+    private static final double[] T_95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    /**
+     * The mean, standard deviation and number of the fork means of a benchmark
+     */
+    static final class Sample {
+        final int n;
+        final double mean;
+        final double deviation;
+
+        Sample(List<double[]> forks) {
+            double[] means = new double[forks.size()];
+            for (int i = 0; i < means.length; i++) {
+                means[i] = mean(forks.get(i));
+            }
+            n = means.length;
+            mean = mean(means);
+            double squares = 0;
+            for (double value : means) {
+                squares += (value - mean) * (value - mean);
+            }
+            deviation = n > 1 ? Math.sqrt(squares / (n - 1)) : 0;
+        }
+
+        /**
+         * Half the width of the 95% confidence interval of the mean
+         */
+        double error() {
+            return n > 1 ? t(n - 1) * deviation / Math.sqrt(n) : Double.NaN;
+        }
+
+        private static double mean(double[] values) {
+            double sum = 0;
+            for (double value : values) {
+                sum += value;
+            }
+            return sum / values.length;
+        }
+    }
+
+    static final class Row {
+        final String benchmark;
+        final Sample baseline;
+        final Sample current;
+        final Verdict verdict;
+        //The relative change of the mean and its 95% confidence interval, NaN without both samples
+        final double change;
+        final double changeLow;
+        final double changeHigh;
+
+        Row(String benchmark, Sample baseline, Sample current, double threshold) {
+            this.benchmark = benchmark;
+            this.baseline = baseline;
+            this.current = current;
+            if (null == baseline || null == current) {
+                verdict = null == baseline ? Verdict.NEW : Verdict.REMOVED;
+                change = changeLow = changeHigh = Double.NaN;
+                return;
+            }
+
+            double difference = current.mean - baseline.mean;
+            double varianceBaseline = baseline.deviation * baseline.deviation / baseline.n;
+            double varianceCurrent = current.deviation * current.deviation / current.n;
+            double error = Math.sqrt(varianceBaseline + varianceCurrent);
+            double margin;
+            if (baseline.n < 2 || current.n < 2) {
+                //A single fork has no spread, nothing can be concluded from it
+                margin = Double.POSITIVE_INFINITY;
+            } else if (0 == error) {
+                margin = 0;
+            } else {
+                //Welch-Satterthwaite degrees of freedom
+                double degrees = sq(varianceBaseline + varianceCurrent)
+                        / (sq(varianceBaseline) / (baseline.n - 1) + sq(varianceCurrent) / (current.n - 1));
+                margin = t(degrees) * error;
+            }
+
+            change = difference / baseline.mean;
+            changeLow = (difference - margin) / baseline.mean;
+            changeHigh = (difference + margin) / baseline.mean;
+            if (change < -threshold && changeHigh < 0) {
+                verdict = Verdict.REGRESSION;
+            } else if (change > threshold && changeLow > 0) {
+                verdict = Verdict.IMPROVEMENT;
+            } else {
+                verdict = Verdict.UNCHANGED;
+            }
+        }
+
+        private static double sq(double value) {
+            return value * value;
+        }
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+
+    Comparison(BenchmarkRun baseline, BenchmarkRun current, double threshold) {
+        TreeSet<String> benchmarks = new TreeSet<>(current.getResults().keySet());
+        if (null != baseline) {
+            benchmarks.addAll(baseline.getResults().keySet());
+        }
+        for (String benchmark : benchmarks) {
+            rows.add(new Row(benchmark, sample(baseline, benchmark), sample(current, benchmark), threshold));
+        }
+    }
+
+    private static Sample sample(BenchmarkRun run, String benchmark) {
+        List<double[]> forks = null == run ? null : run.getResults().get(benchmark);
+        return null == forks || forks.isEmpty() ? null : new Sample(forks);
+    }
+
+    static double t(double degrees) {
+        if (Double.isNaN(degrees) || degrees < 1) {
+            return T_95[0];
+        }
+        if (degrees <= T_95.length) {
+            return T_95[(int) Math.floor(degrees) - 1];
+        }
+        //Rounded down to the nearest tabulated degrees of freedom, which widens the interval a little
+        return degrees < 40 ? 2.042 : degrees < 60 ? 2.021 : degrees < 120 ? 2.000 : degrees < 1000 ? 1.980 : 1.960;
+    }
+
+    List<Row> getRows() {
+        return rows;
+    }
+
+    List<Row> getRegressions() {
+        List<Row> regressions = new ArrayList<>();
+        for (Row row : rows) {
+            if (Verdict.REGRESSION == row.verdict) {
+                regressions.add(row);
+            }
+        }
+        return regressions;
+    }
+
+    void print(PrintStream out) {
+        int width = "benchmark".length();
+        for (Row row : rows) {
+            width = Math.max(width, row.benchmark.length());
+        }
+        String format = "%-" + width + "s %22s %22s %9s %20s  %s%n";
+        out.printf(format, "benchmark", "baseline ops/s", "current ops/s", "change", "95% interval", "");
+        for (Row row : rows) {
+            out.printf(format, row.benchmark, sample(row.baseline), sample(row.current),
+                    Double.isNaN(row.change) ? "" : String.format("%+.1f%%", 100 * row.change),
+                    Double.isNaN(row.change) ? "" : interval(row),
+                    Verdict.UNCHANGED == row.verdict ? "" : row.verdict.name());
+        }
+    }
+
+    private static String sample(Sample sample) {
+        if (null == sample) {
+            return "-";
+        }
+        double error = sample.error();
+        return Double.isNaN(error)
+                ? String.format("%.1f", sample.mean)
+                : String.format("%.1f +- %.1f%%", sample.mean, 100 * error / sample.mean);
+    }
+
+    private static String interval(Row row) {
+        return Double.isInfinite(row.changeLow)
+                ? "unknown"
+                : String.format("[%+.1f%%, %+.1f%%]", 100 * row.changeLow, 100 * row.changeHigh);
+    }
+
+    /**
+     * The environment properties which differ between the runs, the comparison means little when there are any
+     */
+    static List<String> environmentDifferences(BenchmarkRun baseline, BenchmarkRun current) {
+        List<String> differences = new ArrayList<>();
+        for (Map.Entry<String, String> property : current.getEnvironment().entrySet()) {
+            String before = baseline.getEnvironment().get(property.getKey());
+            if (!property.getValue().equals(before)) {
+                differences.add(property.getKey() + ": " + before + " -> " + property.getValue());
+            }
+        }
+        return differences;
+    }
+}
@@ -0,0 +1,99 @@
+package com.slang.perf;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ComparisonTest {
+
+    private static BenchmarkRun run(String time, double... forkMeans) {
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("java.version", "1.8");
+        BenchmarkRun run = new BenchmarkRun(time, environment, new LinkedHashMap<>());
+        for (double mean : forkMeans) {
+            Map<String, List<Double>> fork = new LinkedHashMap<>();
+            fork.put("run/hello.sl", Arrays.asList(mean - 1, mean, mean + 1));
+            run.addFork(fork);
+        }
+        return run;
+    }
+
+    @Test
+    public void testRegressionBeyondThreshold() {
+        Comparison comparison = new Comparison(run("1", 1000, 1010, 990), run("2", 800, 805, 795), 0.10);
+        Assert.assertEquals(1, comparison.getRegressions().size());
+        Comparison.Row row = comparison.getRows().get(0);
+        Assert.assertEquals(-0.2, row.change, 1e-9);
+        Assert.assertTrue(row.changeLow < row.change && row.change < row.changeHigh && row.changeHigh < 0);
+    }
+
+    @Test
+    public void testNoisyOrSmallChangesPass() {
+        //20% slower on average, but the forks spread too much to tell
+        Assert.assertEquals(Comparison.Verdict.UNCHANGED,
+                new Comparison(run("1", 1000, 1500, 500), run("2", 800, 1200, 400), 0.10).getRows().get(0).verdict);
+        //significant, but within the threshold
+        Assert.assertEquals(Comparison.Verdict.UNCHANGED,
+                new Comparison(run("1", 1000, 1001, 999), run("2", 950, 951, 949), 0.10).getRows().get(0).verdict);
+        //a single fork has no interval
+        Assert.assertEquals(Comparison.Verdict.UNCHANGED,
+                new Comparison(run("1", 1000), run("2", 500), 0.10).getRows().get(0).verdict);
+        Assert.assertEquals(Comparison.Verdict.IMPROVEMENT,
+                new Comparison(run("1", 1000, 1010, 990), run("2", 1500, 1510, 1490), 0.10).getRows().get(0).verdict);
+        Assert.assertEquals(Comparison.Verdict.NEW,
+                new Comparison(null, run("2", 1000, 1010), 0.10).getRows().get(0).verdict);
+    }
+
+    @Test
+    public void testStudentT() {
+        Assert.assertEquals(12.706, Comparison.t(1), 1e-9);
+        Assert.assertEquals(2.776, Comparison.t(4.7), 1e-9);
+        Assert.assertEquals(1.960, Comparison.t(5000), 1e-9);
+    }
+
+    @Test
+    public void testHistoryRoundTrip() throws Exception {
+        Path directory = Files.createTempDirectory("perf-history");
+        Assert.assertNull(BenchmarkRun.best(directory));
+        run("20260101-000000", 1000, 1010).save(directory);
+        BenchmarkRun saved = run("20260102-000000", 2000.5, 2010);
+        saved.save(directory);
+
+        Path latest = BenchmarkRun.history(directory).get(1);
+        Assert.assertEquals("run-20260102-000000.json", latest.getFileName().toString());
+        BenchmarkRun read = BenchmarkRun.read(latest);
+        Assert.assertEquals(saved.toJson(), read.toJson());
+        Assert.assertArrayEquals(new double[]{1999.5, 2000.5, 2001.5}, read.getResults().get("run/hello.sl").get(0), 0);
+        Assert.assertTrue(Comparison.environmentDifferences(saved, read).isEmpty());
+    }
+
+    @Test
+    public void testSlowdownsUnderTheThresholdAddUp() throws Exception {
+        Path directory = Files.createTempDirectory("perf-history");
+        run("20260101-000000", 1000, 1001, 999).save(directory);
+        run("20260102-000000", 920, 921, 919).save(directory);
+        run("20260103-000000", 850, 851, 849).save(directory);
+        BenchmarkRun current = run("20260104-000000", 790, 791, 789);
+
+        //each run is under 10% slower than the one before, but 21% slower than the best
+        BenchmarkRun previous = BenchmarkRun.read(BenchmarkRun.history(directory).get(2));
+        Assert.assertTrue(new Comparison(previous, current, 0.10).getRegressions().isEmpty());
+        BenchmarkRun best = BenchmarkRun.best(directory);
+        Assert.assertEquals(1000, new Comparison.Sample(best.getResults().get("run/hello.sl")).mean, 1e-9);
+        Assert.assertEquals(1, new Comparison(best, current, 0.10).getRegressions().size());
+    }
+
+    @Test
+    public void testJson() {
+        Object value = Json.parse("{\"a\": [1, 2.5, -3e2], \"b\": {\"c\": \"x\\\"y\\u0041\"}, \"d\": [], \"e\": true}");
+        Assert.assertEquals("{\n  \"a\": [1.0, 2.5, -300.0],\n  \"b\": {\n    \"c\": \"x\\\"yA\"\n  },\n"
+                + "  \"d\": [],\n  \"e\": true\n}", Json.write(value));
+        Assert.assertEquals(value, Json.parse(Json.write(value)));
+    }
+}
@@ -0,0 +1,190 @@
+package com.slang.perf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the benchmark history: maps, lists, strings, numbers, booleans and null. Numbers are read
+ * back as doubles.
+ */
+final class Json {
+
+    private final String text;
+    private int index;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    static String write(Object value) {
+        StringBuilder out = new StringBuilder();
+        write(value, out, "");
+        return out.toString();
+    }
+
+    private static void write(Object value, StringBuilder out, String indent) {
+        if (null == value) {
+            out.append("null");
+        } else if (value instanceof String) {
+            out.append('"');
+            String string = (String) value;
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if ('"' == c || '\\' == c) {
+                    out.append('\\').append(c);
+                } else if (c < 0x20) {
+                    out.append(String.format("\\u%04x", (int) c));
+                } else {
+                    out.append(c);
+                }
+            }
+            out.append('"');
+        } else if (value instanceof Map) {
+            out.append("{");
+            String separator = "\n";
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                out.append(separator).append(indent).append("  ");
+                write(String.valueOf(entry.getKey()), out, indent);
+                out.append(": ");
+                write(entry.getValue(), out, indent + "  ");
+                separator = ",\n";
+            }
+            out.append("\n").append(indent).append("}");
+        } else if (value instanceof List) {
+            out.append("[");
+            String separator = "";
+            for (Object element : (List<?>) value) {
+                out.append(separator);
+                write(element, out, indent);
+                separator = ", ";
+            }
+            out.append("]");
+        } else {
+            out.append(value);
+        }
+    }
+
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipWhitespace();
+        if (json.index != text.length()) {
+            throw json.error("end of input");
+        }
+        return value;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (index >= text.length()) {
+            throw error("a value");
+        }
+        char c = text.charAt(index);
+        if ('{' == c) {
+            return object();
+        } else if ('[' == c) {
+            return array();
+        } else if ('"' == c) {
+            return string();
+        } else if (text.startsWith("true", index)) {
+            index += 4;
+            return Boolean.TRUE;
+        } else if (text.startsWith("false", index)) {
+            index += 5;
+            return Boolean.FALSE;
+        } else if (text.startsWith("null", index)) {
+            index += 4;
+            return null;
+        }
+        int begin = index;
+        while (index < text.length() && "+-0123456789.eE".indexOf(text.charAt(index)) >= 0) {
+            index++;
+        }
+        if (begin == index) {
+            throw error("a value");
+        }
+        return Double.valueOf(text.substring(begin, index));
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        index++;
+        skipWhitespace();
+        if (peek('}')) {
+            return object;
+        }
+        do {
+            skipWhitespace();
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            object.put(key, value());
+            skipWhitespace();
+        } while (peek(','));
+        expect('}');
+        return object;
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        index++;
+        skipWhitespace();
+        if (peek(']')) {
+            return array;
+        }
+        do {
+            array.add(value());
+            skipWhitespace();
+        } while (peek(','));
+        expect(']');
+        return array;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder string = new StringBuilder();
+        while (index < text.length() && '"' != text.charAt(index)) {
+            char c = text.charAt(index++);
+            if ('\\' == c) {
+                c = text.charAt(index++);
+                if ('u' == c) {
+                    c = (char) Integer.parseInt(text.substring(index, index + 4), 16);
+                    index += 4;
+                } else if ('n' == c) {
+                    c = '\n';
+                } else if ('t' == c) {
+                    c = '\t';
+                }
+            }
+            string.append(c);
+        }
+        expect('"');
+        return string.toString();
+    }
+
+    private boolean peek(char c) {
+        if (index < text.length() && c == text.charAt(index)) {
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!peek(c)) {
+            throw error("'" + c + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+    }
+
+    private RuntimeException error(String expected) {
+        return new RuntimeException("Expected " + expected + " at " + index + " of the JSON");
+    }
+}
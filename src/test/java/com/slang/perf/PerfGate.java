@@ -0,0 +1,123 @@
+package com.slang.perf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance regression gate: runs {@link PhaseBenchmark} over the sample programs in separate JVMs, compares the
+ * run with the best run of every benchmark in the history directory, see {@link BenchmarkRun#best(Path)} and
+ * {@link Comparison}, prints the differences and saves the run into the history. Exits with 1 when any benchmark
+ * regressed, a regressed run isn't saved. --baseline pins the baseline to one run file instead, e.g. a release's
+ * run kept in CI. mvn test -Pperf-gate runs it through {@link PerformanceGate}.
+ *
+ * Usage: PerfGate [--forks=n] [--warmup=n] [--iterations=n] [--millis=n] [--threshold=fraction]
+ *                 [--history=dir] [--baseline=file] [--samples=dir] [--no-save]
+ */
+public class PerfGate {
+
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args, System.out));
+    }
+
+    static int run(String[] args, PrintStream out) throws IOException, InterruptedException {
+        int forks = 3;
+        int warmup = 3;
+        int iterations = 5;
+        long millis = 100;
+        double threshold = 0.10;
+        Path history = Paths.get("perf-history");
+        Path baselineFile = null;
+        String samples = "src/main/java";
+        boolean save = true;
+        for (String arg : args) {
+            if (arg.startsWith("--forks=")) {
+                forks = Integer.parseInt(arg.substring("--forks=".length()));
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else if (arg.startsWith("--millis=")) {
+                millis = Long.parseLong(arg.substring("--millis=".length()));
+            } else if (arg.startsWith("--threshold=")) {
+                threshold = Double.parseDouble(arg.substring("--threshold=".length()));
+            } else if (arg.startsWith("--history=")) {
+                history = Paths.get(arg.substring("--history=".length()));
+            } else if (arg.startsWith("--baseline=")) {
+                baselineFile = Paths.get(arg.substring("--baseline=".length()));
+            } else if (arg.startsWith("--samples=")) {
+                samples = arg.substring("--samples=".length());
+            } else if ("--no-save".equals(arg)) {
+                save = false;
+            } else {
+                throw new RuntimeException("Unknown option " + arg);
+            }
+        }
+
+        BenchmarkRun current = BenchmarkRun.create();
+        for (int fork = 0; fork < forks; fork++) {
+            out.println("fork " + (fork + 1) + " of " + forks);
+            current.addFork(fork(samples, warmup, iterations, millis));
+        }
+
+        BenchmarkRun baseline = null == baselineFile ? BenchmarkRun.best(history) : BenchmarkRun.read(baselineFile);
+        if (null == baseline) {
+            out.println("no baseline in " + history + ", this run becomes the baseline");
+        } else {
+            out.println("baseline " + (null == baselineFile
+                    ? "the best of " + BenchmarkRun.history(history).size() + " runs in " + history : baselineFile)
+                    + ", threshold " + Math.round(100 * threshold) + "%");
+            for (String difference : Comparison.environmentDifferences(baseline, current)) {
+                out.println("warning, the baseline ran on a different " + difference);
+            }
+        }
+
+        Comparison comparison = new Comparison(baseline, current, threshold);
+        comparison.print(out);
+
+        List<Comparison.Row> regressions = comparison.getRegressions();
+        if (!regressions.isEmpty()) {
+            out.println(regressions.size() + " benchmark(s) regressed by more than "
+                    + Math.round(100 * threshold) + "%");
+            return 1;
+        }
+        if (save) {
+            out.println("saved " + current.save(history));
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<Double>> fork(String samples, int warmup, int iterations, long millis)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"), PhaseBenchmark.class.getName(),
+                samples, String.valueOf(warmup), String.valueOf(iterations), String.valueOf(millis)));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (line.startsWith(PhaseBenchmark.RESULT)) {
+                    result = line.substring(PhaseBenchmark.RESULT.length());
+                } else {
+                    output.append(line).append('\n');
+                }
+            }
+        }
+        if (0 != process.waitFor() || null == result) {
+            throw new RuntimeException("Benchmark fork failed\n" + output);
+        }
+        return (Map<String, List<Double>>) Json.parse(result);
+    }
+}
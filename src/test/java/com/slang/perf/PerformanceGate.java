@@ -0,0 +1,18 @@
+package com.slang.perf;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Runs {@link PerfGate} as part of the build, only with mvn test -Pperf-gate, its name keeps it out of the default
+ * test run. The options of PerfGate can be passed as -Dperf.args="--forks=5 --threshold=0.05".
+ */
+public class PerformanceGate {
+
+    @Test
+    public void testNoRegressions() throws Exception {
+        String args = System.getProperty("perf.args", "").trim();
+        Assert.assertEquals("Slang throughput regressed, see the table above", 0,
+                PerfGate.run(args.isEmpty() ? new String[0] : args.split("\\s+"), System.out));
+    }
+}
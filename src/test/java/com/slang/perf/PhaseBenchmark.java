@@ -0,0 +1,105 @@
+package com.slang.perf;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.ast.Module;
+import com.slang.ast.Token;
+import com.slang.lexer.Lexer;
+import com.slang.output.CaptureSink;
+import com.slang.parser.Parser;
+import com.slang.visitor.LexicalContext;
+import com.slang.visitor.SemanticAnalyzer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One fork of the benchmarks of {@link PerfGate}: the throughput of lexing, parsing, analysing and running every
+ * sample program which compiles. Prints a single line, RESULT followed by the JSON of the operations per second
+ * of every measured iteration by benchmark name.
+ *
+ * Usage: PhaseBenchmark dir warmup-iterations measured-iterations milliseconds-per-iteration
+ */
+public class PhaseBenchmark {
+
+    static final String RESULT = "RESULT ";
+
+    private interface Operation {
+        void run();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args[0]);
+        int warmup = Integer.parseInt(args[1]);
+        int iterations = Integer.parseInt(args[2]);
+        long millis = Long.parseLong(args[3]);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Operation> benchmark : benchmarks(directory).entrySet()) {
+            for (int i = 0; i < warmup; i++) {
+                measure(benchmark.getValue(), millis);
+            }
+            List<Double> throughputs = new ArrayList<>();
+            for (int i = 0; i < iterations; i++) {
+                throughputs.add(measure(benchmark.getValue(), millis));
+            }
+            results.put(benchmark.getKey(), throughputs);
+        }
+        System.out.println(RESULT + Json.write(results).replace("\n", ""));
+    }
+
+    private static Map<String, Operation> benchmarks(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> samples = Files.newDirectoryStream(directory, "*.sl")) {
+            samples.forEach(files::add);
+        }
+        files.sort(null);
+
+        Map<String, Operation> benchmarks = new LinkedHashMap<>();
+        for (Path file : files) {
+            String source = new String(Files.readAllBytes(file));
+            String name = file.getFileName().toString();
+            CompiledModule compiledModule;
+            try {
+                compiledModule = SlangEngine.create().compile(source);
+            } catch (RuntimeException e) {
+                continue;
+            }
+
+            benchmarks.put("lex/" + name, () -> {
+                Lexer lexer = new Lexer(source);
+                lexer.eat();
+                while (Token.UNKNOWN != lexer.getCurrentToken()) {
+                    lexer.eat();
+                }
+            });
+            benchmarks.put("parse/" + name, () -> new Parser(new Lexer(source)).parseModule());
+            benchmarks.put("analyse/" + name, () -> {
+                Module module = new Parser(new Lexer(source)).parseModule();
+                module.accept(new SemanticAnalyzer(), new LexicalContext());
+            });
+            benchmarks.put("run/" + name, () -> compiledModule.run(new CaptureSink()));
+        }
+        return benchmarks;
+    }
+
+    private static double measure(Operation operation, long millis) {
+        long operations = 0;
+        long begin = System.nanoTime();
+        long end = begin + millis * 1_000_000;
+        long now;
+        do {
+            operation.run();
+            operations++;
+            now = System.nanoTime();
+        } while (now < end);
+        return operations / ((now - begin) / 1e9);
+    }
+}
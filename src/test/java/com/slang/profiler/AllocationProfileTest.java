@@ -0,0 +1,95 @@
+package com.slang.profiler;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.ast.Statement;
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AllocationProfileTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static final String PROGRAM = "function void main()\n" +
+            "    var i = 0;\n" +
+            "    var s = 0;\n" +
+            "    while (i < 10)\n" +
+            "        if (i > 100) then\n" +
+            "            println i;\n" +
+            "        endif\n" +
+            "        s = add(s, i);\n" +
+            "        i = i + 1;\n" +
+            "    wend\n" +
+            "    println s;\n" +
+            "end\n" +
+            "function int add(int x, int y)\n" +
+            "    return x + y;\n" +
+            "end\n";
+
+    @Test
+    public void testAllocationsPerLine() {
+        for (boolean inline : new boolean[]{true, false}) {
+            CompiledModule module = SlangEngine.builder().withInlining(inline).build().compile(PROGRAM);
+            AllocationProfile profile = module.newAllocationProfile();
+            CaptureSink out = new CaptureSink();
+            module.run(out, profile);
+            Assert.assertEquals("45" + NL, out.getOutput());
+
+            Map<Integer, AllocationProfile.Line> lines = new HashMap<>();
+            for (AllocationProfile.Line line : profile.getLines()) {
+                lines.put(line.getLine(), line);
+            }
+            //a frame per call of add and per iteration of the while, nothing for the line which never ran
+            Assert.assertEquals(10, lines.get(8).getFrames());
+            Assert.assertEquals(10, lines.get(4).getFrames());
+            Assert.assertEquals(10, lines.get(14).getSymbolInfos());
+            Assert.assertFalse(lines.containsKey(6));
+            Assert.assertEquals(4, profile.getTopLines(1).get(0).getLine());
+
+            Statement whileStatement = profile.getModule().getFunctionsMap().get("main").getBody().get(2);
+            Assert.assertEquals(10, profile.getFrames(whileStatement));
+            profile.reset();
+            Assert.assertEquals(0, profile.getTotalSymbolInfos() + profile.getTotalFrames());
+        }
+    }
+
+    @Test
+    public void testOnlyTrackedRunsCount() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        AllocationProfile profile = module.newAllocationProfile();
+        module.run(new CaptureSink(), profile);
+        long symbolInfos = profile.getTotalSymbolInfos();
+        long frames = profile.getTotalFrames();
+        module.run(new CaptureSink());
+        module.invoke("add", 1, 2);
+        Assert.assertEquals(symbolInfos, profile.getTotalSymbolInfos());
+        Assert.assertEquals(frames, profile.getTotalFrames());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testProfileOfAnotherModule() {
+        AllocationProfile profile = SlangEngine.create().compile(PROGRAM).newAllocationProfile();
+        SlangEngine.create().compile(PROGRAM).run(new CaptureSink(), profile);
+    }
+
+    @Test
+    public void testPrint() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        AllocationProfile profile = module.newAllocationProfile();
+        module.run(new CaptureSink(), profile);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        profile.print(new PrintStream(printed, true), PROGRAM, 2);
+        String[] lines = printed.toString().split("\r?\n");
+        Assert.assertEquals(4, lines.length);
+        Assert.assertEquals(" SymbolInfos       Frames   Line  Source", lines[0]);
+        Assert.assertTrue(lines[1], lines[1].endsWith("     4  while (i < 10)"));
+        Assert.assertTrue(lines[3], lines[3].startsWith(profile.getTotalSymbolInfos() + " SymbolInfos and "
+                + profile.getTotalFrames() + " frames"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.slang.profiler;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.ast.Statement;
+import com.slang.lexer.Lexer;
+import com.slang.output.CaptureSink;
+import com.slang.parser.Parser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class ExecutionCountsTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static final String PROGRAM = "function void main()\n" +
+            "    var i = 0;\n" +
+            "    var s = 0;\n" +
+            "    while (i < 10)\n" +
+            "        if (i > 100) then\n" +
+            "            println i;\n" +
+            "        endif\n" +
+            "        s = add(s, i);\n" +
+            "        i = i + 1;\n" +
+            "    wend\n" +
+            "    println s;\n" +
+            "end\n" +
+            "function int add(int x, int y)\n" +
+            "    return x + y;\n" +
+            "end\n";
+
+    @Test
+    public void testLineCountsAndCoverage() {
+        for (boolean inline : new boolean[]{true, false}) {
+            CompiledModule module = SlangEngine.builder().withInlining(inline).build().compile(PROGRAM);
+            ExecutionCounts counts = module.newExecutionCounts();
+            CaptureSink out = new CaptureSink();
+            module.run(out, counts);
+            Assert.assertEquals("45" + NL, out.getOutput());
+
+            //the condition of the while runs once more than its body
+            Assert.assertEquals("{2=1, 3=1, 4=11, 5=10, 6=0, 8=10, 9=10, 11=1, 12=1, 14=10}",
+                    counts.getLineCounts().toString());
+            Assert.assertEquals("[6]", counts.getUncoveredLines().toString());
+            Statement whileStatement = counts.getModule().getFunctionsMap().get("main").getBody().get(2);
+            Assert.assertEquals(1, counts.getCount(whileStatement));
+
+            module.run(new CaptureSink(), counts);
+            Assert.assertEquals(20, (long) counts.getLineCounts().get(14));
+            counts.reset();
+            Assert.assertEquals(0, (long) counts.getLineCounts().get(14));
+        }
+    }
+
+    @Test
+    public void testNumberingIsStable() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        ExecutionCounts first = module.newExecutionCounts();
+        ExecutionCounts second = module.newExecutionCounts();
+        module.run(new CaptureSink(), first);
+        module.run(new CaptureSink(), second);
+        Assert.assertArrayEquals(first.getCounters(), second.getCounters());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testModuleMustBeNumbered() {
+        new ExecutionCounts(new Parser(new Lexer(PROGRAM)).parseModule());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testCountsOfAnotherModule() {
+        ExecutionCounts counts = SlangEngine.create().compile(PROGRAM).newExecutionCounts();
+        SlangEngine.create().compile(PROGRAM).run(new CaptureSink(), counts);
+    }
+
+    @Test
+    public void testPrint() {
+        CompiledModule module = SlangEngine.create().compile(PROGRAM);
+        ExecutionCounts counts = module.newExecutionCounts();
+        module.run(new CaptureSink(), counts);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        counts.print(new PrintStream(printed, true), PROGRAM);
+        String[] lines = printed.toString().split("\r?\n");
+        Assert.assertEquals(16, lines.length);
+        Assert.assertEquals("          11:     4:     while (i < 10)", lines[3]);
+        Assert.assertEquals("       #####:     6:             println i;", lines[5]);
+        Assert.assertEquals("           -:     7:         endif", lines[6]);
+        Assert.assertEquals("9 of 10 lines covered (90.0%)", lines[15]);
+    }
+}
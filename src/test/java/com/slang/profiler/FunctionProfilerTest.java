@@ -0,0 +1,78 @@
+package com.slang.profiler;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+public class FunctionProfilerTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static final String PROGRAM = "function void main() var r = fact(5); println r; " +
+            "var f = lambda int (int x) var y = twice(x); return y; endlambda var s = apply(f, 3); println s; end " +
+            "function int fact(int n) if (n == 0) then return 1; endif var m = fact(n - 1); return n * m; end " +
+            "function int twice(int x) return x + x; end " +
+            "function int apply((int)->int fn, int v) var w = fn(v); return w; end";
+
+    private static FunctionProfiler profile(boolean inline) {
+        CompiledModule module = SlangEngine.builder().withInlining(inline).withTailCalls(false).build().compile(PROGRAM);
+        FunctionProfiler profiler = new FunctionProfiler();
+        CaptureSink out = new CaptureSink();
+        module.run(out, profiler);
+        Assert.assertEquals("120" + NL + "6" + NL, out.getOutput());
+        return profiler;
+    }
+
+    @Test
+    public void testCallsAndTimes() {
+        Map<String, FunctionProfiler.FunctionProfile> functions = new HashMap<>();
+        for (FunctionProfiler.FunctionProfile function : profile(false).getFunctions()) {
+            functions.put(function.getName(), function);
+        }
+        Assert.assertEquals(1, functions.get("main").getCalls());
+        Assert.assertEquals(6, functions.get("fact").getCalls());
+        Assert.assertEquals(1, functions.get("apply").getCalls());
+        Assert.assertEquals(1, functions.get("twice").getCalls());
+
+        FunctionProfiler.FunctionProfile main = functions.get("main");
+        FunctionProfiler.FunctionProfile fact = functions.get("fact");
+        Assert.assertTrue(main.getTotalNanos() >= main.getSelfNanos());
+        Assert.assertTrue(main.getTotalNanos() >= fact.getTotalNanos() + functions.get("apply").getTotalNanos());
+        //the recursive calls of fact are within its outermost call
+        Assert.assertTrue(fact.getTotalNanos() >= fact.getSelfNanos());
+        Assert.assertTrue(main.getAllocatedBytes() >= fact.getAllocatedBytes());
+    }
+
+    @Test
+    public void testCollapsedStacksKeepLambdas() {
+        ByteArrayOutputStream collapsed = new ByteArrayOutputStream();
+        profile(false).writeCollapsed(new PrintStream(collapsed, true));
+        String stacks = collapsed.toString();
+        Assert.assertTrue(stacks, stacks.matches("(?sm).*^main;apply;lambda\\$\\d+;twice \\d+$.*"));
+        Assert.assertTrue(stacks, stacks.matches("(?sm).*^main;fact;fact;fact;fact;fact;fact \\d+$.*"));
+        for (String line : stacks.split("\r?\n")) {
+            Assert.assertTrue(line, line.matches("main(;[\\w$]+)* \\d+"));
+        }
+    }
+
+    @Test
+    public void testInlinedCallsAreFrames() {
+        ByteArrayOutputStream collapsed = new ByteArrayOutputStream();
+        FunctionProfiler profiler = profile(true);
+        profiler.writeCollapsed(new PrintStream(collapsed, true));
+        Assert.assertTrue(collapsed.toString(), collapsed.toString().contains(";twice "));
+
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        profiler.printReport(new PrintStream(report, true), 2);
+        String[] lines = report.toString().split("\r?\n");
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[0].startsWith("function "));
+    }
+}
@@ -0,0 +1,64 @@
+package com.slang.profiler;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+public class SamplingProfilerTest {
+
+    private static final String NL = System.lineSeparator();
+
+    private static final String PROGRAM = "function void main()\n" +
+            "    var r = spin(2000);\n" +
+            "    println r;\n" +
+            "end\n" +
+            "function int spin(int n)\n" +
+            "    var i = 0;\n" +
+            "    var s = 0;\n" +
+            "    while (i < n)\n" +
+            "        s = s + i;\n" +
+            "        i = i + 1;\n" +
+            "    wend\n" +
+            "    return s;\n" +
+            "end\n";
+
+    @Test
+    public void testHotFunctionAndLines() {
+        CompiledModule module = SlangEngine.builder().withInlining(false).build().compile(PROGRAM);
+        SamplingProfiler.Report report;
+        try (SamplingProfiler sampler = new SamplingProfiler(200)) {
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (sampler.report().getSamples() < 100 && System.currentTimeMillis() < deadline) {
+                CaptureSink out = new CaptureSink();
+                module.run(out, sampler);
+                Assert.assertEquals("1999000" + NL, out.getOutput());
+            }
+            report = sampler.drain();
+            Assert.assertEquals(0, sampler.report().getSamples());
+        }
+
+        Assert.assertTrue(report.getSamples() >= 100);
+        Map<String, Long> self = report.getSelf();
+        Assert.assertTrue(self.toString(), self.getOrDefault("spin", 0L) > report.getSamples() / 2);
+        Assert.assertEquals(report.getSamples(), (long) report.getTotal().get("main"));
+        long loop = 0;
+        for (int line = 8; line <= 10; line++) {
+            loop += report.getLines().getOrDefault(line, 0L);
+        }
+        Assert.assertTrue(report.getLines().toString(), loop > report.getSamples() / 2);
+
+        ByteArrayOutputStream collapsed = new ByteArrayOutputStream();
+        report.writeCollapsed(new PrintStream(collapsed, true));
+        Assert.assertTrue(collapsed.toString(), collapsed.toString().matches("(?sm).*^main;spin \\d+$.*"));
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        report.print(new PrintStream(printed, true), 5);
+        Assert.assertTrue(printed.toString(), printed.toString().contains("spin"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.slang.script;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.io.StringWriter;
+
+public class SlangScriptEngineTest {
+
+    private static final String SCRIPT = "function int add(int x, int y) return x + y; end " +
+            "function void main() var r = add(1, 2); println r; end";
+
+    public interface Adder {
+        int add(int x, int y);
+    }
+
+    private static ScriptEngine engine(StringWriter out) {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("slang");
+        Assert.assertNotNull(engine);
+        engine.getContext().setWriter(out);
+        return engine;
+    }
+
+    @Test
+    public void testEval() throws ScriptException {
+        StringWriter out = new StringWriter();
+        ScriptEngine engine = engine(out);
+        engine.eval(SCRIPT);
+        engine.eval(SCRIPT);
+        Assert.assertEquals("3" + System.lineSeparator() + "3" + System.lineSeparator(), out.toString());
+        Assert.assertEquals(1, ((SlangScriptEngine) engine).getCompilations());
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() throws ScriptException {
+        SlangScriptEngine engine = new SlangScriptEngine(new SlangScriptEngineFactory(), 2);
+        engine.getContext().setWriter(new StringWriter());
+        String first = SCRIPT;
+        String second = "function void main() println 2; end";
+        String third = "function void main() println 3; end";
+        engine.eval(first);
+        engine.eval(second);
+        engine.eval(first);
+        engine.eval(third);
+        Assert.assertEquals(3, engine.getCompilations());
+        engine.eval(first);
+        Assert.assertEquals(3, engine.getCompilations());
+        engine.eval(second);
+        Assert.assertEquals(4, engine.getCompilations());
+    }
+
+    @Test
+    public void testCompiledScript() throws ScriptException {
+        StringWriter out = new StringWriter();
+        ScriptEngine engine = engine(out);
+        CompiledScript script = ((Compilable) engine).compile("function void main() println \"compiled\"; end");
+        Assert.assertEquals("", out.toString());
+        script.eval();
+        Assert.assertEquals("compiled" + System.lineSeparator(), out.toString());
+    }
+
+    @Test
+    public void testInvocable() throws Exception {
+        ScriptEngine engine = engine(new StringWriter());
+        engine.eval(SCRIPT);
+        Invocable invocable = (Invocable) engine;
+        Assert.assertEquals(42, invocable.invokeFunction("add", 40, 2));
+        Assert.assertEquals(5, invocable.getInterface(Adder.class).add(2, 3));
+        Assert.assertNull(invocable.getInterface(Runnable.class));
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void testInvokeUndefinedFunction() throws Exception {
+        ScriptEngine engine = engine(new StringWriter());
+        engine.eval(SCRIPT);
+        ((Invocable) engine).invokeFunction("sub", 1, 2);
+    }
+
+    @Test(expected = ScriptException.class)
+    public void testErrorsAreScriptExceptions() throws ScriptException {
+        engine(new StringWriter()).eval("function void main() println x; end");
+    }
+}
@@ -0,0 +1,69 @@
+package com.slang.snapshot;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.output.CaptureSink;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class SnapshotTest {
+
+    private static final String NL = System.lineSeparator();
+
+    //the setup computes a total, builds closures and prints, the rest changes the captured variables
+    private static final String PROGRAM = "function void main() " +
+            "var total = sum(1000); var k = 3; var name = \"slang\"; var ratio = 0.5; var big = 10l; var ok = true; " +
+            "var times = lambda int (int x) return x * k; endlambda " +
+            "var twice = lambda int (int x) var y = times(x); return y + y; endlambda " +
+            "var w = fact(5); " +
+            "println total; k = k + 1; var a = times(2); println a; var b = twice(3); println b; " +
+            "println name; println ratio; println big; println ok; println w; end " +
+            "function int sum(int n) var s = 0; var i = 0; while (i < n) i = i + 1; s = s + i; wend println s; return s; end " +
+            "function int fact(int n) if (n == 0) then return 1; endif var r = fact(n - 1); return n * r; end";
+
+    private static String run(CompiledModule module) {
+        CaptureSink out = new CaptureSink();
+        module.run(out);
+        return out.getOutput();
+    }
+
+    @Test
+    public void testRestoredRunContinuesAfterSetup() {
+        SlangEngine engine = SlangEngine.create();
+        String expected = run(engine.compile(PROGRAM));
+
+        CaptureSink setUp = new CaptureSink();
+        byte[] snapshot = engine.compile(PROGRAM).snapshot(setUp);
+        Assert.assertEquals("500500" + NL, setUp.getOutput());
+
+        CompiledModule restored = SlangEngine.create().restore(ByteBuffer.wrap(snapshot));
+        Assert.assertEquals(expected, setUp.getOutput() + run(restored));
+        //the closures still see the variables of main's frame
+        Assert.assertTrue(run(restored).contains(NL + "8" + NL + "24" + NL));
+    }
+
+    @Test
+    public void testEveryRunStartsFromTheSnapshot() {
+        CompiledModule restored = SlangEngine.create()
+                .restore(ByteBuffer.wrap(SlangEngine.create().compile(PROGRAM).snapshot(new CaptureSink())));
+        String first = run(restored);
+        Assert.assertEquals(first, run(restored));
+        Assert.assertEquals(3628800, restored.invoke("fact", 10));
+    }
+
+    @Test
+    public void testModuleWithoutSetup() {
+        String program = "function void main() println 1; var x = 2; println x; end";
+        CaptureSink setUp = new CaptureSink();
+        byte[] snapshot = SlangEngine.create().compile(program).snapshot(setUp);
+        Assert.assertEquals("", setUp.getOutput());
+        Assert.assertEquals("1" + NL + "2" + NL, run(SlangEngine.create().restore(ByteBuffer.wrap(snapshot))));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testNotASnapshot() {
+        SlangEngine.create().restore(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+}
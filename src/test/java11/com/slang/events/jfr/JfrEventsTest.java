@@ -0,0 +1,75 @@
+package com.slang.events.jfr;
+
+import com.slang.CompiledModule;
+import com.slang.SlangEngine;
+import com.slang.events.SlangEvents;
+import com.slang.output.CaptureSink;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class JfrEventsTest {
+
+    private static final String PROGRAM = "function int add(int x, int y) return x + y; end " +
+            "function int apply((int)->int fn, int x) var r = fn(x); return r; end " +
+            "function void main() var i = 0; var s = 0; " +
+            "while (i < 3) s = add(s, i); i = i + 1; wend " +
+            "var k = 5; var f = lambda int (int x) return x * k; endlambda var a = apply(f, s); println a; end";
+
+    private static final String[] EVENTS = {"com.slang.Lexing", "com.slang.Parsing", "com.slang.Analysis",
+            "com.slang.FunctionInvocation", "com.slang.ClosureCreation"};
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordedEvents() throws Exception {
+        Assert.assertTrue(SlangEvents.INSTANCE instanceof JfrEvents);
+
+        Path file = folder.newFile("slang.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event);
+            }
+            recording.start();
+            CompiledModule module = SlangEngine.builder().withInlining(false).build().compile(PROGRAM);
+            CaptureSink out = new CaptureSink();
+            module.run(out);
+            Assert.assertEquals("15\n", out.getOutput());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, Integer> counts = new TreeMap<>();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+            if ("com.slang.FunctionInvocation".equals(name)) {
+                name += " " + event.getString("function") + "/" + event.getInt("arguments");
+            } else if ("com.slang.ClosureCreation".equals(name)) {
+                name += " " + event.getString("lambda");
+            } else if ("com.slang.Parsing".equals(name)) {
+                Assert.assertEquals(3, event.getInt("functions"));
+            }
+            counts.merge(name, 1, Integer::sum);
+        }
+        //the call of the lambda is a closure call, not recorded as an invocation
+        Assert.assertEquals("{com.slang.Analysis=1, com.slang.ClosureCreation lambda$1=1, "
+                + "com.slang.FunctionInvocation add/2=3, com.slang.FunctionInvocation apply/2=1, "
+                + "com.slang.FunctionInvocation main/0=1, com.slang.Lexing=1, com.slang.Parsing=1}", counts.toString());
+    }
+
+    @Test
+    public void testNothingIsBegunWithoutARecording() {
+        Assert.assertNull(SlangEvents.INSTANCE.beginParsing());
+    }
+}